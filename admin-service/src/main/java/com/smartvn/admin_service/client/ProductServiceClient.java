@@ -6,6 +6,7 @@ import java.util.Map;
 import com.smartvn.admin_service.config.FeignClientConfig;
 import com.smartvn.admin_service.dto.product.CreateProductRequest;
 import com.smartvn.admin_service.dto.product.ImageDTO;
+import com.smartvn.admin_service.dto.product.ImportJobDTO;
 import com.smartvn.admin_service.dto.product.InventoryDTO;
 import com.smartvn.admin_service.dto.product.ProductAdminViewDTO;
 import com.smartvn.admin_service.dto.product.ProductDetailForEditDTO;
@@ -154,6 +155,19 @@ public interface ProductServiceClient {
     ResponseEntity<ApiResponse<Map<String, Object>>> createBulkProducts(
             @RequestBody List<CreateProductRequest> requests);
 
+    /**
+     * ✅ TẠO JOB IMPORT NỀN (trả về ngay, poll bằng getImportJob)
+     */
+    @PostMapping("${api.prefix}/internal/products/admin/jobs")
+    ResponseEntity<ApiResponse<ImportJobDTO>> submitImportJob(
+            @RequestBody List<CreateProductRequest> requests);
+
+    /**
+     * ✅ TIẾN ĐỘ JOB IMPORT
+     */
+    @GetMapping("${api.prefix}/internal/products/admin/jobs/{jobId}")
+    ResponseEntity<ApiResponse<ImportJobDTO>> getImportJob(@PathVariable("jobId") Long jobId);
+
     /**
      * ✅ CẬP NHẬT PRODUCT
      */
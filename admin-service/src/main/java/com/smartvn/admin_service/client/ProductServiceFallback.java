@@ -110,6 +110,22 @@ public class ProductServiceFallback implements ProductServiceClient {
                 .body(ApiResponse.error("Product service đang bảo trì. Vui lòng thử lại sau."));
     }
 
+    @Override
+    public ResponseEntity<ApiResponse<ImportJobDTO>> submitImportJob(List<CreateProductRequest> requests) {
+        log.error("Product Service unavailable. Import job not submitted.");
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(ApiResponse.error("Product service đang bảo trì. Vui lòng thử lại sau."));
+    }
+
+    @Override
+    public ResponseEntity<ApiResponse<ImportJobDTO>> getImportJob(Long jobId) {
+        log.error("Product Service unavailable. Returning empty result.");
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(ApiResponse.error("Product service đang bảo trì. Vui lòng thử lại sau."));
+    }
+
     @Override
     public ResponseEntity<ApiResponse<ProductAdminViewDTO>> updateProduct(Long productId, UpdateProductRequest request) {
         log.error("Product Service unavailable. Returning empty result.");
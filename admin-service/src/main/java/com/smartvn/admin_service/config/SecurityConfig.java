@@ -50,7 +50,7 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.PUT, "/api/v1/admin/users/{id}/warn").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.PUT, "/api/v1/admin/users/{id}/unban").hasRole("ADMIN")
 
-                        .requestMatchers(HttpMethod.POST, "/api/v1/admin/products", "/api/v1/admin/products/bulk").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.POST, "/api/v1/admin/products", "/api/v1/admin/products/bulk", "/api/v1/admin/products/bulk/jobs").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.PUT, "/api/v1/admin/products/{id}").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.POST, "/api/v1/admin/products/{id}/images").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.DELETE, "/api/v1/admin/products/images/**").hasRole("ADMIN")
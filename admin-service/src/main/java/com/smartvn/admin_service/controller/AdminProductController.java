@@ -113,6 +113,29 @@ public class AdminProductController {
                 .body(ApiResponse.success(result, "Bulk import completed"));
     }
 
+    /**
+     * ✅ IMPORT DẠNG JOB NỀN
+     * Trả về 202 + id job ngay; frontend poll GET /jobs/{jobId} để hiển thị tiến độ.
+     */
+    @PostMapping("/bulk/jobs")
+    public ResponseEntity<ApiResponse<?>> submitImportJob(
+            @RequestBody List<CreateProductRequest> requests) {
+
+        ImportJobDTO job = productService.submitImportJob(requests);
+        return ResponseEntity
+                .status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success(job, "Import job queued"));
+    }
+
+    /**
+     * ✅ TIẾN ĐỘ JOB IMPORT
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<ApiResponse<?>> getImportJob(@PathVariable Long jobId) {
+        ImportJobDTO job = productService.getImportJob(jobId);
+        return ResponseEntity.ok(ApiResponse.success(job, "Import job status"));
+    }
+
     /**
      * ✅ CẬP NHẬT PRODUCT INFO
      */
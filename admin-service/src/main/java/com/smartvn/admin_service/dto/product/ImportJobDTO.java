@@ -0,0 +1,33 @@
+package com.smartvn.admin_service.dto.product;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Trạng thái job import sản phẩm (product-service) khi poll tiến độ.
+ */
+@Data
+public class ImportJobDTO {
+    private Long id;
+    private String status;          // QUEUED, RUNNING, COMPLETED, FAILED
+    private int totalRows;
+    private int processedRows;
+    private int successCount;
+    private int failureCount;
+    private double percentComplete;
+    private Long etaSeconds;
+    private String errorMessage;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private List<FailureRecord> failures;
+
+    @Data
+    public static class FailureRecord {
+        private int index;
+        private String productTitle;
+        private String errorMessage;
+    }
+}
@@ -88,6 +88,28 @@ public class AdminProductService extends BaseAdminService {
         return handleResponse(response, "Failed to bulk create products");
     }
 
+    /**
+     * ✅ TẠO JOB IMPORT NỀN - không chờ import xong
+     */
+    public ImportJobDTO submitImportJob(List<CreateProductRequest> requests) {
+        log.info("📦 Submitting import job with {} products", requests.size());
+
+        ResponseEntity<ApiResponse<ImportJobDTO>> response =
+                productServiceClient.submitImportJob(requests);
+
+        return handleResponse(response, "Failed to submit import job");
+    }
+
+    /**
+     * ✅ POLL TIẾN ĐỘ JOB IMPORT
+     */
+    public ImportJobDTO getImportJob(Long jobId) {
+        ResponseEntity<ApiResponse<ImportJobDTO>> response =
+                productServiceClient.getImportJob(jobId);
+
+        return handleResponse(response, "Failed to get import job");
+    }
+
     /**
      * ✅ CẬP NHẬT PRODUCT
      */
@@ -4,12 +4,19 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.openfeign.EnableFeignClients;
 
+import java.util.Map;
+
 @SpringBootApplication
 @EnableFeignClients
 public class OrderServiceApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(OrderServiceApplication.class, args);
+		SpringApplication app = new SpringApplication(OrderServiceApplication.class);
+		// Tắt open-in-view của Spring Boot, OpenInViewConfig bật lại cho mọi endpoint trừ đặt hàng
+		// (placeOrder không được giữ connection trong lúc gọi product-service).
+		// Cấu hình trên config server vẫn ghi đè được giá trị mặc định này.
+		app.setDefaultProperties(Map.of("spring.jpa.open-in-view", "false"));
+		app.run(args);
 	}
 
 }
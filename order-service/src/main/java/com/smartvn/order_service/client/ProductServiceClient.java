@@ -4,7 +4,9 @@ import com.smartvn.order_service.config.FeignClientConfig;
 import com.smartvn.order_service.dto.product.InventoryCheckRequest;
 import com.smartvn.order_service.dto.product.InventoryDTO;
 import com.smartvn.order_service.dto.product.InventoryItemDTO;
+import com.smartvn.order_service.dto.product.OrderSalesRequest;
 import com.smartvn.order_service.dto.product.ProductDTO;
+import com.smartvn.order_service.dto.product.ReserveInventoryRequest;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.*;
 
@@ -16,7 +18,7 @@ import java.util.Map;
  */
 @FeignClient(
         name = "product-service",
-        fallback = ProductServiceFallback.class,
+        fallbackFactory = ProductServiceFallbackFactory.class,
         configuration = FeignClientConfig.class
 )
 public interface ProductServiceClient {
@@ -27,6 +29,12 @@ public interface ProductServiceClient {
     @GetMapping("${api.prefix}/internal/products/{productId}")
     ProductDTO getProductById(@PathVariable("productId") Long productId);
 
+    /**
+     * Lấy thông tin nhiều sản phẩm trong 1 request (thay cho gọi getProductById trong vòng lặp)
+     */
+    @PostMapping("${api.prefix}/internal/products/batch")
+    List<ProductDTO> getProductsByIds(@RequestBody List<Long> productIds);
+
     /**
      * Lấy danh sách inventory của một sản phẩm
      */
@@ -57,6 +65,30 @@ public interface ProductServiceClient {
     @PostMapping("${api.prefix}/internal/inventory/batch-reduce")
     void batchReduceInventory(@RequestBody List<InventoryCheckRequest> requests);
 
+    /**
+     * Giữ chỗ tồn kho (có thời hạn) cho đơn hàng vừa tạo
+     */
+    @PostMapping("${api.prefix}/internal/inventory/reservations")
+    void reserveInventory(@RequestBody ReserveInventoryRequest request);
+
+    /**
+     * Chốt giữ chỗ khi đơn đã thanh toán / đã xác nhận / đã giao
+     */
+    @PostMapping("${api.prefix}/internal/inventory/reservations/{orderId}/commit")
+    Integer commitInventoryReservation(@PathVariable("orderId") Long orderId);
+
+    /**
+     * Nhả giữ chỗ khi hủy đơn. Trả về số dòng giữ chỗ của đơn (0 = đơn cũ chưa có giữ chỗ)
+     */
+    @PostMapping("${api.prefix}/internal/inventory/reservations/{orderId}/release")
+    Integer releaseInventoryReservation(@PathVariable("orderId") Long orderId);
+
     @PostMapping("${api.prefix}/internal/products/{productId}/increase-sold")
     void increaseQuantitySold(@RequestBody InventoryCheckRequest request);
+
+    /**
+     * Ghi nhận doanh số cho 1 lô đơn đã giao (idempotent theo orderId). Trả về số đơn được ghi nhận mới
+     */
+    @PostMapping("${api.prefix}/internal/products/sales/batch")
+    Integer recordSales(@RequestBody List<OrderSalesRequest> requests);
 }
\ No newline at end of file
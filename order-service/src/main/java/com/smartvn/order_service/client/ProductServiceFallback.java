@@ -3,23 +3,33 @@ package com.smartvn.order_service.client;
 import com.smartvn.order_service.dto.product.InventoryCheckRequest;
 import com.smartvn.order_service.dto.product.InventoryDTO;
 import com.smartvn.order_service.dto.product.InventoryItemDTO;
+import com.smartvn.order_service.dto.product.OrderSalesRequest;
 import com.smartvn.order_service.dto.product.ProductDTO;
+import com.smartvn.order_service.dto.product.ReserveInventoryRequest;
+import com.smartvn.order_service.exceptions.AppException;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
- * Fallback khi Product Service không khả dụng
+ * Fallback khi Product Service không khả dụng.
+ * Được tạo bởi ProductServiceFallbackFactory cho từng lỗi, để các thao tác tồn kho / doanh số
+ * ném lại lỗi nghiệp vụ gốc (AppException 4xx) thay vì che thành "service unavailable".
  */
-@Component
 @Slf4j
 public class ProductServiceFallback implements ProductServiceClient {
 
+    private final Throwable cause;
+
+    public ProductServiceFallback(Throwable cause) {
+        this.cause = cause;
+    }
+
     @Override
     public ProductDTO getProductById(Long productId) {
         log.error("Product Service unavailable. Returning fallback for productId: {}", productId);
@@ -35,6 +45,14 @@ public class ProductServiceFallback implements ProductServiceClient {
         return fallback;
     }
 
+    @Override
+    public List<ProductDTO> getProductsByIds(List<Long> productIds) {
+        log.error("Product Service unavailable. Returning fallback for {} products", productIds.size());
+        return productIds.stream()
+                .map(this::getProductById)
+                .collect(Collectors.toList());
+    }
+
     @Override
     public List<InventoryItemDTO> getProductInventory(Long productId) {
         log.error("Product Service unavailable. Returning empty inventory for productId: {}", productId);
@@ -74,8 +92,46 @@ public class ProductServiceFallback implements ProductServiceClient {
         throw new RuntimeException("Product Service is currently unavailable");
     }
 
+    @Override
+    public void reserveInventory(ReserveInventoryRequest request) {
+        log.error("Product Service unavailable. Cannot reserve inventory for order {}", request.getOrderId());
+        throw unavailable();
+    }
+
+    @Override
+    public Integer commitInventoryReservation(Long orderId) {
+        log.error("Product Service unavailable. Cannot commit inventory reservation for order {}", orderId);
+        throw unavailable();
+    }
+
+    @Override
+    public Integer releaseInventoryReservation(Long orderId) {
+        // Không trả 0 vì order-service sẽ hiểu nhầm là đơn cũ và hoàn kho theo cách cũ
+        log.error("Product Service unavailable. Cannot release inventory reservation for order {}", orderId);
+        throw unavailable();
+    }
+
     @Override
     public void increaseQuantitySold(InventoryCheckRequest request) {
         log.error("Product Service unavailable. Cannot increase quantity sold");
     }
-}
\ No newline at end of file
+
+    @Override
+    public Integer recordSales(List<OrderSalesRequest> requests) {
+        log.error("Product Service unavailable. Cannot record sales for {} orders", requests.size());
+        throw unavailable();
+    }
+
+    /**
+     * Lỗi nghiệp vụ từ FeignErrorDecoder (400 / 404 / 409) được ném lại nguyên vẹn để OutboxRelay
+     * không retry; các lỗi khác (timeout, 5xx, circuit mở) mới coi là service không khả dụng.
+     */
+    private RuntimeException unavailable() {
+        for (Throwable t = cause; t != null; t = t.getCause()) {
+            if (t instanceof AppException appException) {
+                return appException;
+            }
+        }
+        return new RuntimeException("Product Service is currently unavailable", cause);
+    }
+}
@@ -0,0 +1,19 @@
+package com.smartvn.order_service.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.openfeign.FallbackFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tạo ProductServiceFallback kèm lỗi gốc của lần gọi thất bại.
+ */
+@Component
+@Slf4j
+public class ProductServiceFallbackFactory implements FallbackFactory<ProductServiceClient> {
+
+    @Override
+    public ProductServiceClient create(Throwable cause) {
+        log.debug("Product Service call failed: {}", cause.getMessage());
+        return new ProductServiceFallback(cause);
+    }
+}
@@ -7,6 +7,10 @@ import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+
+import java.util.List;
 
 /**
  * Feign Client để giao tiếp với User Service
@@ -30,6 +34,18 @@ ResponseEntity<UserDTO> getUserById(@PathVariable("userId") Long userId);
     @GetMapping("/api/v1/internal/users/addresses/{addressId}")
     AddressDTO getAddressById(@PathVariable("addressId") Long addressId);
 
+    /**
+     * Lấy thông tin nhiều user trong 1 request
+     */
+    @PostMapping("/api/v1/internal/users/batch")
+    List<UserDTO> getUsersByIds(@RequestBody List<Long> userIds);
+
+    /**
+     * Lấy nhiều địa chỉ trong 1 request
+     */
+    @PostMapping("/api/v1/internal/users/addresses/batch")
+    List<AddressDTO> getAddressesByIds(@RequestBody List<Long> addressIds);
+
     /**
      * Validate địa chỉ có thuộc về user không
      */
@@ -7,6 +7,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
 /**
  * Fallback khi User Service không khả dụng
  */
@@ -42,6 +45,22 @@ public class UserServiceFallback implements UserServiceClient {
         return fallback;
     }
 
+    @Override
+    public List<UserDTO> getUsersByIds(List<Long> userIds) {
+        log.error("User Service unavailable. Returning fallback for {} users", userIds.size());
+        return userIds.stream()
+                .map(userId -> getUserById(userId).getBody())
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<AddressDTO> getAddressesByIds(List<Long> addressIds) {
+        log.error("User Service unavailable. Returning fallback for {} addresses", addressIds.size());
+        return addressIds.stream()
+                .map(this::getAddressById)
+                .collect(Collectors.toList());
+    }
+
     @Override
     public Boolean validateUserAddress(Long userId, Long addressId) {
         log.error("User Service unavailable. Cannot validate address {} for user {}", addressId, userId);
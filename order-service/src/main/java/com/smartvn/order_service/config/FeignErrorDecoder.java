@@ -1,5 +1,6 @@
 package com.smartvn.order_service.config;
 
+import com.smartvn.order_service.exceptions.AppException;
 import feign.Response;
 import feign.codec.ErrorDecoder;
 import lombok.extern.slf4j.Slf4j;
@@ -8,7 +9,9 @@ import org.springframework.stereotype.Component;
 
 /**
  * Custom Error Decoder cho Feign Client
- * Xử lý các lỗi từ các service khác
+ * Xử lý các lỗi từ các service khác.
+ * 400 / 404 / 409 trả về AppException giữ nguyên status để nơi gọi (vd. OutboxRelay) phân biệt lỗi nghiệp vụ
+ * (không nên retry) với lỗi tạm thời.
  */
 @Component
 @Slf4j
@@ -25,9 +28,11 @@ public class FeignErrorDecoder implements ErrorDecoder {
 
         switch (status) {
             case NOT_FOUND:
-                return new RuntimeException("Resource not found: " + methodKey);
+                return new AppException("Resource not found: " + methodKey, status);
             case BAD_REQUEST:
-                return new RuntimeException("Bad request: " + methodKey);
+                return new AppException("Bad request: " + methodKey, status);
+            case CONFLICT:
+                return new AppException("Conflict: " + methodKey, status);
             case UNAUTHORIZED:
             case FORBIDDEN:
                 return new RuntimeException("Authentication/Authorization failed: " + methodKey);
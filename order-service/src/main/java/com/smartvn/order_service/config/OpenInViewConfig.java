@@ -0,0 +1,39 @@
+package com.smartvn.order_service.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Open-in-view cho mọi endpoint trừ đặt hàng.
+ * placeOrder gọi product-service (Feign) trước khi mở transaction; nếu EntityManager mở suốt request thì
+ * connection lấy lúc đọc giỏ hàng bị giữ luôn trong lúc chờ Feign → pool cạn khi product-service chậm.
+ * Các endpoint khác vẫn map entity (orderItems, cartItems lazy) sang DTO ở controller nên giữ open-in-view.
+ * Chỉ bật khi spring.jpa.open-in-view=false (mặc định đặt ở OrderServiceApplication), để không chạy chồng
+ * với interceptor của Spring Boot.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.jpa.open-in-view", havingValue = "false")
+public class OpenInViewConfig implements WebMvcConfigurer {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Value("${api.prefix}")
+    private String apiPrefix;
+
+    public OpenInViewConfig(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        OpenEntityManagerInViewInterceptor interceptor = new OpenEntityManagerInViewInterceptor();
+        interceptor.setEntityManagerFactory(entityManagerFactory);
+        registry.addWebRequestInterceptor(interceptor)
+                .excludePathPatterns(apiPrefix + "/orders/create");
+    }
+}
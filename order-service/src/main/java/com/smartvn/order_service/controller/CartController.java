@@ -2,11 +2,9 @@ package com.smartvn.order_service.controller;
 
 
 
-import com.smartvn.order_service.client.ProductServiceClient;
 import com.smartvn.order_service.dto.cart.AddItemRequest;
 import com.smartvn.order_service.dto.cart.CartDTO;
 import com.smartvn.order_service.dto.cart.CartItemDTO;
-import com.smartvn.order_service.dto.product.ProductDTO;
 import com.smartvn.order_service.dto.response.ApiResponse;
 
 import com.smartvn.order_service.exceptions.AppException;
@@ -30,23 +28,14 @@ import java.util.Map;
 public class CartController {
     private final CartService cartService;
     private final UserService userService;
-    private final ProductServiceClient productServiceClient;
 
     @GetMapping("/me")
     public ResponseEntity<?> getMyCart(@RequestHeader("Authorization") String jwt) {
         try {
             Long userId = userService.getUserIdFromJwt(jwt);
-            Cart cart = cartService.getCart(userId);
+            // ✅ Tên / ảnh sản phẩm lấy từ snapshot trên dòng giỏ, chỉ gọi product-service khi snapshot đã cũ
+            Cart cart = cartService.getCartView(userId);
             CartDTO cartDTO =new CartDTO(cart);
-
-            for(CartItemDTO ciDTO: cartDTO.getCartItems()) {
-                try {
-                    ProductDTO productDTO = productServiceClient.getProductById(ciDTO.getProductId());
-                    ciDTO.enrichWithProductInfo(productDTO);
-                }  catch (AppException e) {
-                    log.error("Lỗi khi lấy thông tin sản phẩm {}: {}", ciDTO.getProductId(), e.getMessage());
-                }
-            }
             return new ResponseEntity<>(cartDTO, HttpStatus.OK);
         } catch (Exception e) {
             return ResponseEntity
@@ -76,13 +65,6 @@ public class CartController {
             CartItem savedItem = cartService.addCartItem(userId, req);
             CartItemDTO cartItemDTO = new CartItemDTO(savedItem);
 
-            try {
-                ProductDTO product = productServiceClient.getProductById(cartItemDTO.getProductId());
-                cartItemDTO.enrichWithProductInfo(product);
-            } catch (Exception e) {
-                log.error("Lỗi khi lấy thông tin sản phẩm {}: {}", cartItemDTO.getProductId(), e.getMessage());
-            }
-
             return ResponseEntity.ok(Map.of(
                     "message", "Item added successfully",
                     "cart", cartItemDTO
@@ -1,14 +1,13 @@
 package com.smartvn.order_service.controller;
 
 
-import com.smartvn.order_service.client.ProductServiceClient;
-import com.smartvn.order_service.client.UserServiceClient;
 import com.smartvn.order_service.dto.admin.OrderAdminViewDTO;
 import com.smartvn.order_service.dto.admin.OrderItemAdminDTO;
 import com.smartvn.order_service.dto.admin.OrderStatsDTO;
 import com.smartvn.order_service.dto.admin.RevenueChartDTO;
 import com.smartvn.order_service.dto.product.ProductDTO;
 import com.smartvn.order_service.dto.response.ApiResponse;
+import com.smartvn.order_service.dto.response.CursorPage;
 import com.smartvn.order_service.dto.user.AddressDTO;
 import com.smartvn.order_service.dto.user.UserDTO;
 import com.smartvn.order_service.enums.OrderStatus;
@@ -16,9 +15,9 @@ import com.smartvn.order_service.exceptions.AppException;
 import com.smartvn.order_service.model.Order;
 import com.smartvn.order_service.model.OrderItem;
 import com.smartvn.order_service.repository.OrderRepository;
+import com.smartvn.order_service.service.OrderAdminEnrichmentService;
+import com.smartvn.order_service.service.OrderAdminEnrichmentService.EnrichmentData;
 import com.smartvn.order_service.service.OrderService;
-import feign.FeignException;
-import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -31,6 +30,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -40,8 +41,7 @@ import java.util.stream.Collectors;
 public class InternalOrderController {
     private final OrderRepository  orderRepository;
     private final OrderService  orderService;
-    private final UserServiceClient userServiceClient;
-    private final ProductServiceClient  productServiceClient;
+    private final OrderAdminEnrichmentService enrichmentService;
 
     @GetMapping("/users/{userId}/products/{productId}/purchased")
     public ResponseEntity<Boolean> hasUserPurchasedProduct(@PathVariable Long userId, @PathVariable Long productId) {
@@ -69,12 +69,45 @@ public class InternalOrderController {
         Page<Order> orders = orderService.searchOrdersForAdmin(
                 search, status, paymentStatus, startDate, endDate, pageable);
 
-        Page<OrderAdminViewDTO> dtos = orders.map(this::convertToAdminDTO);
+        // ✅ Fetch user / address / product của cả trang bằng batch call song song
+        EnrichmentData enrichment = enrichmentService.fetch(orders.getContent());
+        Page<OrderAdminViewDTO> dtos = orders.map(order -> convertToAdminDTO(order, enrichment));
+
+        return ResponseEntity.ok(ApiResponse.success(dtos, "Orders retrieved", null));
+    }
+
+    /**
+     * Như /admin/all nhưng phân trang bằng cursor (mới nhất trước), không đếm tổng số đơn.
+     * Gửi lại nextCursor của trang trước để lấy trang kế tiếp.
+     */
+    @GetMapping("/admin/all/cursor")
+    public ResponseEntity<ApiResponse<CursorPage<OrderAdminViewDTO>>> getAllOrdersAdminByCursor(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size,
+            @RequestParam(value = "search", required = false) String search,
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "paymentStatus", required = false) String paymentStatus,
+            @RequestParam(value = "startDate", required = false) LocalDate startDate,
+            @RequestParam(value = "endDate", required = false) LocalDate endDate) {
+
+        if (size < 1 || size > 100) {
+            throw new AppException("Invalid pagination params", HttpStatus.BAD_REQUEST);
+        }
+
+        CursorPage<Order> orders = orderService.searchOrdersForAdminByCursor(
+                search, status, paymentStatus, startDate, endDate, cursor, size);
+
+        EnrichmentData enrichment = enrichmentService.fetch(orders.getContent());
+        CursorPage<OrderAdminViewDTO> dtos = orders.map(order -> convertToAdminDTO(order, enrichment));
 
         return ResponseEntity.ok(ApiResponse.success(dtos, "Orders retrieved", null));
     }
 
     private OrderAdminViewDTO convertToAdminDTO(Order order) {
+        return convertToAdminDTO(order, enrichmentService.fetch(List.of(order)));
+    }
+
+    private OrderAdminViewDTO convertToAdminDTO(Order order, EnrichmentData enrichment) {
         OrderAdminViewDTO dto = new OrderAdminViewDTO();
         dto.setId(order.getId());
         dto.setUserId(order.getUserId());
@@ -90,23 +123,25 @@ public class InternalOrderController {
         dto.setDeliveryDate(order.getDeliveryDate());
         dto.setShippingAddressId(order.getShippingAddressId());
 
-        // ✅ FETCH user info (with circuit breaker fallback)
-        enrichWithUserInfo(dto, order.getUserId());
+        // ✅ User info (đã batch fetch)
+        UserDTO user = enrichment.users().get(order.getUserId());
+        dto.setUserName(user != null ? user.getFullName() : "Unknown User");
 
-        // ✅ FETCH address info (with fallback)
-        enrichWithAddressInfo(dto, order.getShippingAddressId());
+        // ✅ Address info (đã batch fetch)
+        AddressDTO address = enrichment.addresses().get(order.getShippingAddressId());
+        dto.setShippingAddressDetails(address != null ? address.getFullAddress() : "Address not available");
 
-        // ✅ MAP order items (batch enrich sau)
+        // ✅ MAP order items (product đã được batch fetch)
         if (order.getOrderItems() != null) {
             dto.setOrderItems(order.getOrderItems().stream()
-                    .map(this::convertToOrderItemAdminDTO)
+                    .map(item -> convertToOrderItemAdminDTO(item, enrichment.products()))
                     .collect(Collectors.toList()));
         }
 
         return dto;
     }
 
-    private OrderItemAdminDTO convertToOrderItemAdminDTO(OrderItem item) {
+    private OrderItemAdminDTO convertToOrderItemAdminDTO(OrderItem item, Map<Long, ProductDTO> products) {
         OrderItemAdminDTO dto = new OrderItemAdminDTO();
         dto.setId(item.getId());
         dto.setProductId(item.getProductId());
@@ -116,11 +151,9 @@ public class InternalOrderController {
         dto.setDiscountedPrice(item.getDiscountedPrice());
 
         // ✅ Lấy tên product
-        try {
-            ProductDTO product = productServiceClient.getProductById(item.getProductId());
+        ProductDTO product = products.get(item.getProductId());
+        if (product != null) {
             dto.setProductTitle(product.getTitle());
-        } catch (Exception e) {
-            log.warn("Failed to fetch product: {}", e.getMessage());
         }
 
         return dto;
@@ -170,40 +203,4 @@ public class InternalOrderController {
         RevenueChartDTO chart = orderService.calculateRevenueChart(startDate, endDate);
         return ResponseEntity.ok(ApiResponse.success(chart, "Revenue chart data", null));
     }
-
-
-    @CircuitBreaker(name = "userService", fallbackMethod = "userInfoFallback")
-    private void enrichWithUserInfo(OrderAdminViewDTO dto, Long userId) {
-        try {
-            ResponseEntity<UserDTO> response = userServiceClient.getUserById(userId);
-            UserDTO user = response.getBody();
-            dto.setUserName(user.getFirstName() + " " + user.getLastName());
-        } catch (FeignException e) {
-            log.warn("Failed to fetch user {}: {}", userId, e.getMessage());
-            dto.setUserEmail("Unknown");
-            dto.setUserName("Unknown User");
-        }
-    }
-
-    private void userInfoFallback(OrderAdminViewDTO dto, Long userId, Throwable t) {
-        log.error("User service unavailable for userId {}", userId);
-        dto.setUserEmail("Service Unavailable");
-        dto.setUserName("N/A");
-    }
-
-    @CircuitBreaker(name = "userService", fallbackMethod = "addressInfoFallback")
-    private void enrichWithAddressInfo(OrderAdminViewDTO dto, Long addressId) {
-        try {
-            AddressDTO address = userServiceClient.getAddressById(addressId);
-            dto.setShippingAddressDetails(address.getFullAddress());
-        } catch (FeignException e) {
-            log.warn("Failed to fetch address {}: {}", addressId, e.getMessage());
-            dto.setShippingAddressDetails("Address not available");
-        }
-    }
-
-    private void addressInfoFallback(OrderAdminViewDTO dto, Long addressId, Throwable t) {
-        log.error("User service unavailable for addressId {}", addressId);
-        dto.setShippingAddressDetails("N/A");
-    }
 }
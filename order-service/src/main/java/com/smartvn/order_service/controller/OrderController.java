@@ -11,6 +11,7 @@ import com.smartvn.order_service.enums.OrderStatus;
 import com.smartvn.order_service.exceptions.AppException;
 import com.smartvn.order_service.model.Order;
 import com.smartvn.order_service.dto.response.ApiResponse;
+import com.smartvn.order_service.service.IdempotencyService;
 import com.smartvn.order_service.service.OrderService;
 
 import com.smartvn.order_service.service.UserService;
@@ -37,6 +38,7 @@ import java.util.stream.Collectors;
 public class OrderController {
     private final OrderService orderService;
     private final UserService userService;
+    private final IdempotencyService idempotencyService;
     private final UserServiceClient  userServiceClient;
     private final ProductServiceClient  productServiceClient;
 
@@ -71,9 +73,7 @@ public class OrderController {
                     .map(OrderDTO::new)
                     .collect(Collectors.toList());
 
-            for (OrderDTO dto : orderDTOS) {
-                enrichOrderDTO(dto);
-            }
+            enrichOrderDTOs(orderDTOS);
 
             Map<String, Object> response = new HashMap<>();
             response.put("orders", orderDTOS);
@@ -93,53 +93,19 @@ public class OrderController {
         }
     }
 
+    /**
+     * Đặt hàng. Header Idempotency-Key (tùy chọn): client / gateway retry cùng key nhận lại đúng đơn đã tạo,
+     * không tạo đơn và giữ chỗ tồn kho lần nữa.
+     */
     @PostMapping("/create")
     public ResponseEntity<?> createOrder(
             @RequestHeader("Authorization") String jwt,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             @RequestBody CreateOrderRequest request) {
         try {
             Long userId=userService.getUserIdFromJwt(jwt);
-            userService.validateUser(userId);
-
-            if(request.getCartItemIds().isEmpty() || request.getCartItemIds()==null) {
-                return ResponseEntity.badRequest()
-                        .body(Map.of(
-                                "error", "Vui lòng chọn sản phẩm để đặt hàng",
-                                "code", "NO_ITEMS_SELECTED"
-                        ));
-            }
-
-            if(request.getAddressId() == null) {
-                return ResponseEntity.badRequest()
-                        .body(Map.of(
-                                "error", "Vui lòng chọn địa chỉ để đặt hàng",
-                                "code", "NO_ADDRESS_SELECTED"
-                        ));
-            }
-
-            Order order = orderService.placeOrder(
-                    userId,
-                    request.getAddressId(),
-                    request.getCartItemIds()
-            );
-
-            if(order==null) {
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                        .body(Map.of(
-                                "error", "Cannot create order. Cart might be empty.",
-                                "code", "EMPTY_CART"
-                        ));
-            }
-
-            OrderDTO orderDTO = new OrderDTO(order);
-
-            enrichOrderDTO(orderDTO);
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("order", orderDTO);
-            response.put("message", "Đặt hàng thành công!");
-
-            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+            return idempotencyService.execute(userId, idempotencyKey, "POST /orders/create", request,
+                    () -> placeOrder(userId, request));
         } catch (AppException e) {
             log.error("Error while creating order.", e.getMessage());
             return ResponseEntity.status(e.getStatus())
@@ -157,6 +123,50 @@ public class OrderController {
         }
     }
 
+    private ResponseEntity<?> placeOrder(Long userId, CreateOrderRequest request) {
+        userService.validateUser(userId);
+
+        if(request.getCartItemIds()==null || request.getCartItemIds().isEmpty()) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of(
+                            "error", "Vui lòng chọn sản phẩm để đặt hàng",
+                            "code", "NO_ITEMS_SELECTED"
+                    ));
+        }
+
+        if(request.getAddressId() == null) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of(
+                            "error", "Vui lòng chọn địa chỉ để đặt hàng",
+                            "code", "NO_ADDRESS_SELECTED"
+                    ));
+        }
+
+        Order order = orderService.placeOrder(
+                userId,
+                request.getAddressId(),
+                request.getCartItemIds()
+        );
+
+        if(order==null) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of(
+                            "error", "Cannot create order. Cart might be empty.",
+                            "code", "EMPTY_CART"
+                    ));
+        }
+
+        OrderDTO orderDTO = new OrderDTO(order);
+
+        enrichOrderDTO(orderDTO);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("order", orderDTO);
+        response.put("message", "Đặt hàng thành công!");
+
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<OrderDTO> findOrderById(@PathVariable("id") Long orderId) {
         Order order = orderService.findOrderById(orderId);
@@ -197,22 +207,46 @@ public class OrderController {
     }
 
     private void enrichOrderDTO(OrderDTO orderDTO) {
+        enrichOrderDTOs(List.of(orderDTO));
+    }
+
+    /**
+     * Enrich nhiều order: address từng order, product của tất cả order items chỉ 1 batch call.
+     */
+    private void enrichOrderDTOs(List<OrderDTO> orderDTOs) {
         // Lấy thông tin address
+        for (OrderDTO orderDTO : orderDTOs) {
+            try {
+                AddressDTO address = userServiceClient.getAddressById(orderDTO.getShippingAddressId());
+                orderDTO.setShippingAddress(address);
+            } catch (Exception e) {
+                log.warn("Failed to fetch address info: {}", e.getMessage());
+            }
+        }
+
+        // Lấy thông tin product cho tất cả OrderItem trong 1 request
+        List<Long> productIds = orderDTOs.stream()
+                .flatMap(orderDTO -> orderDTO.getOrderItems().stream())
+                .map(OrderItemDTO::getProductId)
+                .distinct()
+                .collect(Collectors.toList());
+        if (productIds.isEmpty()) {
+            return;
+        }
+
+        Map<Long, ProductDTO> products;
         try {
-            AddressDTO address = userServiceClient.getAddressById(orderDTO.getShippingAddressId());
-            orderDTO.setShippingAddress(address);
+            products = productServiceClient.getProductsByIds(productIds).stream()
+                    .collect(Collectors.toMap(ProductDTO::getId, p -> p, (a, b) -> a));
         } catch (Exception e) {
-            log.warn("Failed to fetch address info: {}", e.getMessage());
+            log.warn("Failed to fetch products {} info: {}", productIds, e.getMessage());
+            return;
         }
 
-        // Lấy thông tin product cho từng OrderItem
-        for (OrderItemDTO item : orderDTO.getOrderItems()) {
-            try {
-                ProductDTO product = productServiceClient.getProductById(item.getProductId());
-                item.enrichWithProductInfo(product);
-            } catch (Exception e) {
-                log.warn("Failed to fetch product {} info: {}", item.getProductId(), e.getMessage());
+        for (OrderDTO orderDTO : orderDTOs) {
+            for (OrderItemDTO item : orderDTO.getOrderItems()) {
+                item.enrichWithProductInfo(products.get(item.getProductId()));
             }
         }
     }
-}
\ No newline at end of file
+}
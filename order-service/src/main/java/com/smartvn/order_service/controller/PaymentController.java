@@ -1,7 +1,9 @@
 package com.smartvn.order_service.controller;
 
+import com.smartvn.order_service.exceptions.AppException;
 import com.smartvn.order_service.model.Order;
 import com.smartvn.order_service.model.PaymentDetail;
+import com.smartvn.order_service.service.IdempotencyService;
 import com.smartvn.order_service.service.OrderService;
 import com.smartvn.order_service.service.PaymentService;
 import com.smartvn.order_service.service.UserService;
@@ -24,42 +26,55 @@ public class PaymentController {
     private final PaymentService paymentService;
     private final OrderService orderService;
     private final UserService userService;
+    private final IdempotencyService idempotencyService;
 
     /**
-     * Tạo URL thanh toán VNPay cho đơn hàng
+     * Tạo URL thanh toán VNPay cho đơn hàng.
+     * Retry cùng Idempotency-Key nhận lại URL đã tạo (cùng vnp_TxnRef), không sinh thêm PaymentDetail.
      * @param jwt JWT token cho xác thực
+     * @param idempotencyKey Header Idempotency-Key (tùy chọn)
      * @param orderId ID của đơn hàng cần thanh toán
      * @return URL thanh toán
      */
     @PostMapping("/create/{orderId}")
     public ResponseEntity<?> createPayment(
             @RequestHeader("Authorization") String jwt,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             @PathVariable Long orderId) {
         try {
             // Kiểm tra người dùng và quyền
             Long userId = userService.getUserIdFromJwt(jwt);
-            Order order = orderService.findOrderById(orderId);
-
-            if(!order.getUserId().equals(userId)){
-                return ResponseEntity.status(HttpStatus.FORBIDDEN)
-                        .body(Map.of("error", "Bạn không có quyền truy cập đơn hàng này"));
-            }
-
-            String paymentUrl = paymentService.createPayment(orderId);
-
-            return ResponseEntity.ok(Map.of(
-                    "success", true,
-                    "message", "Tạo URL thanh toán thành công",
-                    "paymentUrl", paymentUrl
-            ));
+            return idempotencyService.execute(userId, idempotencyKey, "POST /payment/create", orderId,
+                    () -> createPaymentUrl(userId, orderId));
         } catch (Exception e) {
             log.error("Error creating payment: ", e);
+            HttpStatus status = e instanceof AppException appException
+                    && appException.getStatus().is4xxClientError()
+                    ? appException.getStatus()
+                    : HttpStatus.INTERNAL_SERVER_ERROR;
             return ResponseEntity
-                    .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .status(status)
                     .body(Map.of("error", e.getMessage()));
         }
     }
 
+    private ResponseEntity<?> createPaymentUrl(Long userId, Long orderId) {
+        Order order = orderService.findOrderById(orderId);
+
+        if(!order.getUserId().equals(userId)){
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", "Bạn không có quyền truy cập đơn hàng này"));
+        }
+
+        String paymentUrl = paymentService.createPayment(orderId);
+
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "message", "Tạo URL thanh toán thành công",
+                "paymentUrl", paymentUrl
+        ));
+    }
+
     /**
      * Xử lý kết quả thanh toán từ VNPay - hỗ trợ cả GET và POST
      * @param params Các tham số nhận được từ VNPay
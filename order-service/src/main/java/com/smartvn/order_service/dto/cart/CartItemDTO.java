@@ -25,8 +25,7 @@ public class CartItemDTO {
 
     /**
      * Constructor từ CartItem entity
-     * KHÔNG gọi ProductService trong constructor
-     * Sẽ được enrich sau bởi service layer
+     * KHÔNG gọi ProductService trong constructor, tên / ảnh lấy từ snapshot trên CartItem
      */
     public CartItemDTO(CartItem cartItem) {
         this.id = cartItem.getId();
@@ -37,9 +36,9 @@ public class CartItemDTO {
         this.discountedPrice = cartItem.getDiscountedPrice();
         this.discountPercent = cartItem.getDiscountPercent();
 
-        // productName và imageUrl sẽ được set sau
-        this.productName = null;
-        this.imageUrl = null;
+        // Snapshot lưu trên dòng giỏ hàng
+        this.productName = cartItem.getProductTitle();
+        this.imageUrl = cartItem.getImageUrl();
     }
 
     /**
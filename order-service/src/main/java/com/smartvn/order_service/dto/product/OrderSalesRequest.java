@@ -0,0 +1,18 @@
+package com.smartvn.order_service.dto.product;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Doanh số của 1 đơn đã giao, product-service chỉ cộng 1 lần cho mỗi orderId
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSalesRequest {
+    private Long orderId;
+    private List<InventoryCheckRequest> items;
+}
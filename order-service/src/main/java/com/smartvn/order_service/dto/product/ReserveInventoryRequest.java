@@ -0,0 +1,23 @@
+package com.smartvn.order_service.dto.product;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request giữ chỗ tồn kho cho toàn bộ item của 1 đơn hàng
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReserveInventoryRequest {
+    private Long orderId;
+    private List<InventoryCheckRequest> items;
+
+    /**
+     * Đơn chờ admin xác nhận → product-service giữ chỗ không hết hạn tới khi commit / release
+     */
+    private Boolean awaitingConfirmation;
+}
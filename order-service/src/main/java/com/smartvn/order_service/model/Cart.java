@@ -46,6 +46,14 @@ public class Cart {
     @Column(name = "discount", nullable = false)
     private Integer discount = 0;
 
+    /**
+     * Optimistic lock: tổng tiền được cộng / trừ dồn theo từng dòng, 2 request cùng sửa 1 giỏ thì request sau
+     * bị từ chối thay vì ghi đè tổng của request trước.
+     */
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private long version;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -53,6 +53,16 @@ public class CartItem {
     @Column(name = "product_id", nullable = false)
     private Long productId;
 
+    // Snapshot tên / ảnh sản phẩm để xem giỏ không phải gọi product-service (giá đã chốt lúc thêm vào giỏ)
+    @Column(name = "product_title")
+    private String productTitle;
+
+    @Column(name = "image_url", length = 500)
+    private String imageUrl;
+
+    @Column(name = "snapshot_at")
+    private LocalDateTime snapshotAt;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -0,0 +1,58 @@
+package com.smartvn.order_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Trạng thái checkout của 1 đơn hàng (saga). Các bước phía product-service không gọi đồng bộ
+ * mà được ghi thành OutboxEvent trong cùng transaction với đơn, OutboxRelay gửi đi và cập nhật saga.
+ */
+@Entity
+@Table(name = "checkout_sagas", indexes = {
+        @Index(name = "idx_saga_order", columnList = "order_id", unique = true),
+        @Index(name = "idx_saga_status", columnList = "status")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutSaga {
+
+    public enum Status {
+        ORDER_CREATED,    // Đã lưu đơn, đang chờ giữ chỗ tồn kho
+        STOCK_RESERVED,   // product-service đã giữ chỗ
+        PAYMENT_PENDING,  // Đã tạo giao dịch VNPay, chờ callback
+        CONFIRMED,        // Đã chốt tồn kho (thanh toán xong / xác nhận / giao)
+        CANCELLED,        // Đơn bị hủy, giữ chỗ đã được nhả
+        FAILED            // Không giữ chỗ được (đơn bị hủy tự động) hoặc không chốt được tồn kho (cần xử lý tay)
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private Status status = Status.ORDER_CREATED;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
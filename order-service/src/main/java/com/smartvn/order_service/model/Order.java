@@ -21,7 +21,8 @@ import java.util.List;
         indexes = {
                 @Index(name = "idx_user", columnList = "user_id"),
                 @Index(name = "idx_order_status", columnList = "order_status"),
-                @Index(name = "idx_payment_status", columnList = "payment_status")
+                @Index(name = "idx_payment_status", columnList = "payment_status"),
+                @Index(name = "idx_created_id", columnList = "created_at, id")
         }
 )
 @Getter
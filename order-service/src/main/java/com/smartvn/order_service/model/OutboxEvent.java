@@ -0,0 +1,76 @@
+package com.smartvn.order_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Side effect cần gửi sang product-service, ghi trong cùng transaction với thay đổi của đơn hàng
+ * (transactional outbox). OutboxRelay gửi lần lượt theo id cho từng đơn, retry với backoff tới khi thành công.
+ */
+@Entity
+@Table(name = "outbox_events", indexes = {
+        @Index(name = "idx_outbox_status_next", columnList = "status, next_attempt_at"),
+        @Index(name = "idx_outbox_aggregate", columnList = "aggregate_id, status")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+
+    public enum Type {
+        RESERVE_INVENTORY,  // payload: ReserveInventoryRequest
+        COMMIT_INVENTORY,
+        RELEASE_INVENTORY,
+        RECORD_SALES        // payload: OrderSalesRequest
+    }
+
+    public enum Status {
+        PENDING,
+        SENT,
+        FAILED  // Hết số lần retry hoặc bị product-service từ chối (4xx)
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * ID đơn hàng.
+     */
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 30)
+    private Type eventType;
+
+    @Column(columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.PENDING;
+
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+}
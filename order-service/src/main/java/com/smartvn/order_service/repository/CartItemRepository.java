@@ -1,5 +1,7 @@
 package com.smartvn.order_service.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -46,12 +48,39 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
    */
   List<CartItem> findByCartId(Long cartId);
 
+  /**
+   * Tìm cart items của nhiều cart trong 1 query
+   */
+  @Query("SELECT ci FROM CartItem ci WHERE ci.cart.id IN :cartIds")
+  List<CartItem> findByCartIdIn(@Param("cartIds") Collection<Long> cartIds);
+
   /**
    * Tìm tất cả cart items chứa một product
    */
   @Query("SELECT ci FROM CartItem ci WHERE ci.productId = :productId")
   List<CartItem> findByProductId(@Param("productId") Long productId);
 
+  /**
+   * Ghi snapshot tên / ảnh mới cho mọi dòng giỏ hàng của 1 sản phẩm (kể cả giỏ của user khác)
+   */
+  @Modifying
+  @Query("UPDATE CartItem ci SET ci.productTitle = :title, ci.imageUrl = :imageUrl, ci.snapshotAt = :snapshotAt " +
+      "WHERE ci.productId = :productId")
+  int updateProductSnapshot(
+      @Param("productId") Long productId,
+      @Param("title") String title,
+      @Param("imageUrl") String imageUrl,
+      @Param("snapshotAt") LocalDateTime snapshotAt);
+
+  /**
+   * Đánh dấu đã kiểm tra snapshot (sản phẩm không còn trả về từ product-service) để không gọi lại mỗi lần xem giỏ
+   */
+  @Modifying
+  @Query("UPDATE CartItem ci SET ci.snapshotAt = :snapshotAt WHERE ci.productId IN :productIds")
+  int touchSnapshots(
+      @Param("productIds") Collection<Long> productIds,
+      @Param("snapshotAt") LocalDateTime snapshotAt);
+
   /**
    * Xóa tất cả cart items của một cart
    */
@@ -6,6 +6,7 @@ import java.util.Optional;
 import com.smartvn.order_service.model.Cart;
 import com.smartvn.order_service.model.CartItem;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -29,5 +30,17 @@ public interface CartRepository extends JpaRepository<Cart, Long> {
    */
   boolean existsByUserId(Long userId);
 
+  /**
+   * Giỏ hàng kèm toàn bộ items trong 1 query (dùng để hiển thị giỏ)
+   */
+  @Query("SELECT DISTINCT c FROM Cart c LEFT JOIN FETCH c.cartItems WHERE c.userId = :userId")
+  Optional<Cart> findWithItemsByUserId(@Param("userId") Long userId);
+
+  /**
+   * ID giỏ hàng sau afterId theo thứ tự tăng dần (duyệt theo lô)
+   */
+  @Query("SELECT c.id FROM Cart c WHERE c.id > :afterId ORDER BY c.id")
+  List<Long> findIdsAfter(@Param("afterId") Long afterId, Limit limit);
+
 
 }
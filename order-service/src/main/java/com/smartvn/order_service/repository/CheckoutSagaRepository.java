@@ -0,0 +1,13 @@
+package com.smartvn.order_service.repository;
+
+import com.smartvn.order_service.model.CheckoutSaga;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface CheckoutSagaRepository extends JpaRepository<CheckoutSaga, Long> {
+
+    Optional<CheckoutSaga> findByOrderId(Long orderId);
+}
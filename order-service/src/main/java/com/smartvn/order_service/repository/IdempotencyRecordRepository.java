@@ -0,0 +1,33 @@
+package com.smartvn.order_service.repository;
+
+import com.smartvn.order_service.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    Optional<IdempotencyRecord> findByUserIdAndIdempotencyKey(Long userId, String idempotencyKey);
+
+    /**
+     * Xóa bản ghi đã hết hạn, hoặc IN_PROGRESS bị bỏ dở (instance chết giữa chừng) quá :staleBefore.
+     * Điều kiện nằm trong câu DELETE nên 2 request cùng chiếm lại key thì chỉ 1 request xóa được.
+     */
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.id = :id AND (r.expiresAt < :now OR " +
+            "(r.status = com.smartvn.order_service.model.IdempotencyRecord.Status.IN_PROGRESS " +
+            "AND r.createdAt < :staleBefore))")
+    int deleteIfReclaimable(@Param("id") Long id,
+                            @Param("now") LocalDateTime now,
+                            @Param("staleBefore") LocalDateTime staleBefore);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
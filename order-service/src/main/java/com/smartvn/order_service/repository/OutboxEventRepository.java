@@ -0,0 +1,33 @@
+package com.smartvn.order_service.repository;
+
+import com.smartvn.order_service.model.OutboxEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Event đến hạn gửi, mỗi đơn chỉ lấy event PENDING cũ nhất (giữ thứ tự reserve → commit/release).
+     * SELECT ... FOR UPDATE SKIP LOCKED: nhiều instance cùng poll không lấy trùng event.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM OutboxEvent e " +
+            "WHERE e.status = com.smartvn.order_service.model.OutboxEvent.Status.PENDING " +
+            "AND e.nextAttemptAt <= :now " +
+            "AND NOT EXISTS (SELECT 1 FROM OutboxEvent p WHERE p.aggregateId = e.aggregateId " +
+            "AND p.status = com.smartvn.order_service.model.OutboxEvent.Status.PENDING AND p.id < e.id) " +
+            "ORDER BY e.id")
+    List<OutboxEvent> findDueForUpdate(@Param("now") LocalDateTime now, Pageable pageable);
+}
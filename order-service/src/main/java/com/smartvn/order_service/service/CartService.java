@@ -16,23 +16,45 @@ import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.retry.annotation.Retry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class CartService {
+    /**
+     * Tổng của 1 giỏ tính lại từ các dòng.
+     */
+    private record CartTotals(int totalItems, int originalPrice, int totalDiscountedPrice) {
+    }
+
     private final CartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
     private final UserServiceClient  userServiceClient;
     private final ProductServiceClient productServiceClient;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${cart.snapshot.max-age-minutes:60}")
+    private long snapshotMaxAgeMinutes;
 
     @Transactional(readOnly = true)
     public Cart getCart(Long userId) {
@@ -43,6 +65,69 @@ public class CartService {
                 ));
     }
 
+    /**
+     * Giỏ hàng để hiển thị: cart + items trong 1 query, tên / ảnh sản phẩm lấy từ snapshot trên từng dòng.
+     * Chỉ khi có snapshot cũ hơn cart.snapshot.max-age-minutes mới gọi product-service (1 request cho các
+     * sản phẩm đó) và ghi snapshot mới cho mọi dòng của sản phẩm, nên lượt xem sau (của mọi user) lại chỉ đọc DB.
+     */
+    public Cart getCartView(Long userId) {
+        Cart cart = cartRepository.findWithItemsByUserId(userId)
+                .orElseThrow(() -> new AppException(
+                        "Cart not found for user: " + userId,
+                        HttpStatus.NOT_FOUND
+                ));
+
+        LocalDateTime staleBefore = LocalDateTime.now().minusMinutes(snapshotMaxAgeMinutes);
+        List<Long> staleProductIds = cart.getCartItems().stream()
+                .filter(item -> item.getSnapshotAt() == null || item.getSnapshotAt().isBefore(staleBefore))
+                .map(CartItem::getProductId)
+                .distinct()
+                .collect(Collectors.toList());
+        if (!staleProductIds.isEmpty()) {
+            refreshSnapshots(cart, staleProductIds);
+        }
+        return cart;
+    }
+
+    /**
+     * Lỗi product-service chỉ log: giỏ vẫn hiển thị với snapshot cũ, lượt xem sau thử lại.
+     */
+    private void refreshSnapshots(Cart cart, List<Long> productIds) {
+        Map<Long, ProductDTO> products;
+        try {
+            products = productServiceClient.getProductsByIds(productIds).stream()
+                    .collect(Collectors.toMap(ProductDTO::getId, Function.identity(), (a, b) -> a));
+        } catch (Exception e) {
+            log.error("Lỗi khi lấy thông tin sản phẩm {}: {}", productIds, e.getMessage());
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Set<Long> missing = new HashSet<>(productIds);
+        missing.removeAll(products.keySet());
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            products.values().forEach(p ->
+                    cartItemRepository.updateProductSnapshot(p.getId(), p.getTitle(), p.getFirstImageUrl(), now));
+            if (!missing.isEmpty()) {
+                cartItemRepository.touchSnapshots(missing, now);
+            }
+        });
+
+        // Cập nhật bản đang trả về cho request này
+        for (CartItem item : cart.getCartItems()) {
+            ProductDTO product = products.get(item.getProductId());
+            if (product != null) {
+                setSnapshot(item, product, now);
+            }
+        }
+    }
+
+    private void setSnapshot(CartItem item, ProductDTO product, LocalDateTime snapshotAt) {
+        item.setProductTitle(product.getTitle());
+        item.setImageUrl(product.getFirstImageUrl());
+        item.setSnapshotAt(snapshotAt);
+    }
+
     @Transactional
     public Cart createCart(Long userId) {
         validateUser(userId);
@@ -83,9 +168,10 @@ public class CartService {
                 .findByCartIdAndProductIdAndSize(cart.getId(), req.getProductId(), req.getSize());
 
         CartItem savedItem; // Biến để lưu CartItem sẽ được trả về
+        CartItem ci;
 
         if(existingItem.isPresent()) {
-            CartItem ci = existingItem.get();
+            ci = existingItem.get();
             int newTotalQuantity = ci.getQuantity() + req.getQuantity();
 
             InventoryCheckRequest recheckRequest = new InventoryCheckRequest(
@@ -103,20 +189,23 @@ public class CartService {
             }
 
             ci.setQuantity(newTotalQuantity);
+            setSnapshot(ci, dto, LocalDateTime.now()); // Vừa lấy ProductDTO, làm mới snapshot luôn
             savedItem = cartItemRepository.save(ci); // Gán item đã được cập nhật
         } else {
-            CartItem ci = new CartItem();
+            ci = new CartItem();
             ci.setCart(cart);
             ci.setProductId(req.getProductId());
             ci.setSize(req.getSize());
             ci.setQuantity(req.getQuantity());
             ci.setPrice(inventoryItem.getPrice());
             ci.setDiscountedPrice(inventoryItem.getDiscountedPrice());
+            setSnapshot(ci, dto, LocalDateTime.now());
             savedItem = cartItemRepository.save(ci); // Gán item mới được tạo
         }
 
-        reCalculateCart(cart); // Vẫn tính toán lại toàn bộ giỏ hàng
-        cartRepository.save(cart);
+        // ✅ Chỉ cộng phần thêm vào, không quét lại toàn bộ giỏ
+        applyLineDelta(cart, ci, req.getQuantity());
+        saveCart(cart);
 
         return savedItem; // ✅ SỬA: Trả về CartItem cụ thể
     }
@@ -133,9 +222,9 @@ public class CartService {
         }
 
         if (req.getQuantity() <= 0) {
+            applyLineDelta(cart, item, -item.getQuantity());
             cartItemRepository.delete(item);
-            reCalculateCart(cart);
-            return cartRepository.save(cart);
+            return saveCart(cart);
         }
 
         InventoryCheckRequest checkRequest = new InventoryCheckRequest(
@@ -148,13 +237,14 @@ public class CartService {
             throw new AppException("Insufficient stock", HttpStatus.BAD_REQUEST);
         }
 
+        int quantityDelta = req.getQuantity() - item.getQuantity();
         item.setQuantity(req.getQuantity());
         cartItemRepository.save(item);
-        reCalculateCart(cart);
-        return cartRepository.save(cart);
+        applyLineDelta(cart, item, quantityDelta);
+        return saveCart(cart);
     }
 
-
+    @Transactional
     public void removeCartItem(Long userId, Long itemId) {
         Cart cart = getOrCreateCart(userId);
 
@@ -165,9 +255,22 @@ public class CartService {
             throw new AppException("Unauthorized", HttpStatus.FORBIDDEN);
         }
 
+        applyLineDelta(cart, item, -item.getQuantity());
         cartItemRepository.delete(item);
-        reCalculateCart(cart);
-        cartRepository.save(cart);
+        saveCart(cart);
+    }
+
+    /**
+     * Bỏ các item đã đặt hàng khỏi giỏ và trừ dồn tổng (chạy trong transaction tạo đơn).
+     */
+    @Transactional
+    public void removeCheckedOutItems(Long userId, List<Long> cartItemIds) {
+        Cart cart = getCart(userId);
+        List<CartItem> items = cartItemRepository.findByIdsAndCartId(cartItemIds, cart.getId());
+
+        items.forEach(item -> applyLineDelta(cart, item, -item.getQuantity()));
+        cartItemRepository.deleteAll(items);
+        saveCart(cart);
     }
 
     @Transactional  // Thêm annotation này
@@ -182,9 +285,74 @@ public class CartService {
         cartRepository.save(cart);
     }
 
+    /**
+     * Tính lại toàn bộ tổng của giỏ từ các dòng (dùng để sửa tổng bị lệch; thao tác thường dùng applyLineDelta).
+     */
     public void reCalculateCart(Cart cart) {
-        List<CartItem> items = cartItemRepository.findByCartId(cart.getId());
+        setTotals(cart, computeTotals(cartItemRepository.findByCartId(cart.getId())));
+    }
+
+    /**
+     * ID các giỏ sau afterId (theo thứ tự id) - để job sửa tổng duyệt toàn bộ giỏ theo lô.
+     */
+    @Transactional(readOnly = true)
+    public List<Long> findCartIdsAfter(Long afterId, int limit) {
+        return cartRepository.findIdsAfter(afterId, Limit.of(limit));
+    }
+
+    /**
+     * Tính lại tổng cho 1 lô giỏ (2 query cho cả lô) và chỉ ghi giỏ bị lệch.
+     * Giỏ đang được user sửa cùng lúc → optimistic lock làm lô này thất bại, lần chạy sau sửa tiếp.
+     *
+     * @return Số giỏ đã được sửa.
+     */
+    @Transactional
+    public int repairTotals(Collection<Long> cartIds) {
+        Map<Long, List<CartItem>> itemsByCart = cartItemRepository.findByCartIdIn(cartIds).stream()
+                .collect(Collectors.groupingBy(item -> item.getCart().getId()));
+
+        int repaired = 0;
+        for (Cart cart : cartRepository.findAllById(cartIds)) {
+            CartTotals expected = computeTotals(itemsByCart.getOrDefault(cart.getId(), List.of()));
+            if (expected.totalItems() != cart.getTotalItems()
+                    || expected.originalPrice() != cart.getOriginalPrice()
+                    || expected.totalDiscountedPrice() != cart.getTotalDiscountedPrice()
+                    || expected.originalPrice() - expected.totalDiscountedPrice() != cart.getDiscount()) {
+                log.warn("⚠️ Cart {} totals drifted ({} items / {}), repairing to {} items / {}",
+                        cart.getId(), cart.getTotalItems(), cart.getTotalDiscountedPrice(),
+                        expected.totalItems(), expected.totalDiscountedPrice());
+                setTotals(cart, expected);
+                repaired++;
+            }
+        }
+        return repaired;
+    }
+
+    /**
+     * Cộng / trừ phần chênh của 1 dòng vào tổng của giỏ thay cho quét lại toàn bộ item.
+     * Làm tròn giống computeTotals (intValue từng dòng) nên tổng dồn luôn khớp với tính lại từ đầu.
+     *
+     * @param quantityDelta Số lượng thay đổi của dòng (âm khi giảm / xóa).
+     */
+    private void applyLineDelta(Cart cart, CartItem item, int quantityDelta) {
+        cart.setTotalItems(cart.getTotalItems() + quantityDelta);
+        cart.setOriginalPrice(cart.getOriginalPrice() + item.getPrice().intValue() * quantityDelta);
+        cart.setTotalDiscountedPrice(cart.getTotalDiscountedPrice() + effectivePrice(item).intValue() * quantityDelta);
+        cart.setDiscount(cart.getOriginalPrice() - cart.getTotalDiscountedPrice());
+    }
+
+    /**
+     * Flush ngay để xung đột version lộ ra trong method (thay vì lúc commit) và trả về 409 rõ ràng.
+     */
+    private Cart saveCart(Cart cart) {
+        try {
+            return cartRepository.saveAndFlush(cart);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw new AppException("Giỏ hàng vừa được cập nhật ở nơi khác, vui lòng thử lại", HttpStatus.CONFLICT);
+        }
+    }
 
+    private CartTotals computeTotals(List<CartItem> items) {
         // 1. Tổng số lượng items
         int totalItems = items.stream()
                 .mapToInt(CartItem::getQuantity)
@@ -197,23 +365,27 @@ public class CartService {
 
         // 3. Tổng giá SAU GIẢM
         int totalDiscountedPrice = items.stream()
-                .mapToInt(item -> {
-                    // Nếu có giá giảm thì dùng, không thì dùng giá gốc
-                    BigDecimal priceToUse = (item.getDiscountedPrice() != null && item.getDiscountedPrice().compareTo(BigDecimal.ZERO) > 0)
-                            ? item.getDiscountedPrice()
-                            : item.getPrice();
-                    return priceToUse.intValue() * item.getQuantity();
-                })
+                .mapToInt(item -> effectivePrice(item).intValue() * item.getQuantity())
                 .sum();
 
-        // 4. Tính discount = gốc - giảm
-        int discount = originalPrice - totalDiscountedPrice;
+        return new CartTotals(totalItems, originalPrice, totalDiscountedPrice);
+    }
+
+    private void setTotals(Cart cart, CartTotals totals) {
+        cart.setTotalItems(totals.totalItems());
+        cart.setOriginalPrice(totals.originalPrice());
+        cart.setTotalDiscountedPrice(totals.totalDiscountedPrice());
+        // discount = gốc - giảm
+        cart.setDiscount(totals.originalPrice() - totals.totalDiscountedPrice());
+    }
 
-        // 5. Set vào cart
-        cart.setTotalItems(totalItems);
-        cart.setOriginalPrice(originalPrice);
-        cart.setTotalDiscountedPrice(totalDiscountedPrice);
-        cart.setDiscount(discount);
+    /**
+     * Nếu có giá giảm thì dùng, không thì dùng giá gốc.
+     */
+    private BigDecimal effectivePrice(CartItem item) {
+        return (item.getDiscountedPrice() != null && item.getDiscountedPrice().compareTo(BigDecimal.ZERO) > 0)
+                ? item.getDiscountedPrice()
+                : item.getPrice();
     }
 
     @CircuitBreaker(name = "userService", fallbackMethod = "validateUserFallback")
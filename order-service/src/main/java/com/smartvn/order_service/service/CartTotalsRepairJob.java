@@ -0,0 +1,48 @@
+package com.smartvn.order_service.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Định kỳ đối soát tổng của giỏ hàng (được cộng / trừ dồn theo từng dòng) với tổng tính lại từ cart_items
+ * và sửa giỏ bị lệch. Duyệt toàn bộ giỏ theo lô, mỗi lô 1 transaction riêng.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CartTotalsRepairJob {
+
+    private final CartService cartService;
+
+    @Value("${cart.totals.repair-batch-size:500}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${cart.totals.repair-interval-ms:86400000}",
+            initialDelayString = "${cart.totals.repair-interval-ms:86400000}")
+    public void repairDriftedTotals() {
+        long afterId = 0;
+        int repaired = 0;
+        while (true) {
+            List<Long> cartIds = cartService.findCartIdsAfter(afterId, batchSize);
+            if (cartIds.isEmpty()) {
+                break;
+            }
+            try {
+                repaired += cartService.repairTotals(cartIds);
+            } catch (Exception e) {
+                // Thường là optimistic lock do user đang sửa giỏ - bỏ qua lô này, lần chạy sau sửa tiếp
+                log.warn("⚠️ Failed to repair cart totals for carts {}..{}: {}",
+                        cartIds.get(0), cartIds.get(cartIds.size() - 1), e.getMessage());
+            }
+            afterId = cartIds.get(cartIds.size() - 1);
+        }
+        if (repaired > 0) {
+            log.info("✅ Repaired totals of {} carts", repaired);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.smartvn.order_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartvn.order_service.dto.product.InventoryCheckRequest;
+import com.smartvn.order_service.dto.product.OrderSalesRequest;
+import com.smartvn.order_service.dto.product.ReserveInventoryRequest;
+import com.smartvn.order_service.exceptions.AppException;
+import com.smartvn.order_service.model.CheckoutSaga;
+import com.smartvn.order_service.model.Order;
+import com.smartvn.order_service.model.OutboxEvent;
+import com.smartvn.order_service.repository.CheckoutSagaRepository;
+import com.smartvn.order_service.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Điều phối saga checkout phía order-service.
+ * Mọi side effect sang product-service (giữ chỗ, chốt, nhả tồn kho, ghi doanh số) được ghi thành
+ * OutboxEvent trong cùng transaction với thay đổi của đơn → không mất và không gửi khi transaction rollback.
+ * Sau commit, OutboxRelay được đánh thức để gửi ngay; poll định kỳ lo phần retry.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CheckoutSagaService {
+
+    private final CheckoutSagaRepository sagaRepository;
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxRelay outboxRelay;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Bắt đầu saga cho đơn vừa lưu: ORDER_CREATED + yêu cầu giữ chỗ tồn kho.
+     */
+    @Transactional
+    public void start(Order order, List<InventoryCheckRequest> items) {
+        CheckoutSaga saga = new CheckoutSaga();
+        saga.setOrderId(order.getId());
+        saga.setStatus(CheckoutSaga.Status.ORDER_CREATED);
+        sagaRepository.save(saga);
+
+        // Đơn mới luôn PENDING chờ admin xác nhận (kể cả VNPay chưa thanh toán) → giữ chỗ không hết hạn
+        enqueue(order.getId(), OutboxEvent.Type.RESERVE_INVENTORY,
+                new ReserveInventoryRequest(order.getId(), items, true));
+    }
+
+    /**
+     * Đã tạo giao dịch VNPay cho đơn.
+     */
+    @Transactional
+    public void markPaymentPending(Long orderId) {
+        sagaRepository.findByOrderId(orderId)
+                .filter(saga -> EnumSet.of(CheckoutSaga.Status.ORDER_CREATED, CheckoutSaga.Status.STOCK_RESERVED)
+                        .contains(saga.getStatus()))
+                .ifPresent(saga -> saga.setStatus(CheckoutSaga.Status.PAYMENT_PENDING));
+    }
+
+    /**
+     * Chốt giữ chỗ (đã thanh toán / xác nhận / giao). Product-service commit idempotent nên đơn cũ
+     * (chưa có saga) cũng đi qua outbox.
+     */
+    @Transactional
+    public void requestCommit(Long orderId) {
+        enqueue(orderId, OutboxEvent.Type.COMMIT_INVENTORY, null);
+    }
+
+    /**
+     * Nhả giữ chỗ khi hủy đơn.
+     *
+     * @return false nếu đơn được tạo trước khi có saga - nơi gọi tự hoàn kho theo cách cũ.
+     */
+    @Transactional
+    public boolean requestRelease(Long orderId) {
+        if (sagaRepository.findByOrderId(orderId).isEmpty()) {
+            return false;
+        }
+        enqueue(orderId, OutboxEvent.Type.RELEASE_INVENTORY, null);
+        return true;
+    }
+
+    /**
+     * Ghi doanh số (quantity_sold) cho đơn đã giao.
+     */
+    @Transactional
+    public void requestRecordSales(Order order) {
+        List<InventoryCheckRequest> items = order.getOrderItems().stream()
+                .map(item -> new InventoryCheckRequest(item.getProductId(), item.getSize(), item.getQuantity()))
+                .collect(Collectors.toList());
+        enqueue(order.getId(), OutboxEvent.Type.RECORD_SALES, new OrderSalesRequest(order.getId(), items));
+    }
+
+    private void enqueue(Long orderId, OutboxEvent.Type type, Object payload) {
+        OutboxEvent event = new OutboxEvent();
+        event.setAggregateId(orderId);
+        event.setEventType(type);
+        event.setPayload(toJson(payload));
+        event.setStatus(OutboxEvent.Status.PENDING);
+        event.setAttempts(0);
+        event.setNextAttemptAt(LocalDateTime.now());
+        outboxEventRepository.save(event);
+
+        kickRelayAfterCommit();
+    }
+
+    private void kickRelayAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    outboxRelay.kick();
+                }
+            });
+        } else {
+            outboxRelay.kick();
+        }
+    }
+
+    private String toJson(Object payload) {
+        if (payload == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new AppException("Cannot serialize outbox payload: " + e.getOriginalMessage(),
+                    HttpStatus.INTERNAL_SERVER_ERROR, e);
+        }
+    }
+}
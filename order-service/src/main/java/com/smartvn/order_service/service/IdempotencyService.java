@@ -0,0 +1,248 @@
+package com.smartvn.order_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.smartvn.order_service.exceptions.AppException;
+import com.smartvn.order_service.model.IdempotencyRecord;
+import com.smartvn.order_service.repository.IdempotencyRecordRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.function.Supplier;
+
+/**
+ * Chống xử lý trùng cho các request tạo mới (đặt hàng, tạo thanh toán) theo header Idempotency-Key.
+ * Lần đầu: ghi key (IN_PROGRESS) rồi mới chạy request; response 2xx được lưu lại trong TTL.
+ * Client / gateway gửi lại cùng key → nhận lại response đã lưu, không chạy lại logic và các Feign call.
+ * Response đã hoàn tất được giữ thêm trong cache in-memory có giới hạn để replay không cần query DB.
+ * Request lỗi (exception hoặc không phải 2xx) thì nhả key để client thử lại với cùng key.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 100;
+    private static final int MAX_CLAIM_ATTEMPTS = 2;
+
+    private final IdempotencyRecordRepository recordRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+    private final Duration inProgressTimeout;
+    private final Cache<String, StoredResponse> completedCache;
+
+    private record StoredResponse(String requestHash, int status, String body) {
+    }
+
+    /**
+     * Kết quả chiếm key: recordId != null → request này được xử lý; ngược lại replay response đã lưu.
+     */
+    private record Claim(Long recordId, StoredResponse replay) {
+    }
+
+    public IdempotencyService(IdempotencyRecordRepository recordRepository,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${idempotency.in-progress-timeout-seconds:120}") long inProgressTimeoutSeconds,
+                              @Value("${idempotency.cache.max-size:10000}") long cacheMaxSize) {
+        this.recordRepository = recordRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttl = Duration.ofHours(ttlHours);
+        this.inProgressTimeout = Duration.ofSeconds(inProgressTimeoutSeconds);
+        this.completedCache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(cacheMaxSize)
+                .build();
+    }
+
+    /**
+     * @param userId   Chủ sở hữu key (key của các user khác nhau không đụng nhau).
+     * @param key      Giá trị header Idempotency-Key; null / rỗng → chạy bình thường, không chống trùng.
+     * @param endpoint Tên endpoint, cùng key dùng cho endpoint khác bị coi là request khác.
+     * @param request  Nội dung request (serialize JSON để so khớp).
+     * @param action   Xử lý thật của request.
+     */
+    public ResponseEntity<?> execute(Long userId, String key, String endpoint, Object request,
+                                     Supplier<ResponseEntity<?>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        String idempotencyKey = key.trim();
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new AppException(HEADER + " must not exceed " + MAX_KEY_LENGTH + " characters",
+                    HttpStatus.BAD_REQUEST);
+        }
+
+        String requestHash = hash(endpoint, request);
+        String cacheKey = userId + ":" + idempotencyKey;
+
+        StoredResponse cached = completedCache.getIfPresent(cacheKey);
+        if (cached != null) {
+            return replay(cached, requestHash, idempotencyKey);
+        }
+
+        Claim claim = claim(userId, idempotencyKey, requestHash);
+        if (claim.replay() != null) {
+            completedCache.put(cacheKey, claim.replay());
+            return replay(claim.replay(), requestHash, idempotencyKey);
+        }
+
+        ResponseEntity<?> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            release(claim.recordId());
+            throw e;
+        }
+
+        if (response.getStatusCode().is2xxSuccessful()) {
+            complete(claim.recordId(), cacheKey, requestHash, response);
+        } else {
+            release(claim.recordId());
+        }
+        return response;
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval-ms:3600000}",
+            initialDelayString = "${idempotency.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        try {
+            Integer deleted = transactionTemplate.execute(status ->
+                    recordRepository.deleteExpired(LocalDateTime.now()));
+            if (deleted != null && deleted > 0) {
+                log.info("✅ Purged {} expired idempotency keys", deleted);
+            }
+        } catch (Exception e) {
+            log.warn("⚠️ Failed to purge expired idempotency keys: {}", e.getMessage());
+        }
+    }
+
+    private Claim claim(Long userId, String key, String requestHash) {
+        for (int attempt = 0; attempt < MAX_CLAIM_ATTEMPTS; attempt++) {
+            try {
+                return new Claim(insertInProgress(userId, key, requestHash), null);
+            } catch (DataIntegrityViolationException e) {
+                // Key đã tồn tại (unique user_id + idempotency_key)
+            }
+
+            IdempotencyRecord existing = recordRepository.findByUserIdAndIdempotencyKey(userId, key).orElse(null);
+            if (existing == null || reclaim(existing)) {
+                continue;
+            }
+            if (!existing.getRequestHash().equals(requestHash)) {
+                throw mismatch(key);
+            }
+            if (existing.getStatus() == IdempotencyRecord.Status.COMPLETED) {
+                return new Claim(null, new StoredResponse(
+                        existing.getRequestHash(), existing.getResponseStatus(), existing.getResponseBody()));
+            }
+            throw new AppException("A request with this " + HEADER + " is still being processed",
+                    HttpStatus.CONFLICT);
+        }
+        throw new AppException("Could not acquire " + HEADER + ", please retry", HttpStatus.CONFLICT);
+    }
+
+    private Long insertInProgress(Long userId, String key, String requestHash) {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            IdempotencyRecord record = new IdempotencyRecord();
+            record.setUserId(userId);
+            record.setIdempotencyKey(key);
+            record.setRequestHash(requestHash);
+            record.setStatus(IdempotencyRecord.Status.IN_PROGRESS);
+            record.setCreatedAt(now);
+            record.setExpiresAt(now.plus(ttl));
+            return recordRepository.saveAndFlush(record).getId();
+        });
+    }
+
+    /**
+     * Key hết hạn hoặc IN_PROGRESS quá lâu (instance xử lý đã chết) → xóa để chiếm lại.
+     */
+    private boolean reclaim(IdempotencyRecord existing) {
+        LocalDateTime now = LocalDateTime.now();
+        Integer deleted = transactionTemplate.execute(status -> recordRepository.deleteIfReclaimable(
+                existing.getId(), now, now.minus(inProgressTimeout)));
+        return deleted != null && deleted > 0;
+    }
+
+    private void complete(Long recordId, String cacheKey, String requestHash, ResponseEntity<?> response) {
+        String body;
+        try {
+            body = response.getBody() != null ? objectMapper.writeValueAsString(response.getBody()) : null;
+        } catch (JsonProcessingException e) {
+            log.warn("⚠️ Cannot store response for idempotency record {}: {}", recordId, e.getOriginalMessage());
+            release(recordId);
+            return;
+        }
+
+        int status = response.getStatusCode().value();
+        transactionTemplate.executeWithoutResult(tx -> recordRepository.findById(recordId).ifPresent(record -> {
+            record.setStatus(IdempotencyRecord.Status.COMPLETED);
+            record.setResponseStatus(status);
+            record.setResponseBody(body);
+        }));
+        completedCache.put(cacheKey, new StoredResponse(requestHash, status, body));
+    }
+
+    private void release(Long recordId) {
+        try {
+            transactionTemplate.executeWithoutResult(tx -> recordRepository.deleteById(recordId));
+        } catch (Exception e) {
+            // Key còn IN_PROGRESS sẽ được chiếm lại sau in-progress-timeout
+            log.warn("⚠️ Failed to release idempotency record {}: {}", recordId, e.getMessage());
+        }
+    }
+
+    private ResponseEntity<?> replay(StoredResponse stored, String requestHash, String key) {
+        if (!stored.requestHash().equals(requestHash)) {
+            throw mismatch(key);
+        }
+        log.info("Replaying stored response for {} {}", HEADER, key);
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(stored.status())
+                .header(REPLAYED_HEADER, "true");
+        if (stored.body() == null) {
+            return builder.build();
+        }
+        return builder.contentType(MediaType.APPLICATION_JSON).body(stored.body());
+    }
+
+    private AppException mismatch(String key) {
+        return new AppException(HEADER + " " + key + " was already used for a different request",
+                HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
+    private String hash(String endpoint, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(endpoint.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            digest.update(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new AppException("Cannot fingerprint request: " + e.getMessage(),
+                    HttpStatus.INTERNAL_SERVER_ERROR, e);
+        }
+    }
+}
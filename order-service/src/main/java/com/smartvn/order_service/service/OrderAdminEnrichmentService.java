@@ -0,0 +1,105 @@
+package com.smartvn.order_service.service;
+
+import com.smartvn.order_service.client.ProductServiceClient;
+import com.smartvn.order_service.client.UserServiceClient;
+import com.smartvn.order_service.dto.product.ProductDTO;
+import com.smartvn.order_service.dto.user.AddressDTO;
+import com.smartvn.order_service.dto.user.UserDTO;
+import com.smartvn.order_service.model.Order;
+import com.smartvn.order_service.model.OrderItem;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Enrich danh sách đơn hàng cho admin.
+ * Gom ID user / address / product (không trùng) của cả trang, gọi 3 batch API song song
+ * trên virtual threads, rồi ghép kết quả trong bộ nhớ → số remote call cố định cho mỗi trang.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderAdminEnrichmentService {
+
+    private final UserServiceClient userServiceClient;
+    private final ProductServiceClient productServiceClient;
+
+    private final ExecutorService enrichmentExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Dữ liệu đã fetch cho 1 trang đơn hàng, tra cứu theo ID.
+     */
+    public record EnrichmentData(Map<Long, UserDTO> users,
+                                 Map<Long, AddressDTO> addresses,
+                                 Map<Long, ProductDTO> products) {
+    }
+
+    public EnrichmentData fetch(List<Order> orders) {
+        // Gom ID trên thread của request (order items có thể lazy load)
+        List<Long> userIds = distinctIds(orders.stream().map(Order::getUserId).collect(Collectors.toList()));
+        List<Long> addressIds = distinctIds(orders.stream().map(Order::getShippingAddressId).collect(Collectors.toList()));
+        List<Long> productIds = distinctIds(orders.stream()
+                .filter(order -> order.getOrderItems() != null)
+                .flatMap(order -> order.getOrderItems().stream())
+                .map(OrderItem::getProductId)
+                .collect(Collectors.toList()));
+
+        // ✅ PARALLEL FETCH - 3 batch call cùng lúc
+        CompletableFuture<Map<Long, UserDTO>> usersFuture = CompletableFuture.supplyAsync(
+                () -> fetchByIds(userIds, userServiceClient::getUsersByIds, UserDTO::getId, "users"),
+                enrichmentExecutor);
+        CompletableFuture<Map<Long, AddressDTO>> addressesFuture = CompletableFuture.supplyAsync(
+                () -> fetchByIds(addressIds, userServiceClient::getAddressesByIds, AddressDTO::getId, "addresses"),
+                enrichmentExecutor);
+        CompletableFuture<Map<Long, ProductDTO>> productsFuture = CompletableFuture.supplyAsync(
+                () -> fetchByIds(productIds, productServiceClient::getProductsByIds, ProductDTO::getId, "products"),
+                enrichmentExecutor);
+
+        CompletableFuture.allOf(usersFuture, addressesFuture, productsFuture).join();
+        return new EnrichmentData(usersFuture.join(), addressesFuture.join(), productsFuture.join());
+    }
+
+    private <T> Map<Long, T> fetchByIds(List<Long> ids,
+                                        Function<List<Long>, List<T>> batchCall,
+                                        Function<T, Long> idGetter,
+                                        String label) {
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        try {
+            List<T> results = batchCall.apply(ids);
+            if (results == null) {
+                return Collections.emptyMap();
+            }
+            return results.stream()
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toMap(idGetter, item -> item, (a, b) -> a));
+        } catch (Exception e) {
+            log.warn("Failed to fetch {} {}: {}", label, ids, e.getMessage());
+            return Collections.emptyMap();
+        }
+    }
+
+    private List<Long> distinctIds(List<Long> ids) {
+        return ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        enrichmentExecutor.shutdown();
+    }
+}
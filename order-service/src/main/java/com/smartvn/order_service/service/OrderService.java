@@ -6,6 +6,7 @@ import com.smartvn.order_service.dto.admin.OrderStatsDTO;
 import com.smartvn.order_service.dto.admin.RevenueChartDTO;
 import com.smartvn.order_service.dto.product.InventoryCheckRequest;
 import com.smartvn.order_service.dto.product.ProductDTO;
+import com.smartvn.order_service.dto.response.CursorPage;
 import com.smartvn.order_service.dto.user.UserDTO;
 import com.smartvn.order_service.enums.OrderStatus;
 import com.smartvn.order_service.enums.PaymentMethod;
@@ -18,6 +19,8 @@ import com.smartvn.order_service.model.OrderItem;
 import com.smartvn.order_service.repository.CartItemRepository;
 import com.smartvn.order_service.repository.CartRepository;
 import com.smartvn.order_service.repository.OrderRepository;
+import com.smartvn.order_service.util.CursorCodec;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -26,14 +29,23 @@ import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import static java.lang.Long.parseLong;
@@ -42,25 +54,31 @@ import static java.lang.Long.parseLong;
 @Slf4j
 @RequiredArgsConstructor
 public class OrderService {
+    private static final String ORDER_CURSOR_SORT = "createdAt,desc";
+
     private final UserServiceClient userServiceClient;
     private final ProductServiceClient productServiceClient;
     private final OrderRepository orderRepository;
     private final CartRepository  cartRepository;
     private final CartItemRepository cartItemRepository;
     private final CartService cartService;
+    private final CheckoutSagaService checkoutSagaService;
+    private final PlatformTransactionManager transactionManager;
 
-    @Transactional
+    private final ExecutorService checkoutExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Đặt hàng từ các item được chọn trong giỏ.
+     * Không bọc trong 1 transaction lớn: các remote call (user-service / product-service) chạy khi
+     * không giữ connection DB, chỉ phần ghi (tạo order, dọn giỏ) nằm trong transaction ngắn.
+     * Kiểm tra địa chỉ, tồn kho và lấy thông tin user độc lập nhau nên chạy song song trên virtual threads
+     * → thời gian ≈ call chậm nhất thay vì tổng các call.
+     */
     public Order placeOrder(
             Long userId,
             Long addressId,
             List<Long> cartItemIds) {
-        Boolean isValidAddress = userServiceClient.validateUserAddress(userId, addressId);
-        if (!isValidAddress) {
-            throw new AppException(
-                    "Address does not belong to user or is invalid",
-                    HttpStatus.BAD_REQUEST
-            );
-        }
+        // 1. Đọc giỏ hàng + item được chọn (mỗi query tự mở/đóng transaction)
         Cart cart = cartRepository.findByUserId(userId)
                 .orElseThrow(() -> new AppException("Cart not found", HttpStatus.NOT_FOUND));
 
@@ -84,13 +102,29 @@ public class OrderService {
                 ))
                 .collect(Collectors.toList());
 
-        Map<String, Boolean> stockResults = productServiceClient.batchCheckInventory(inventoryCheckRequests);
+        // 2. ✅ PARALLEL - address / tồn kho / user cùng lúc, lỗi đầu tiên hủy cả nhóm
+        CompletionService<Object> preChecks = new ExecutorCompletionService<>(checkoutExecutor);
+        Future<Boolean> addressFuture = fork(preChecks,
+                () -> userServiceClient.validateUserAddress(userId, addressId));
+        Future<Map<String, Boolean>> stockFuture = fork(preChecks,
+                () -> productServiceClient.batchCheckInventory(inventoryCheckRequests));
+        Future<UserDTO> userFuture = fork(preChecks,
+                () -> userServiceClient.getUserById(userId).getBody());
+        awaitAll(preChecks, addressFuture, stockFuture, userFuture);
+
+        if (!Boolean.TRUE.equals(addressFuture.resultNow())) {
+            throw new AppException(
+                    "Address does not belong to user or is invalid",
+                    HttpStatus.BAD_REQUEST
+            );
+        }
 
+        Map<String, Boolean> stockResults = stockFuture.resultNow();
         for (InventoryCheckRequest req : inventoryCheckRequests) {
             String key = req.getProductId() + "-" + req.getSize();
             Boolean hasStock = stockResults.get(key);
 
-            if (!hasStock) {
+            if (!Boolean.TRUE.equals(hasStock)) {
                 ProductDTO product = productServiceClient.getProductById(req.getProductId());
                 throw new AppException(
                         String.format("Sản phẩm '%s' (size %s) không đủ hàng",
@@ -100,7 +134,10 @@ public class OrderService {
             }
         }
 
-        UserDTO user = userServiceClient.getUserById(userId).getBody();
+        UserDTO user = userFuture.resultNow();
+        if (user == null) {
+            throw new AppException("User not found", HttpStatus.NOT_FOUND);
+        }
 
         Order order = new Order();
         order.setUserId(userId);
@@ -109,7 +146,6 @@ public class OrderService {
         order.setOrderStatus(OrderStatus.PENDING);
         order.setPaymentMethod(PaymentMethod.COD);
         order.setPaymentStatus(PaymentStatus.PENDING);
-        order.setShippingAddressId(addressId);
 
         List<OrderItem> orderItems = selectedItems.stream()
                 .map(this::convertToOrderItem)
@@ -119,26 +155,16 @@ public class OrderService {
         order.setOrderItems(orderItems);
         order.calculateTotals();
 
-        Order savedOrder = orderRepository.save(order);
-
-        try {
-            productServiceClient.batchReduceInventory(inventoryCheckRequests);
-        } catch (Exception e) {
-            log.error("Failed to reduce inventory batch: {}", e.getMessage());
-            orderRepository.delete(savedOrder);
-            throw new AppException(
-                    "Không thể xử lý đơn hàng. Vui lòng thử lại.",
-                    HttpStatus.INTERNAL_SERVER_ERROR
-            );
-        }
-
-        // ✅ 11. Xóa items đã checkout khỏi cart
-        cartItemRepository.deleteAll(selectedItems);
+        // 3. 1 transaction ngắn: INSERT order + items, saga + yêu cầu giữ chỗ (outbox), dọn giỏ.
+        // ✅ Không gọi product-service đồng bộ: OutboxRelay giữ chỗ ngay sau commit, hết hàng thì tự hủy đơn.
+        // Tồn kho bị trừ hẳn khi đơn được thanh toán / xác nhận / giao.
+        Order savedOrder = new TransactionTemplate(transactionManager).execute(status -> {
+            Order created = orderRepository.save(order);
+            checkoutSagaService.start(created, inventoryCheckRequests);
 
-        Cart updatedCart = cartRepository.findByUserId(userId)
-                .orElseThrow(() -> new AppException("Cart not found", HttpStatus.NOT_FOUND));
-        cartService.reCalculateCart(updatedCart);
-        cartRepository.save(updatedCart);
+            cartService.removeCheckedOutItems(userId, cartItemIds);
+            return created;
+        });
 
         log.info("✅ Order {} created successfully with {} items",
                 savedOrder.getId(), orderItems.size());
@@ -146,6 +172,49 @@ public class OrderService {
         return savedOrder;
     }
 
+    @SuppressWarnings("unchecked")
+    private static <T> Future<T> fork(CompletionService<Object> scope, Callable<T> task) {
+        return (Future<T>) scope.submit(task::call);
+    }
+
+    /**
+     * Chờ tất cả task xong theo thứ tự hoàn thành; task đầu tiên lỗi → cancel(true) các task còn lại
+     * (interrupt virtual thread, call Feign đang chờ socket bị ngắt) và ném lại lỗi đó ngay,
+     * không chờ các call chậm hơn.
+     */
+    private void awaitAll(CompletionService<Object> scope, Future<?>... futures) {
+        for (int done = 0; done < futures.length; done++) {
+            Future<Object> completed;
+            try {
+                completed = scope.take();
+            } catch (InterruptedException e) {
+                cancelAll(futures);
+                Thread.currentThread().interrupt();
+                throw new AppException("Checkout pre-check interrupted", HttpStatus.SERVICE_UNAVAILABLE);
+            }
+            if (completed.state() == Future.State.FAILED) {
+                cancelAll(futures);
+                Throwable cause = completed.exceptionNow();
+                if (cause instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw new AppException("Checkout pre-check failed: " + cause.getMessage(),
+                        HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+        }
+    }
+
+    private void cancelAll(Future<?>... futures) {
+        for (Future<?> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        checkoutExecutor.shutdown();
+    }
+
     @Transactional(readOnly = true)
     public List<Order> getOrderHistory(Long userId, OrderStatus orderStatus) {
         // Delegate sang method mới
@@ -175,7 +244,42 @@ public class OrderService {
             );
         }
 
-        // Restore inventory
+        releaseInventory(order);
+
+        order.setOrderStatus(OrderStatus.CANCELLED);
+        order.setPaymentStatus(PaymentStatus.CANCELLED);
+        return orderRepository.save(order);
+    }
+
+    /**
+     * Chốt giữ chỗ tồn kho của đơn (đã thanh toán VNPay / đã xác nhận / đã giao).
+     * Chỉ ghi vào outbox trong transaction của nơi gọi, OutboxRelay gửi và retry.
+     */
+    public void commitInventory(Long orderId) {
+        checkoutSagaService.requestCommit(orderId);
+    }
+
+    /**
+     * Nhả giữ chỗ (hoặc hoàn kho nếu đã chốt) khi hủy đơn, qua outbox.
+     * Đơn tạo trước khi có saga thì gọi thẳng product-service như cũ; product-service trả về 0 dòng giữ chỗ
+     * (đơn tạo trước khi có sổ giữ chỗ) thì hoàn kho từng item.
+     */
+    private void releaseInventory(Order order) {
+        if (checkoutSagaService.requestRelease(order.getId())) {
+            return;
+        }
+
+        try {
+            Integer reservationLines = productServiceClient.releaseInventoryReservation(order.getId());
+            if (reservationLines != null && reservationLines > 0) {
+                return;
+            }
+        } catch (Exception e) {
+            // Giữ chỗ chưa chốt sẽ được sweeper của product-service nhả khi hết hạn
+            log.error("Failed to release inventory reservations for order {}", order.getId(), e);
+            return;
+        }
+
         for (OrderItem item : order.getOrderItems()) {
             InventoryCheckRequest restoreRequest = new InventoryCheckRequest(
                     item.getProductId(),
@@ -190,10 +294,6 @@ public class OrderService {
                 // Vẫn tiếp tục hủy đơn nhưng log warning
             }
         }
-
-        order.setOrderStatus(OrderStatus.CANCELLED);
-        order.setPaymentStatus(PaymentStatus.CANCELLED);
-        return orderRepository.save(order);
     }
 
     private OrderItem convertToOrderItem(CartItem cartItem) {
@@ -222,6 +322,7 @@ public class OrderService {
         // Nếu thanh toán thành công -> confirm đơn hàng
         if (paymentStatus == PaymentStatus.COMPLETED) {
             order.setOrderStatus(OrderStatus.CONFIRMED);
+            commitInventory(orderId);
         }
 
         return orderRepository.save(order);
@@ -230,6 +331,47 @@ public class OrderService {
 
     public Page<Order> searchOrdersForAdmin(String search, String status,
                                             String paymentStatus, LocalDate startDate, LocalDate endDate, Pageable pageable) {
+        return orderRepository.findAll(adminSearchSpec(search, status, paymentStatus, startDate, endDate), pageable);
+    }
+
+    /**
+     * Như searchOrdersForAdmin nhưng phân trang keyset theo (createdAt DESC, id DESC):
+     * trang sau lọc bằng WHERE sau cursor thay vì OFFSET, lấy dư 1 dòng để biết còn trang và không chạy COUNT.
+     *
+     * @param cursor nextCursor của trang trước (null = trang đầu).
+     */
+    public CursorPage<Order> searchOrdersForAdminByCursor(String search, String status, String paymentStatus,
+                                                          LocalDate startDate, LocalDate endDate,
+                                                          String cursor, int size) {
+        Specification<Order> spec = adminSearchSpec(search, status, paymentStatus, startDate, endDate);
+
+        CursorCodec.Cursor after = CursorCodec.decode(cursor, ORDER_CURSOR_SORT);
+        if (after != null) {
+            LocalDateTime createdAt;
+            try {
+                createdAt = LocalDateTime.parse(after.value());
+            } catch (DateTimeParseException e) {
+                throw new AppException("Invalid cursor", HttpStatus.BAD_REQUEST);
+            }
+            spec = spec.and((root, query, cb) -> cb.or(
+                    cb.lessThan(root.get("createdAt"), createdAt),
+                    cb.and(cb.equal(root.get("createdAt"), createdAt), cb.lessThan(root.get("id"), after.id()))
+            ));
+        }
+
+        List<Order> rows = orderRepository.findBy(spec, q -> q
+                .sortBy(Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id")))
+                .limit(size + 1)
+                .all());
+        return CursorPage.of(rows, size,
+                last -> CursorCodec.encode(ORDER_CURSOR_SORT, last.getCreatedAt(), last.getId()));
+    }
+
+    /**
+     * Điều kiện lọc chung của searchOrdersForAdmin / searchOrdersForAdminByCursor.
+     */
+    private Specification<Order> adminSearchSpec(String search, String status,
+                                                 String paymentStatus, LocalDate startDate, LocalDate endDate) {
 
         Specification<Order> spec = Specification.where(null);
 
@@ -275,7 +417,7 @@ public class OrderService {
             );
         }
 
-        return orderRepository.findAll(spec, pageable);
+        return spec;
     }
 
     @Transactional
@@ -284,22 +426,23 @@ public class OrderService {
 
         validateStatusTransition(order.getOrderStatus(), newStatus);
 
+        if (newStatus == OrderStatus.CONFIRMED) {
+            commitInventory(orderId);
+        }
+
+        if (newStatus == OrderStatus.CANCELLED) {
+            releaseInventory(order);
+        }
+
         if (newStatus == OrderStatus.DELIVERED) {
+            commitInventory(orderId);
             order.setDeliveryDate(LocalDateTime.now());
             if (order.getPaymentStatus() == PaymentStatus.PENDING) {
                 order.setPaymentStatus(PaymentStatus.COMPLETED);
             }
 
-            for (OrderItem item : order.getOrderItems()) {
-                try {
-                    InventoryCheckRequest increaseSoldRequest = new InventoryCheckRequest(item.getProductId(), item.getQuantity());
-                    productServiceClient.increaseQuantitySold(increaseSoldRequest);
-                    log.info("Increased quantity sold for product {} by {}", item.getProductId(), item.getQuantity());
-                } catch (Exception e) {
-                    log.error("Failed to increase quantity sold for product {} (Order {}). Error: {}",
-                            item.getProductId(), orderId, e.getMessage());
-                }
-            }
+            // ✅ Doanh số ghi qua outbox (gộp lô, retry, idempotent theo đơn) thay vì gọi từng item và bỏ qua lỗi
+            checkoutSagaService.requestRecordSales(order);
         }
 
         order.setOrderStatus(newStatus);
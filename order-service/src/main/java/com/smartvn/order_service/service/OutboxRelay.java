@@ -0,0 +1,320 @@
+package com.smartvn.order_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartvn.order_service.client.ProductServiceClient;
+import com.smartvn.order_service.dto.product.OrderSalesRequest;
+import com.smartvn.order_service.dto.product.ReserveInventoryRequest;
+import com.smartvn.order_service.enums.OrderStatus;
+import com.smartvn.order_service.enums.PaymentStatus;
+import com.smartvn.order_service.exceptions.AppException;
+import com.smartvn.order_service.model.CheckoutSaga;
+import com.smartvn.order_service.model.OutboxEvent;
+import com.smartvn.order_service.repository.CheckoutSagaRepository;
+import com.smartvn.order_service.repository.OrderRepository;
+import com.smartvn.order_service.repository.OutboxEventRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Gửi OutboxEvent sang product-service.
+ * Mỗi vòng: khóa 1 lô event đến hạn (SKIP LOCKED, mỗi đơn tối đa 1 event) và đẩy nextAttemptAt ra sau
+ * (lease) trong 1 transaction ngắn → gọi product-service ngoài transaction → ghi kết quả từng event.
+ * RECORD_SALES của cả lô gộp thành 1 request; reserve / commit / release chạy song song giữa các đơn.
+ * Mọi endpoint phía product-service đều idempotent theo orderId nên gửi lại sau timeout vẫn an toàn.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxRelay {
+
+    private static final int MAX_ROUNDS_PER_RUN = 20;
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final CheckoutSagaRepository sagaRepository;
+    private final OrderRepository orderRepository;
+    private final ProductServiceClient productServiceClient;
+    private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
+
+    private final ExecutorService relayExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicBoolean kickScheduled = new AtomicBoolean();
+
+    @Value("${outbox.relay.batch-size:100}")
+    private int batchSize;
+
+    @Value("${outbox.relay.max-attempts:12}")
+    private int maxAttempts;
+
+    @Value("${outbox.relay.backoff-base-ms:1000}")
+    private long backoffBaseMs;
+
+    @Value("${outbox.relay.backoff-max-ms:600000}")
+    private long backoffMaxMs;
+
+    @Value("${outbox.relay.lease-ms:60000}")
+    private long leaseMs;
+
+    /**
+     * Đánh thức relay (gọi sau khi transaction ghi event commit). Nhiều lần gọi dồn dập chỉ chạy 1 lượt.
+     */
+    public void kick() {
+        if (kickScheduled.compareAndSet(false, true)) {
+            relayExecutor.execute(() -> {
+                kickScheduled.set(false);
+                runSafely();
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.poll-interval-ms:5000}",
+            initialDelayString = "${outbox.relay.poll-interval-ms:5000}")
+    public void scheduledRelay() {
+        runSafely();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        relayExecutor.shutdown();
+    }
+
+    private void runSafely() {
+        try {
+            relayPending();
+        } catch (Exception e) {
+            log.warn("⚠️ Outbox relay run failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Gửi tới khi hết event đến hạn (event kế tiếp của 1 đơn đến hạn ngay khi event trước gửi xong).
+     */
+    public void relayPending() {
+        for (int round = 0; round < MAX_ROUNDS_PER_RUN; round++) {
+            List<OutboxEvent> batch = claimBatch();
+            if (batch.isEmpty()) {
+                return;
+            }
+            dispatch(batch);
+        }
+    }
+
+    private List<OutboxEvent> claimBatch() {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxEvent> due = outboxEventRepository.findDueForUpdate(now, PageRequest.of(0, batchSize));
+            LocalDateTime leaseUntil = now.plusNanos(leaseMs * 1_000_000);
+            due.forEach(event -> event.setNextAttemptAt(leaseUntil));
+            return due;
+        });
+    }
+
+    private void dispatch(List<OutboxEvent> batch) {
+        List<OutboxEvent> sales = new ArrayList<>();
+        List<CompletableFuture<Void>> calls = new ArrayList<>();
+        for (OutboxEvent event : batch) {
+            if (event.getEventType() == OutboxEvent.Type.RECORD_SALES) {
+                sales.add(event);
+            } else {
+                calls.add(CompletableFuture.runAsync(() -> dispatchSingle(event), relayExecutor));
+            }
+        }
+        if (!sales.isEmpty()) {
+            calls.add(CompletableFuture.runAsync(() -> dispatchSales(sales), relayExecutor));
+        }
+        CompletableFuture.allOf(calls.toArray(new CompletableFuture[0])).join();
+    }
+
+    private void dispatchSingle(OutboxEvent event) {
+        Long orderId = event.getAggregateId();
+        try {
+            switch (event.getEventType()) {
+                case RESERVE_INVENTORY -> productServiceClient.reserveInventory(
+                        readPayload(event, ReserveInventoryRequest.class));
+                case COMMIT_INVENTORY -> productServiceClient.commitInventoryReservation(orderId);
+                case RELEASE_INVENTORY -> productServiceClient.releaseInventoryReservation(orderId);
+                default -> throw new AppException("Unsupported outbox event type: " + event.getEventType(),
+                        HttpStatus.BAD_REQUEST);
+            }
+        } catch (Exception e) {
+            onFailure(List.of(event), e);
+            return;
+        }
+        onSuccess(List.of(event));
+    }
+
+    private void dispatchSales(List<OutboxEvent> events) {
+        try {
+            List<OrderSalesRequest> requests = events.stream()
+                    .map(event -> readPayload(event, OrderSalesRequest.class))
+                    .toList();
+            Integer recorded = productServiceClient.recordSales(requests);
+            log.info("Recorded sales for {} of {} delivered orders", recorded, requests.size());
+        } catch (Exception e) {
+            if (events.size() > 1 && isPermanent(e)) {
+                // 1 đơn lỗi nghiệp vụ không được kéo cả lô FAILED → gửi lại từng đơn để tách đơn lỗi
+                log.warn("⚠️ Sales batch of {} orders rejected, retrying one by one: {}", events.size(), e.getMessage());
+                events.forEach(event -> dispatchSales(List.of(event)));
+                return;
+            }
+            onFailure(events, e);
+            return;
+        }
+        onSuccess(events);
+    }
+
+    private void onSuccess(List<OutboxEvent> events) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            for (OutboxEvent claimed : events) {
+                outboxEventRepository.findById(claimed.getId()).ifPresent(event -> {
+                    event.setStatus(OutboxEvent.Status.SENT);
+                    event.setAttempts(event.getAttempts() + 1);
+                    event.setSentAt(now);
+                    event.setLastError(null);
+                    advanceSaga(event);
+                });
+            }
+        });
+    }
+
+    private void onFailure(List<OutboxEvent> events, Exception e) {
+        boolean permanent = isPermanent(e) && !isRetryableConflict(events, e);
+        String error = truncate(e.getMessage());
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (OutboxEvent claimed : events) {
+                outboxEventRepository.findById(claimed.getId()).ifPresent(event -> {
+                    int attempts = event.getAttempts() + 1;
+                    event.setAttempts(attempts);
+                    event.setLastError(error);
+
+                    if (permanent || attempts >= maxAttempts) {
+                        event.setStatus(OutboxEvent.Status.FAILED);
+                        log.error("Outbox event {} ({}) for order {} failed permanently after {} attempts: {}",
+                                event.getId(), event.getEventType(), event.getAggregateId(), attempts, error);
+                        compensate(event, error);
+                    } else {
+                        event.setNextAttemptAt(LocalDateTime.now().plusNanos(backoffMs(attempts) * 1_000_000));
+                        log.warn("⚠️ Outbox event {} ({}) for order {} failed (attempt {}), retrying: {}",
+                                event.getId(), event.getEventType(), event.getAggregateId(), attempts, error);
+                    }
+                });
+            }
+        });
+    }
+
+    private void advanceSaga(OutboxEvent event) {
+        sagaRepository.findByOrderId(event.getAggregateId()).ifPresent(saga -> {
+            CheckoutSaga.Status current = saga.getStatus();
+            switch (event.getEventType()) {
+                case RESERVE_INVENTORY -> {
+                    if (current == CheckoutSaga.Status.ORDER_CREATED) {
+                        saga.setStatus(CheckoutSaga.Status.STOCK_RESERVED);
+                    }
+                }
+                case COMMIT_INVENTORY -> {
+                    if (current != CheckoutSaga.Status.CANCELLED && current != CheckoutSaga.Status.FAILED) {
+                        saga.setStatus(CheckoutSaga.Status.CONFIRMED);
+                    }
+                }
+                case RELEASE_INVENTORY -> {
+                    if (current != CheckoutSaga.Status.FAILED) {
+                        saga.setStatus(CheckoutSaga.Status.CANCELLED);
+                    }
+                }
+                default -> {
+                }
+            }
+        });
+    }
+
+    /**
+     * Bước bù trừ: không giữ chỗ được (hết hàng...) → hủy đơn còn chờ xử lý.
+     * Không chốt được tồn kho (đơn đã xác nhận nhưng hàng không còn) → saga FAILED để đối soát / xử lý tay.
+     * Lỗi các bước khác chỉ ghi lại trên saga.
+     */
+    private void compensate(OutboxEvent event, String error) {
+        sagaRepository.findByOrderId(event.getAggregateId()).ifPresent(saga -> {
+            saga.setLastError(error);
+            if (event.getEventType() == OutboxEvent.Type.COMMIT_INVENTORY) {
+                if (saga.getStatus() != CheckoutSaga.Status.CANCELLED) {
+                    saga.setStatus(CheckoutSaga.Status.FAILED);
+                }
+                orderRepository.findById(event.getAggregateId()).ifPresent(order ->
+                        log.error("Order {} is {} / {} but its inventory could not be committed, needs manual review: {}",
+                                order.getId(), order.getOrderStatus(), order.getPaymentStatus(), error));
+                return;
+            }
+            if (event.getEventType() != OutboxEvent.Type.RESERVE_INVENTORY) {
+                return;
+            }
+            saga.setStatus(CheckoutSaga.Status.FAILED);
+            orderRepository.findById(event.getAggregateId()).ifPresent(order -> {
+                if (order.getOrderStatus() == OrderStatus.PENDING
+                        && order.getPaymentStatus() != PaymentStatus.COMPLETED) {
+                    order.setOrderStatus(OrderStatus.CANCELLED);
+                    order.setPaymentStatus(PaymentStatus.CANCELLED);
+                    log.warn("⚠️ Order {} cancelled: inventory could not be reserved", order.getId());
+                } else {
+                    log.error("Order {} is {} / {} but inventory could not be reserved, needs manual review",
+                            order.getId(), order.getOrderStatus(), order.getPaymentStatus());
+                }
+            });
+        });
+    }
+
+    /**
+     * 4xx nghiệp vụ (hết hàng, không tìm thấy, conflict) gửi lại cũng không khác → không retry.
+     */
+    private boolean isPermanent(Exception e) {
+        return e instanceof AppException appException && appException.getStatus().is4xxClientError();
+    }
+
+    /**
+     * Chốt tồn kho bị 409 (giữ chỗ đã hết hạn và hàng không còn) có thể thành công sau khi nhập thêm hàng
+     * → vẫn retry theo backoff tới maxAttempts thay vì FAILED ngay.
+     */
+    private boolean isRetryableConflict(List<OutboxEvent> events, Exception e) {
+        return e instanceof AppException appException
+                && appException.getStatus() == HttpStatus.CONFLICT
+                && events.stream().allMatch(event -> event.getEventType() == OutboxEvent.Type.COMMIT_INVENTORY);
+    }
+
+    private long backoffMs(int attempts) {
+        long delay = backoffBaseMs << Math.min(attempts - 1, 20);
+        return Math.min(delay, backoffMaxMs);
+    }
+
+    private <T> T readPayload(OutboxEvent event, Class<T> type) {
+        try {
+            return objectMapper.readValue(event.getPayload(), type);
+        } catch (JsonProcessingException e) {
+            throw new AppException("Invalid payload of outbox event " + event.getId() + ": " + e.getOriginalMessage(),
+                    HttpStatus.BAD_REQUEST, e);
+        }
+    }
+
+    private String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+}
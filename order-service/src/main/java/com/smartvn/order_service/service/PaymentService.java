@@ -45,6 +45,7 @@ public class PaymentService {
     private String vnp_Returnurl;
 
     private final OrderService orderService;
+    private final CheckoutSagaService checkoutSagaService;
     private final OrderRepository  orderRepository;
 
     private final PaymentDetailRepository paymentDetailRepository;
@@ -150,6 +151,7 @@ public class PaymentService {
             paymentDetail.setVnpSecureHash(vnp_SecureHash);
             // Lưu chi tiết thanh toán
             paymentDetailRepository.save(paymentDetail);
+            checkoutSagaService.markPaymentPending(orderId);
 
             // URL thanh toán hoàn chỉnh
             return vnp_PayUrl + "?" + queryUrl;
@@ -213,6 +215,7 @@ public class PaymentService {
                 order.setPaymentMethod(PaymentMethod.VNPAY);
                 order.setPaymentStatus(PaymentStatus.COMPLETED);
                 order.setOrderStatus(OrderStatus.CONFIRMED); // Tự động confirm đơn
+                orderService.commitInventory(order.getId()); // Chốt giữ chỗ tồn kho (qua outbox)
 
                 // ✅ Lưu payment (order sẽ cascade save)
                 orderRepository.save(order);  // Explicit save
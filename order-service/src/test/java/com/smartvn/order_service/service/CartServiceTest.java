@@ -0,0 +1,199 @@
+package com.smartvn.order_service.service;
+
+import com.smartvn.order_service.client.ProductServiceClient;
+import com.smartvn.order_service.client.UserServiceClient;
+import com.smartvn.order_service.dto.cart.AddItemRequest;
+import com.smartvn.order_service.dto.product.InventoryCheckRequest;
+import com.smartvn.order_service.dto.user.UserDTO;
+import com.smartvn.order_service.exceptions.AppException;
+import com.smartvn.order_service.model.Cart;
+import com.smartvn.order_service.model.CartItem;
+import com.smartvn.order_service.repository.CartItemRepository;
+import com.smartvn.order_service.repository.CartRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class CartServiceTest {
+
+    private static final Long USER_ID = 11L;
+    private static final Long CART_ID = 3L;
+
+    @Mock
+    private CartRepository cartRepository;
+    @Mock
+    private CartItemRepository cartItemRepository;
+    @Mock
+    private UserServiceClient userServiceClient;
+    @Mock
+    private ProductServiceClient productServiceClient;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private CartService service;
+
+    /**
+     * Dòng carts trong "DB": saveAndFlush chỉ nhận bản có đúng version như @Version thật, rồi tăng version.
+     */
+    private Cart stored;
+
+    @BeforeEach
+    void setUp() {
+        service = new CartService(cartRepository, cartItemRepository, userServiceClient,
+                productServiceClient, transactionManager);
+
+        UserDTO user = new UserDTO();
+        user.setId(USER_ID);
+        user.setActive(true);
+        when(userServiceClient.getUserById(USER_ID)).thenReturn(ResponseEntity.ok(user));
+        when(productServiceClient.checkInventoryAvailability(any(InventoryCheckRequest.class))).thenReturn(true);
+
+        stored = cart(1, 0, 100_000, 80_000);
+        when(cartRepository.findByUserId(USER_ID)).thenAnswer(invocation -> Optional.of(copy(stored)));
+        when(cartRepository.saveAndFlush(any(Cart.class))).thenAnswer(invocation -> {
+            Cart cart = invocation.getArgument(0);
+            if (cart.getVersion() != stored.getVersion()) {
+                throw new ObjectOptimisticLockingFailureException(Cart.class, cart.getId());
+            }
+            cart.setVersion(cart.getVersion() + 1);
+            stored = copy(cart);
+            return cart;
+        });
+        when(cartItemRepository.save(any(CartItem.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void updateCartItem_appliesQuantityDeltaToTotals() {
+        CartItem item = item(21L, 1, 100_000, 80_000);
+        when(cartItemRepository.findById(21L)).thenReturn(Optional.of(item));
+
+        Cart cart = service.updateCartItem(USER_ID, 21L, request(3));
+
+        assertEquals(3, cart.getTotalItems());
+        assertEquals(300_000, cart.getOriginalPrice());
+        assertEquals(240_000, cart.getTotalDiscountedPrice());
+        assertEquals(60_000, cart.getDiscount());
+        assertEquals(1L, stored.getVersion());
+    }
+
+    @Test
+    void removeCartItem_subtractsLineFromTotals() {
+        CartItem item = item(21L, 1, 100_000, 80_000);
+        when(cartItemRepository.findById(21L)).thenReturn(Optional.of(item));
+
+        service.removeCartItem(USER_ID, 21L);
+
+        assertEquals(0, stored.getTotalItems());
+        assertEquals(0, stored.getOriginalPrice());
+        assertEquals(0, stored.getTotalDiscountedPrice());
+        assertEquals(0, stored.getDiscount());
+        verify(cartItemRepository).delete(item);
+    }
+
+    @Test
+    void updateCartItem_concurrentUpdateOnStaleCart_throwsConflictAndKeepsFirstWrite() {
+        // 2 request cùng đọc giỏ ở version 0 trước khi bên nào ghi
+        Cart first = copy(stored);
+        Cart second = copy(stored);
+        when(cartRepository.findByUserId(USER_ID)).thenReturn(Optional.of(first), Optional.of(second));
+        when(cartItemRepository.findById(21L))
+                .thenReturn(Optional.of(item(21L, 1, 100_000, 80_000)), Optional.of(item(21L, 1, 100_000, 80_000)));
+
+        service.updateCartItem(USER_ID, 21L, request(2));
+        AppException ex = assertThrows(AppException.class, () -> service.updateCartItem(USER_ID, 21L, request(5)));
+
+        assertEquals(HttpStatus.CONFLICT, ex.getStatus());
+        // Tổng của request đầu không bị request sau ghi đè
+        assertEquals(2, stored.getTotalItems());
+        assertEquals(160_000, stored.getTotalDiscountedPrice());
+        assertEquals(1L, stored.getVersion());
+    }
+
+    @Test
+    void removeCartItem_concurrentUpdateOnStaleCart_throwsConflict() {
+        Cart stale = copy(stored);
+        stored.setVersion(1L); // request khác đã ghi giỏ sau khi request này đọc
+        when(cartRepository.findByUserId(USER_ID)).thenReturn(Optional.of(stale));
+        when(cartItemRepository.findById(21L)).thenReturn(Optional.of(item(21L, 1, 100_000, 80_000)));
+
+        AppException ex = assertThrows(AppException.class, () -> service.removeCartItem(USER_ID, 21L));
+
+        assertEquals(HttpStatus.CONFLICT, ex.getStatus());
+        assertEquals(1, stored.getTotalItems());
+    }
+
+    @Test
+    void updateCartItem_thenRetryOnFreshCart_succeeds() {
+        Cart stale = copy(stored);
+        stored.setVersion(1L);
+        when(cartRepository.findByUserId(USER_ID))
+                .thenReturn(Optional.of(stale))
+                .thenAnswer(invocation -> Optional.of(copy(stored)));
+        when(cartItemRepository.findById(anyLong()))
+                .thenAnswer(invocation -> Optional.of(item(21L, 1, 100_000, 80_000)));
+
+        assertThrows(AppException.class, () -> service.updateCartItem(USER_ID, 21L, request(4)));
+        Cart cart = service.updateCartItem(USER_ID, 21L, request(4));
+
+        assertEquals(4, cart.getTotalItems());
+        assertEquals(400_000, cart.getOriginalPrice());
+        assertEquals(2L, stored.getVersion());
+    }
+
+    private AddItemRequest request(int quantity) {
+        AddItemRequest req = new AddItemRequest();
+        req.setQuantity(quantity);
+        return req;
+    }
+
+    private Cart cart(int totalItems, long version, int originalPrice, int discountedPrice) {
+        Cart cart = new Cart();
+        cart.setId(CART_ID);
+        cart.setUserId(USER_ID);
+        cart.setTotalItems(totalItems);
+        cart.setOriginalPrice(originalPrice);
+        cart.setTotalDiscountedPrice(discountedPrice);
+        cart.setDiscount(originalPrice - discountedPrice);
+        cart.setVersion(version);
+        return cart;
+    }
+
+    private Cart copy(Cart source) {
+        return cart(source.getTotalItems(), source.getVersion(),
+                source.getOriginalPrice(), source.getTotalDiscountedPrice());
+    }
+
+    private CartItem item(Long id, int quantity, int price, int discountedPrice) {
+        Cart owner = new Cart();
+        owner.setId(CART_ID);
+        CartItem item = new CartItem();
+        item.setId(id);
+        item.setCart(owner);
+        item.setProductId(5L);
+        item.setSize("M");
+        item.setQuantity(quantity);
+        item.setPrice(BigDecimal.valueOf(price));
+        item.setDiscountedPrice(BigDecimal.valueOf(discountedPrice));
+        return item;
+    }
+}
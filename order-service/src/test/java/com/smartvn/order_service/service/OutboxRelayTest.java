@@ -0,0 +1,267 @@
+package com.smartvn.order_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartvn.order_service.client.ProductServiceClient;
+import com.smartvn.order_service.dto.product.InventoryCheckRequest;
+import com.smartvn.order_service.dto.product.OrderSalesRequest;
+import com.smartvn.order_service.dto.product.ReserveInventoryRequest;
+import com.smartvn.order_service.enums.OrderStatus;
+import com.smartvn.order_service.enums.PaymentStatus;
+import com.smartvn.order_service.exceptions.AppException;
+import com.smartvn.order_service.model.CheckoutSaga;
+import com.smartvn.order_service.model.Order;
+import com.smartvn.order_service.model.OutboxEvent;
+import com.smartvn.order_service.repository.CheckoutSagaRepository;
+import com.smartvn.order_service.repository.OrderRepository;
+import com.smartvn.order_service.repository.OutboxEventRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class OutboxRelayTest {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+    @Mock
+    private CheckoutSagaRepository sagaRepository;
+    @Mock
+    private OrderRepository orderRepository;
+    @Mock
+    private ProductServiceClient productServiceClient;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        relay = new OutboxRelay(outboxEventRepository, sagaRepository, orderRepository,
+                productServiceClient, objectMapper, transactionManager);
+        ReflectionTestUtils.setField(relay, "batchSize", 100);
+        ReflectionTestUtils.setField(relay, "maxAttempts", MAX_ATTEMPTS);
+        ReflectionTestUtils.setField(relay, "backoffBaseMs", 1000L);
+        ReflectionTestUtils.setField(relay, "backoffMaxMs", 60000L);
+        ReflectionTestUtils.setField(relay, "leaseMs", 60000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        relay.shutdown();
+    }
+
+    @Test
+    void reserveSuccessMarksEventSentAndAdvancesSaga() throws Exception {
+        OutboxEvent event = reserveEvent(1L, 10L);
+        CheckoutSaga saga = saga(10L, CheckoutSaga.Status.ORDER_CREATED);
+        givenBatch(event);
+
+        relay.relayPending();
+
+        assertEquals(OutboxEvent.Status.SENT, event.getStatus());
+        assertEquals(1, event.getAttempts());
+        assertNull(event.getLastError());
+        assertEquals(CheckoutSaga.Status.STOCK_RESERVED, saga.getStatus());
+    }
+
+    @Test
+    void transientFailureIsRetriedWithBackoff() throws Exception {
+        OutboxEvent event = reserveEvent(1L, 10L);
+        CheckoutSaga saga = saga(10L, CheckoutSaga.Status.ORDER_CREATED);
+        givenBatch(event);
+        doThrow(new RuntimeException("Product Service is currently unavailable"))
+                .when(productServiceClient).reserveInventory(any());
+
+        LocalDateTime before = LocalDateTime.now();
+        relay.relayPending();
+
+        assertEquals(OutboxEvent.Status.PENDING, event.getStatus());
+        assertEquals(1, event.getAttempts());
+        assertEquals("Product Service is currently unavailable", event.getLastError());
+        assertTrue(event.getNextAttemptAt().isAfter(before));
+        assertEquals(CheckoutSaga.Status.ORDER_CREATED, saga.getStatus());
+    }
+
+    @Test
+    void exhaustedRetriesFailEventAndCompensate() throws Exception {
+        OutboxEvent event = reserveEvent(1L, 10L);
+        event.setAttempts(MAX_ATTEMPTS - 1);
+        CheckoutSaga saga = saga(10L, CheckoutSaga.Status.ORDER_CREATED);
+        Order order = order(10L, OrderStatus.PENDING, PaymentStatus.PENDING);
+        givenBatch(event);
+        doThrow(new RuntimeException("timeout")).when(productServiceClient).reserveInventory(any());
+
+        relay.relayPending();
+
+        assertEquals(OutboxEvent.Status.FAILED, event.getStatus());
+        assertEquals(MAX_ATTEMPTS, event.getAttempts());
+        assertEquals(CheckoutSaga.Status.FAILED, saga.getStatus());
+        assertEquals(OrderStatus.CANCELLED, order.getOrderStatus());
+    }
+
+    @Test
+    void outOfStockOnReserveFailsImmediatelyAndCancelsPendingOrder() throws Exception {
+        OutboxEvent event = reserveEvent(1L, 10L);
+        CheckoutSaga saga = saga(10L, CheckoutSaga.Status.ORDER_CREATED);
+        Order order = order(10L, OrderStatus.PENDING, PaymentStatus.PENDING);
+        givenBatch(event);
+        doThrow(new AppException("Insufficient stock", HttpStatus.BAD_REQUEST))
+                .when(productServiceClient).reserveInventory(any());
+
+        relay.relayPending();
+
+        assertEquals(OutboxEvent.Status.FAILED, event.getStatus());
+        assertEquals(1, event.getAttempts());
+        assertEquals(CheckoutSaga.Status.FAILED, saga.getStatus());
+        assertEquals("Insufficient stock", saga.getLastError());
+        assertEquals(OrderStatus.CANCELLED, order.getOrderStatus());
+        assertEquals(PaymentStatus.CANCELLED, order.getPaymentStatus());
+    }
+
+    @Test
+    void paidOrderIsNotCancelledWhenReserveFails() throws Exception {
+        OutboxEvent event = reserveEvent(1L, 10L);
+        CheckoutSaga saga = saga(10L, CheckoutSaga.Status.PAYMENT_PENDING);
+        Order order = order(10L, OrderStatus.PENDING, PaymentStatus.COMPLETED);
+        givenBatch(event);
+        doThrow(new AppException("Insufficient stock", HttpStatus.BAD_REQUEST))
+                .when(productServiceClient).reserveInventory(any());
+
+        relay.relayPending();
+
+        assertEquals(CheckoutSaga.Status.FAILED, saga.getStatus());
+        assertEquals(OrderStatus.PENDING, order.getOrderStatus());
+        assertEquals(PaymentStatus.COMPLETED, order.getPaymentStatus());
+    }
+
+    @Test
+    void commitConflictIsRetriedThenFailsSagaWithoutTouchingOrder() {
+        OutboxEvent event = event(1L, 10L, OutboxEvent.Type.COMMIT_INVENTORY, null);
+        CheckoutSaga saga = saga(10L, CheckoutSaga.Status.STOCK_RESERVED);
+        Order order = order(10L, OrderStatus.CONFIRMED, PaymentStatus.PENDING);
+        givenBatch(event);
+        when(productServiceClient.commitInventoryReservation(10L))
+                .thenThrow(new AppException("Reservation expired and product is out of stock", HttpStatus.CONFLICT));
+
+        relay.relayPending();
+
+        assertEquals(OutboxEvent.Status.PENDING, event.getStatus());
+        assertEquals(CheckoutSaga.Status.STOCK_RESERVED, saga.getStatus());
+
+        event.setAttempts(MAX_ATTEMPTS - 1);
+        givenBatch(event);
+        relay.relayPending();
+
+        assertEquals(OutboxEvent.Status.FAILED, event.getStatus());
+        assertEquals(CheckoutSaga.Status.FAILED, saga.getStatus());
+        assertEquals("Reservation expired and product is out of stock", saga.getLastError());
+        assertEquals(OrderStatus.CONFIRMED, order.getOrderStatus());
+    }
+
+    @Test
+    void rejectedSalesBatchIsSplitSoOtherOrdersStillSucceed() throws Exception {
+        OutboxEvent good = salesEvent(1L, 10L);
+        OutboxEvent bad = salesEvent(2L, 20L);
+        givenBatch(good, bad);
+        when(productServiceClient.recordSales(anyList())).thenAnswer(invocation -> {
+            List<OrderSalesRequest> requests = invocation.getArgument(0);
+            if (requests.stream().anyMatch(r -> r.getOrderId().equals(20L))) {
+                throw new AppException("Product not found", HttpStatus.NOT_FOUND);
+            }
+            return requests.size();
+        });
+
+        relay.relayPending();
+
+        assertEquals(OutboxEvent.Status.SENT, good.getStatus());
+        assertEquals(OutboxEvent.Status.FAILED, bad.getStatus());
+        verify(productServiceClient, times(3)).recordSales(anyList());
+    }
+
+    @Test
+    void releaseAfterFailedSagaKeepsFailedStatus() {
+        OutboxEvent event = event(1L, 10L, OutboxEvent.Type.RELEASE_INVENTORY, null);
+        CheckoutSaga saga = saga(10L, CheckoutSaga.Status.FAILED);
+        givenBatch(event);
+
+        relay.relayPending();
+
+        assertEquals(OutboxEvent.Status.SENT, event.getStatus());
+        assertEquals(CheckoutSaga.Status.FAILED, saga.getStatus());
+        verify(orderRepository, never()).findById(any());
+    }
+
+    private void givenBatch(OutboxEvent... events) {
+        List<OutboxEvent> batch = new ArrayList<>(List.of(events));
+        when(outboxEventRepository.findDueForUpdate(any(), any())).thenReturn(batch, List.of());
+        for (OutboxEvent event : events) {
+            when(outboxEventRepository.findById(event.getId())).thenReturn(Optional.of(event));
+        }
+    }
+
+    private OutboxEvent reserveEvent(Long id, Long orderId) throws Exception {
+        ReserveInventoryRequest request = new ReserveInventoryRequest(orderId,
+                List.of(new InventoryCheckRequest(100L, "M", 2)), true);
+        return event(id, orderId, OutboxEvent.Type.RESERVE_INVENTORY, objectMapper.writeValueAsString(request));
+    }
+
+    private OutboxEvent salesEvent(Long id, Long orderId) throws Exception {
+        OrderSalesRequest request = new OrderSalesRequest(orderId, List.of(new InventoryCheckRequest(100L, "M", 1)));
+        return event(id, orderId, OutboxEvent.Type.RECORD_SALES, objectMapper.writeValueAsString(request));
+    }
+
+    private OutboxEvent event(Long id, Long orderId, OutboxEvent.Type type, String payload) {
+        OutboxEvent event = new OutboxEvent();
+        event.setId(id);
+        event.setAggregateId(orderId);
+        event.setEventType(type);
+        event.setPayload(payload);
+        event.setNextAttemptAt(LocalDateTime.now());
+        return event;
+    }
+
+    private CheckoutSaga saga(Long orderId, CheckoutSaga.Status status) {
+        CheckoutSaga saga = new CheckoutSaga();
+        saga.setOrderId(orderId);
+        saga.setStatus(status);
+        when(sagaRepository.findByOrderId(orderId)).thenReturn(Optional.of(saga));
+        return saga;
+    }
+
+    private Order order(Long id, OrderStatus orderStatus, PaymentStatus paymentStatus) {
+        Order order = new Order();
+        order.setId(id);
+        order.setOrderStatus(orderStatus);
+        order.setPaymentStatus(paymentStatus);
+        when(orderRepository.findById(id)).thenReturn(Optional.of(order));
+        return order;
+    }
+}
@@ -8,7 +8,11 @@ import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+
+import java.util.List;
 
 // Update UserServiceClient
 @FeignClient(name = "user-service", fallback = UserServiceFallback.class, configuration = FeignClientConfig.class)
@@ -16,6 +20,12 @@ public interface UserServiceClient {
     @GetMapping("${api.prefix}/internal/users/{userId}")
     UserInfoDTO getUserInfo(@PathVariable("userId") Long userId);
 
+    /**
+     * Lấy thông tin nhiều user trong 1 request (user không tồn tại sẽ không có trong kết quả).
+     */
+    @PostMapping("${api.prefix}/internal/users/batch")
+    List<UserInfoDTO> getUsersByIds(@RequestBody List<Long> userIds);
+
     /**
      * Lấy thông tin chi tiết một người dùng bằng ID.
      * Endpoint này có thể đã có hoặc cần tạo trong User Service.
@@ -8,6 +8,9 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 
+import java.util.Collections;
+import java.util.List;
+
 @Component
 @Slf4j
 public class UserServiceFallback implements UserServiceClient {
@@ -25,6 +28,12 @@ public class UserServiceFallback implements UserServiceClient {
         return fallbackUser;
     }
 
+    @Override
+    public List<UserInfoDTO> getUsersByIds(List<Long> userIds) {
+        log.warn("Fallback: Cannot fetch user info for {} users. Returning empty list.", userIds.size());
+        return Collections.emptyList();
+    }
+
     @Override
     public UserDTO getUserById(Long userId) {
         log.warn("Fallback: Cannot fetch user dto for userId {}. Returning anonymous user.", userId);
@@ -0,0 +1,64 @@
+package com.smartvn.product_service.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Cache in-memory (Caffeine) cho product-service.
+ * recordStats() để actuator xuất metrics cache.gets{result=hit|miss}, cache.evictions, cache.size.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String PRODUCT_DETAIL_CACHE = "productDetail";
+    public static final String USER_INFO_CACHE = "userInfo";
+    public static final String REVIEW_SUMMARY_CACHE = "reviewSummary";
+
+    @Value("${cache.product-detail.ttl-seconds:300}")
+    private long productDetailTtlSeconds;
+
+    @Value("${cache.product-detail.max-size:10000}")
+    private long productDetailMaxSize;
+
+    @Value("${cache.user-info.ttl-seconds:60}")
+    private long userInfoTtlSeconds;
+
+    @Value("${cache.user-info.max-size:50000}")
+    private long userInfoMaxSize;
+
+    @Value("${cache.review-summary.ttl-seconds:600}")
+    private long reviewSummaryTtlSeconds;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(PRODUCT_DETAIL_CACHE);
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(productDetailTtlSeconds))
+                .maximumSize(productDetailMaxSize)
+                .recordStats());
+        cacheManager.setAllowNullValues(false);
+
+        // Tên / avatar người review (từ user-service): TTL ngắn vì user có thể đổi thông tin bất cứ lúc nào
+        cacheManager.registerCustomCache(USER_INFO_CACHE, Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(userInfoTtlSeconds))
+                .maximumSize(userInfoMaxSize)
+                .recordStats()
+                .build());
+
+        // Tóm tắt đánh giá: bị xóa khi có review mới / bị xóa, TTL chỉ để làm mới tên người review
+        cacheManager.registerCustomCache(REVIEW_SUMMARY_CACHE, Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(reviewSummaryTtlSeconds))
+                .maximumSize(productDetailMaxSize)
+                .recordStats()
+                .build());
+        return cacheManager;
+    }
+}
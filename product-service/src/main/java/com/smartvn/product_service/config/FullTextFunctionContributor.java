@@ -0,0 +1,26 @@
+package com.smartvn.product_service.config;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Đăng ký hàm match_against(column, query) cho HQL/Criteria,
+ * render thành MySQL "MATCH(column) AGAINST(query IN BOOLEAN MODE)" và trả về điểm relevance.
+ * Hibernate tự nạp qua ServiceLoader (META-INF/services/org.hibernate.boot.model.FunctionContributor).
+ */
+public class FullTextFunctionContributor implements FunctionContributor {
+
+    public static final String MATCH_AGAINST = "match_against";
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        functionContributions.getFunctionRegistry()
+                .patternDescriptorBuilder(MATCH_AGAINST, "match(?1) against(?2 in boolean mode)")
+                .setInvariantType(functionContributions.getTypeConfiguration()
+                        .getBasicTypeRegistry()
+                        .resolve(StandardBasicTypes.DOUBLE))
+                .setExactArgumentCount(2)
+                .register();
+    }
+}
@@ -0,0 +1,27 @@
+package com.smartvn.product_service.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Executor riêng cho việc upload ảnh lên Cloudinary: giới hạn số upload song song và hàng đợi
+ * để nhiều request upload lớn không chiếm hết thread / băng thông của service.
+ */
+@Configuration
+public class ImageUploadConfig {
+
+    @Bean(name = "imageUploadExecutor")
+    public ThreadPoolTaskExecutor imageUploadExecutor(
+            @Value("${image.upload.workers:4}") int workers,
+            @Value("${image.upload.queue-capacity:50}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("image-upload-");
+        executor.initialize();
+        return executor;
+    }
+}
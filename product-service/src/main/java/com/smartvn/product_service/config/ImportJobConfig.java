@@ -0,0 +1,27 @@
+package com.smartvn.product_service.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Executor riêng cho job import: số worker và hàng đợi có giới hạn để import lớn
+ * không chiếm hết connection pool của các request thường.
+ */
+@Configuration
+public class ImportJobConfig {
+
+    @Bean(name = "importJobExecutor")
+    public ThreadPoolTaskExecutor importJobExecutor(
+            @Value("${import.jobs.workers:2}") int workers,
+            @Value("${import.jobs.queue-capacity:10}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("import-job-");
+        executor.initialize();
+        return executor;
+    }
+}
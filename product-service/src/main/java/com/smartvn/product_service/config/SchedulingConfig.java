@@ -0,0 +1,12 @@
+package com.smartvn.product_service.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Bật @Scheduled cho các job nền (vd. InventoryReservationSweeper).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -7,8 +7,13 @@ import com.smartvn.product_service.model.Image;
 import com.smartvn.product_service.model.Inventory;
 import com.smartvn.product_service.model.Product;
 import com.smartvn.product_service.service.ImageService;
+import com.smartvn.product_service.service.ImageUploadService;
 import com.smartvn.product_service.service.InventoryService;
+import com.smartvn.product_service.service.ProductImportJobService;
+import com.smartvn.product_service.service.ProductImportStreamService;
 import com.smartvn.product_service.service.ProductService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -20,6 +25,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -34,6 +40,9 @@ public class AdminProductController {
     private final ProductService productService;
     private final InventoryService inventoryService;
     private final ImageService imageService;
+    private final ImageUploadService imageUploadService;
+    private final ProductImportStreamService importStreamService;
+    private final ProductImportJobService importJobService;
 
     /**
      * ✅ TẠO SẢN PHẨM ĐƠN LẺ
@@ -64,7 +73,7 @@ public class AdminProductController {
         // ✅ LOG CHI TIẾT từng product
         for (int i = 0; i < requests.size(); i++) {
             CreateProductRequest req = requests.get(i);
-            log.info("  [{}] {} - {} (category: {}/{}, variants: {}, images: {})",
+            log.debug("  [{}] {} - {} (category: {}/{}, variants: {}, images: {})",
                     i, req.getTitle(), req.getBrand(),
                     req.getTopLevelCategory(), req.getSecondLevelCategory(),
                     req.getVariants() != null ? req.getVariants().size() : 0,
@@ -79,21 +88,23 @@ public class AdminProductController {
             // ✅ THÊM PHẦN NÀY - Tạo response summary
             Map<String, Object> summary = new HashMap<>();
             summary.put("totalRequested", requests.size());
-            summary.put("successCount", result.getSuccessProducts().size());
+            summary.put("successCount", result.getSuccessCount());
             summary.put("failureCount", result.getFailures().size());
 
-            // Convert products sang DTO
+            // Convert products sang DTO (chỉ các sản phẩm đầu tiên, xem import.bulk.echo-limit)
             List<ProductAdminViewDTO> successDTOs = result.getSuccessProducts()
                     .stream()
                     .map(this::convertToAdminDTO)
                     .collect(Collectors.toList());
 
             summary.put("successProducts", successDTOs);
+            summary.put("successProductsTruncated", result.isSuccessProductsTruncated());
+            summary.put("createdProducts", result.getCreatedProducts());
             summary.put("failures", result.getFailures());
 
             // ✅ LOG kết quả
             log.info("✅ Bulk import completed: {}/{} success, {} failed",
-                    result.getSuccessProducts().size(),
+                    result.getSuccessCount(),
                     requests.size(),
                     result.getFailures().size());
 
@@ -102,7 +113,7 @@ public class AdminProductController {
                     .body(ApiResponse.success(
                             summary,
                             String.format("Bulk import completed: %d/%d products created",
-                                    result.getSuccessProducts().size(),
+                                    result.getSuccessCount(),
                                     requests.size())
                     ));
 
@@ -124,6 +135,53 @@ public class AdminProductController {
         }
     }
 
+    /**
+     * ✅ IMPORT STREAM (NDJSON / CSV)
+     * Body là file NDJSON (mỗi dòng 1 CreateProductRequest) hoặc CSV (mỗi dòng 1 variant).
+     * Response là NDJSON: kết quả từng dòng + tiến độ sau mỗi chunk, cuối cùng là dòng "summary".
+     * Ghi đồng bộ trên request thread (không dùng async) để đọc - ghi DB - trả kết quả đi cùng nhịp,
+     * client gửi nhanh hơn tốc độ ghi DB thì bị TCP chặn lại.
+     */
+    @PostMapping(value = "/bulk/stream", consumes = {"application/x-ndjson", "text/csv"})
+    public void bulkImportStream(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String format = request.getContentType() != null && request.getContentType().startsWith("text/csv")
+                ? ProductImportStreamService.FORMAT_CSV
+                : ProductImportStreamService.FORMAT_NDJSON;
+        log.info("📦 Streaming bulk import ({})", format);
+
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+
+        BulkImportReport report = importStreamService.importStream(
+                request.getInputStream(), format, response.getOutputStream());
+
+        log.info("✅ Streaming import completed: {}/{} success, {} failed",
+                report.getSuccessCount(), report.getTotalRows(), report.getFailureCount());
+    }
+
+    /**
+     * ✅ IMPORT DẠNG JOB NỀN
+     * Trả về ngay (202) với id job; admin-service poll GET /jobs/{jobId} để lấy tiến độ.
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<ApiResponse<ImportJobDTO>> submitImportJob(
+            @RequestBody List<CreateProductRequest> requests) {
+
+        ImportJobDTO job = importJobService.submit(requests);
+        return ResponseEntity
+                .status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success(job, "Import job queued"));
+    }
+
+    /**
+     * ✅ TIẾN ĐỘ JOB IMPORT
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<ApiResponse<ImportJobDTO>> getImportJob(@PathVariable Long jobId) {
+        return ResponseEntity.ok(ApiResponse.success(importJobService.getJob(jobId), "Import job status"));
+    }
+
     /**
      * ✅ CẬP NHẬT SẢN PHẨM
      */
@@ -299,12 +357,39 @@ public class AdminProductController {
     }
 
     @PostMapping("/{productId}/images")
-    public ResponseEntity<ApiResponse<?>> uploadImageForProduct(
+    public ResponseEntity<ApiResponse<ImageDTO>> uploadImageForProduct(
             @PathVariable Long productId,
             @RequestPart("file") MultipartFile file) {
 
-        Image image = imageService.uploadImageForProduct(productId, file);
+        Image image = imageUploadService.uploadImages(productId, List.of(file)).get(0);
+
+        return ResponseEntity.ok(ApiResponse.<ImageDTO>builder()
+                .data(toImageDTO(image, productId))
+                .message("Image uploaded")
+                .status(HttpStatus.OK.value())
+                .build());
+    }
+
+    /**
+     * ✅ UPLOAD NHIỀU ẢNH: upload song song ngoài transaction, lưu tất cả Image trong 1 transaction.
+     */
+    @PostMapping("/{productId}/images/batch")
+    public ResponseEntity<ApiResponse<List<ImageDTO>>> uploadImagesForProduct(
+            @PathVariable Long productId,
+            @RequestPart("files") List<MultipartFile> files) {
+
+        List<ImageDTO> images = imageUploadService.uploadImages(productId, files).stream()
+                .map(image -> toImageDTO(image, productId))
+                .collect(Collectors.toList());
+
+        return ResponseEntity.ok(ApiResponse.<List<ImageDTO>>builder()
+                .data(images)
+                .message(images.size() + " images uploaded")
+                .status(HttpStatus.OK.value())
+                .build());
+    }
 
+    private ImageDTO toImageDTO(Image image, Long productId) {
         ImageDTO dto = new ImageDTO();
         dto.setId(image.getId());
         dto.setFileName(image.getFileName());
@@ -312,12 +397,7 @@ public class AdminProductController {
         dto.setDownloadUrl(image.getDownloadUrl());
         dto.setProductId(productId);
         dto.setCreatedAt(image.getCreatedAt());
-
-        return ResponseEntity.ok(ApiResponse.<Void>builder()
-                .data(null)
-                .message("Image uploaded")
-                .status(HttpStatus.OK.value())
-                .build());
+        return dto;
     }
 
 
@@ -3,18 +3,22 @@ package com.smartvn.product_service.controller;
 import com.smartvn.product_service.dto.response.ApiResponse;
 import com.smartvn.product_service.model.Image;
 import com.smartvn.product_service.service.ImageService;
+import com.smartvn.product_service.service.ImageUploadService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("${api.prefix}/images")
 @RequiredArgsConstructor
 public class ImageController {
 
     private final ImageService imageService;
+    private final ImageUploadService imageUploadService;
 
     /**
      * API để upload hình ảnh cho một sản phẩm.
@@ -25,7 +29,7 @@ public class ImageController {
             @PathVariable Long productId,
             @RequestParam("file") MultipartFile file) {
 
-        Image savedImage = imageService.uploadImageForProduct(productId, file);
+        Image savedImage = imageUploadService.uploadImages(productId, List.of(file)).get(0);
 
         ApiResponse<Image> response = ApiResponse.<Image>builder()
                 .message("Image uploaded successfully.")
@@ -34,6 +38,24 @@ public class ImageController {
         return new ResponseEntity<>(response, HttpStatus.CREATED);
     }
 
+    /**
+     * API để upload nhiều hình ảnh cho một sản phẩm trong 1 request (upload song song, lưu DB 1 lần).
+     * Cần được bảo vệ (chỉ ADMIN).
+     */
+    @PostMapping("/products/{productId}/images/batch")
+    public ResponseEntity<ApiResponse<List<Image>>> uploadImages(
+            @PathVariable Long productId,
+            @RequestParam("files") List<MultipartFile> files) {
+
+        List<Image> savedImages = imageUploadService.uploadImages(productId, files);
+
+        ApiResponse<List<Image>> response = ApiResponse.<List<Image>>builder()
+                .message(savedImages.size() + " images uploaded successfully.")
+                .data(savedImages)
+                .build();
+        return new ResponseEntity<>(response, HttpStatus.CREATED);
+    }
+
     /**
      * API để xóa một hình ảnh.
      * Cần được bảo vệ (chỉ ADMIN).
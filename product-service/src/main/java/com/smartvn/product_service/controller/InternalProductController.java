@@ -1,20 +1,23 @@
 package com.smartvn.product_service.controller;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
 import com.smartvn.product_service.dto.InventoryCheckRequest;
 import com.smartvn.product_service.dto.InventoryDTO;
+import com.smartvn.product_service.dto.OrderSalesRequest;
 import com.smartvn.product_service.dto.ProductDTO;
 import com.smartvn.product_service.dto.ProductDetailDTO;
 import com.smartvn.product_service.dto.ProductMetadataDTO;
+import com.smartvn.product_service.dto.ReserveInventoryRequest;
 import com.smartvn.product_service.dto.admin.ProductStatsDTO;
 import com.smartvn.product_service.dto.response.ApiResponse;
 import com.smartvn.product_service.model.Inventory;
 import com.smartvn.product_service.repository.ProductRepository;
+import com.smartvn.product_service.service.InventoryReservationService;
 import com.smartvn.product_service.service.InventoryService;
+import com.smartvn.product_service.service.ProductSalesService;
 import com.smartvn.product_service.service.ProductService;
 
 import org.springframework.http.ResponseEntity;
@@ -34,7 +37,9 @@ import lombok.extern.slf4j.Slf4j;
 @RequestMapping("${api.prefix}/internal")
 public class InternalProductController {
   private final InventoryService inventoryService;
+  private final InventoryReservationService reservationService;
   private final ProductService productService;
+  private final ProductSalesService productSalesService;
   private final ProductRepository productRepository;
 
   @GetMapping("/products/{productId}")
@@ -43,6 +48,15 @@ public class InternalProductController {
     return ResponseEntity.ok(dto.toSimpleDTO());
   }
 
+  /**
+   * Lấy thông tin nhiều sản phẩm trong 1 request (dùng cho enrich cart/order ở order-service, admin-service).
+   * Sản phẩm không tồn tại sẽ bị bỏ qua, thứ tự kết quả theo thứ tự ID gửi lên.
+   */
+  @PostMapping("/products/batch")
+  public ResponseEntity<List<ProductDTO>> getProductsByIds(@RequestBody List<Long> productIds) {
+    return ResponseEntity.ok(productService.getProductsByIds(productIds));
+  }
+
   @GetMapping("/products/{productId}/inventory")
   public ResponseEntity<List<InventoryDTO>> getInventory(@PathVariable Long productId) {
     List<Inventory> invs = inventoryService.getInventoriesByProduct(productId);
@@ -77,19 +91,14 @@ public class InternalProductController {
     return ResponseEntity.ok().build();
   }
 
+  /**
+   * Kiểm tra tồn kho cho nhiều dòng trong 1 query. Key của kết quả: "productId-size".
+   */
   @PostMapping("/inventory/batch-check")
   public ResponseEntity<Map<String, Boolean>> batchCheckInventory(
       @RequestBody List<InventoryCheckRequest> requests) {
 
-    Map<String, Boolean> results = new HashMap<>();
-
-    for (InventoryCheckRequest req : requests) {
-      String key = req.getProductId() + "-" + req.getSize();
-      boolean hasStock = inventoryService.checkInventoryAvailability(req);
-      results.put(key, hasStock);
-    }
-
-    return ResponseEntity.ok(results);
+    return ResponseEntity.ok(inventoryService.batchCheckAvailability(requests));
   }
 
   @PostMapping("/inventory/batch-reduce")
@@ -100,6 +109,40 @@ public class InternalProductController {
     return ResponseEntity.ok().build();
   }
 
+  /**
+   * Giữ chỗ tồn kho cho đơn hàng mới (có thời hạn). Thiếu hàng 1 item → không giữ item nào.
+   */
+  @PostMapping("/inventory/reservations")
+  public ResponseEntity<Void> reserveInventory(@RequestBody ReserveInventoryRequest request) {
+    reservationService.reserve(request);
+    return ResponseEntity.ok().build();
+  }
+
+  /**
+   * Chốt giữ chỗ khi đơn đã thanh toán / đã giao (trừ hẳn khỏi tồn kho).
+   */
+  @PostMapping("/inventory/reservations/{orderId}/commit")
+  public ResponseEntity<Integer> commitReservation(@PathVariable Long orderId) {
+    return ResponseEntity.ok(reservationService.commit(orderId));
+  }
+
+  /**
+   * Nhả giữ chỗ khi đơn bị hủy. Trả về số dòng giữ chỗ của đơn (0 = đơn cũ, chưa có giữ chỗ).
+   */
+  @PostMapping("/inventory/reservations/{orderId}/release")
+  public ResponseEntity<Integer> releaseReservation(@PathVariable Long orderId) {
+    return ResponseEntity.ok(reservationService.release(orderId));
+  }
+
+  /**
+   * Ghi nhận doanh số cho 1 lô đơn đã giao. Đơn đã ghi nhận trước đó bị bỏ qua (an toàn khi retry).
+   * Trả về số đơn được ghi nhận mới.
+   */
+  @PostMapping("/products/sales/batch")
+  public ResponseEntity<Integer> recordSales(@RequestBody List<OrderSalesRequest> requests) {
+    return ResponseEntity.ok(productSalesService.recordSales(requests));
+  }
+
   @PostMapping("/products/{productId}/increase-sold")
   public ResponseEntity<Void> increaseQuantitySold(@RequestBody InventoryCheckRequest request) {
 
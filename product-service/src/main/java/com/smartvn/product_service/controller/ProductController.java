@@ -5,6 +5,7 @@ import com.smartvn.product_service.dto.ProductDetailDTO;
 import com.smartvn.product_service.dto.ProductListingDTO;
 import com.smartvn.product_service.dto.admin.CreateProductRequest;
 import com.smartvn.product_service.dto.response.ApiResponse;
+import com.smartvn.product_service.dto.response.CursorPage;
 import com.smartvn.product_service.model.Image;
 import com.smartvn.product_service.model.Product;
 import com.smartvn.product_service.service.ImageService;
@@ -69,6 +70,37 @@ public class ProductController {
     return ResponseEntity.ok(response);
   }
 
+  /**
+   * Như getProducts nhưng phân trang bằng cursor (keyset): không có tổng số trang, trang sâu nhanh như trang đầu.
+   *
+   * @param sort   "property,direction" - property: id, createdAt, averageRating, numRatings, quantitySold
+   * @param cursor nextCursor trả về ở trang trước (bỏ trống cho trang đầu)
+   * @param size   Kích thước trang (tối đa 100)
+   *
+   *               Example: GET /api/v1/products/cursor?topLevelCategory=Laptop&sort=quantitySold,desc&size=20
+   */
+  @GetMapping("/cursor")
+  public ResponseEntity<ApiResponse<CursorPage<ProductListingDTO>>> getProductsByCursor(
+      @RequestParam(required = false) String keyword,
+      @RequestParam(required = false) String topLevelCategory,
+      @RequestParam(required = false) String secondLevelCategory,
+      @RequestParam(required = false) BigDecimal minPrice,
+      @RequestParam(required = false) BigDecimal maxPrice,
+      @RequestParam(required = false) String sort,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "20") int size) {
+
+    CursorPage<ProductListingDTO> productPage = productService.searchProductsByCursor(
+        keyword, topLevelCategory, secondLevelCategory, minPrice, maxPrice,
+        sort, cursor, Math.max(1, Math.min(size, 100)));
+
+    ApiResponse<CursorPage<ProductListingDTO>> response = ApiResponse.<CursorPage<ProductListingDTO>>builder()
+        .message("Products fetched successfully.")
+        .data(productPage)
+        .build();
+    return ResponseEntity.ok(response);
+  }
+
   @GetMapping("/{product_id}/similar")
   public ResponseEntity<ApiResponse<Page<ProductListingDTO>>> getRecommendSimilarProducts(
       @PathVariable("product_id") Long productId,
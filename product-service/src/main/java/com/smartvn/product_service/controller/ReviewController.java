@@ -2,9 +2,12 @@ package com.smartvn.product_service.controller;
 
 import com.smartvn.product_service.dto.ReviewDTO;
 import com.smartvn.product_service.dto.ReviewRequest;
+import com.smartvn.product_service.dto.ReviewSummaryDTO;
 import com.smartvn.product_service.dto.response.ApiResponse;
+import com.smartvn.product_service.dto.response.CursorPage;
 import com.smartvn.product_service.model.Review;
 import com.smartvn.product_service.service.ReviewService;
+import com.smartvn.product_service.service.ReviewSummaryService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -19,6 +22,7 @@ import org.springframework.web.bind.annotation.*;
 public class ReviewController {
 
     private final ReviewService reviewService;
+    private final ReviewSummaryService reviewSummaryService;
 
     /**
      * API để lấy danh sách đánh giá của một sản phẩm (phân trang).
@@ -37,6 +41,39 @@ public class ReviewController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * API lấy đánh giá theo cursor (mới nhất trước): gửi lại nextCursor để lấy trang kế tiếp, không đếm tổng.
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<ApiResponse<CursorPage<ReviewDTO>>> getProductReviewsByCursor(
+            @PathVariable Long productId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+
+        CursorPage<ReviewDTO> reviews = reviewService.getProductReviewsByCursor(
+                productId, cursor, Math.max(1, Math.min(size, 100)));
+
+        ApiResponse<CursorPage<ReviewDTO>> response = ApiResponse.<CursorPage<ReviewDTO>>builder()
+                .message("Reviews fetched successfully for product " + productId)
+                .data(reviews)
+                .build();
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * API tóm tắt đánh giá: điểm trung bình, số lượt theo từng mức sao và vài review mới nhất.
+     */
+    @GetMapping("/summary")
+    public ResponseEntity<ApiResponse<ReviewSummaryDTO>> getReviewSummary(@PathVariable Long productId) {
+        ReviewSummaryDTO summary = reviewSummaryService.getSummary(productId);
+
+        ApiResponse<ReviewSummaryDTO> response = ApiResponse.<ReviewSummaryDTO>builder()
+                .message("Review summary fetched successfully for product " + productId)
+                .data(summary)
+                .build();
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * API để người dùng tạo một đánh giá mới.
      * Endpoint này cần được bảo vệ (chỉ user đã đăng nhập mới được gọi).
@@ -16,6 +16,8 @@ public class InventoryDTO {
     private Long productId;
     private String size;
     private Integer quantity;
+    private Integer reservedQuantity;
+    private Integer availableQuantity;
     private BigDecimal price;
     private BigDecimal discountedPrice;
     private Integer discountPercent;
@@ -27,6 +29,8 @@ public class InventoryDTO {
         this.productId = inv.getProduct().getId();
         this.size = inv.getSize();
         this.quantity = inv.getQuantity();
+        this.reservedQuantity = inv.getReservedQuantity();
+        this.availableQuantity = inv.getAvailableQuantity();
         this.price = inv.getPrice();
         this.discountPercent = inv.getDiscountPercent();
         this.discountedPrice = inv.getDiscountedPrice();
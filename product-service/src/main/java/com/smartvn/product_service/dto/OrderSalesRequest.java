@@ -0,0 +1,18 @@
+package com.smartvn.product_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Doanh số của 1 đơn hàng đã giao: cộng quantity vào quantity_sold của từng sản phẩm (1 lần / đơn).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSalesRequest {
+    private Long orderId;
+    private List<InventoryCheckRequest> items;
+}
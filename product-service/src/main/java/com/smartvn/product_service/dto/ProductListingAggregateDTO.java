@@ -0,0 +1,48 @@
+package com.smartvn.product_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Một dòng kết quả của query listing (projection, không hydrate entity).
+ * Các giá trị giá/tồn kho/thumbnail được đọc từ bảng product_listing_summary (đã tính sẵn).
+ * Thứ tự field phải khớp với thứ tự select trong ProductListingRepositoryImpl.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductListingAggregateDTO {
+
+    private Long id;
+    private String title;
+    private String brand;
+    private Double averageRating;
+    private Integer numRatings;
+    private Long quantitySold;
+    private String thumbnailUrl;
+
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private BigDecimal minDiscountedPrice;
+    private BigDecimal maxDiscountedPrice;
+    private Long totalStock;
+    private Boolean discounted;
+    private Integer variantCount;
+    private LocalDateTime createdAt;
+
+    public boolean hasVariants() {
+        return variantCount != null && variantCount > 0;
+    }
+
+    public boolean hasDiscount() {
+        return Boolean.TRUE.equals(discounted);
+    }
+
+    public boolean inStock() {
+        return totalStock != null && totalStock > 0;
+    }
+}
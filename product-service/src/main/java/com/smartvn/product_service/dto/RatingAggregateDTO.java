@@ -0,0 +1,24 @@
+package com.smartvn.product_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Kết quả GROUP BY trên bảng reviews (projection), dùng để tính lại product_rating_stats.
+ * Thứ tự field phải khớp với constructor expression trong ReviewRepository.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RatingAggregateDTO {
+
+    private Long productId;
+    private Long ratingCount;
+    private Long ratingSum;
+    private Long star1Count;
+    private Long star2Count;
+    private Long star3Count;
+    private Long star4Count;
+    private Long star5Count;
+}
@@ -0,0 +1,28 @@
+package com.smartvn.product_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Yêu cầu giữ chỗ tồn kho cho toàn bộ item của 1 đơn hàng.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReserveInventoryRequest {
+    private Long orderId;
+    private List<InventoryCheckRequest> items;
+
+    /**
+     * Đơn chờ admin xác nhận (COD): giữ chỗ không hết hạn, chỉ kết thúc khi commit / release.
+     * Request cũ không có field này → giữ chỗ theo TTL như trước.
+     */
+    private Boolean awaitingConfirmation;
+
+    public ReserveInventoryRequest(Long orderId, List<InventoryCheckRequest> items) {
+        this(orderId, items, null);
+    }
+}
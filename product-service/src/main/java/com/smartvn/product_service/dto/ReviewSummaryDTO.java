@@ -0,0 +1,38 @@
+package com.smartvn.product_service.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tóm tắt đánh giá của 1 product cho trang chi tiết: điểm trung bình, số lượt theo từng mức sao
+ * (5 → 1) kèm tỉ lệ phần trăm, và vài review mới nhất.
+ */
+@Data
+public class ReviewSummaryDTO {
+    private Long productId;
+    private double averageRating;
+    private int totalReviews;
+    private List<StarBucket> histogram = new ArrayList<>();
+    private List<ReviewDTO> latestReviews = new ArrayList<>();
+
+    /**
+     * false khi có review mới nhất không lấy được thông tin người dùng (đang hiển thị "Anonymous User")
+     * → không cache bản tóm tắt này.
+     */
+    @JsonIgnore
+    private boolean userInfoComplete = true;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StarBucket {
+        private int stars;
+        private int count;
+        private double percent;
+    }
+}
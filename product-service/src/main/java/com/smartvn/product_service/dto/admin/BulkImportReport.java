@@ -0,0 +1,52 @@
+package com.smartvn.product_service.dto.admin;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Kết quả import sản phẩm hàng loạt: số dòng đã đọc, số dòng thành công / lỗi,
+ * lỗi theo từng dòng (index tính từ 0 theo thứ tự dòng gửi lên) và sản phẩm đã tạo.
+ * Khi import dạng stream, người nhận có thể xóa failures / created sau mỗi chunk để heap không tăng theo file;
+ * các bộ đếm vẫn giữ tổng.
+ */
+@Data
+public class BulkImportReport {
+    private int totalRows;
+    private int successCount;
+    private int failureCount;
+    private List<FailureRecord> failures = new ArrayList<>();
+    private List<CreatedRecord> created = new ArrayList<>();
+
+    public void addFailure(int index, String title, String error) {
+        failures.add(new FailureRecord(index, title, error));
+        failureCount++;
+    }
+
+    public void addCreated(int index, Long productId) {
+        created.add(new CreatedRecord(index, productId));
+        successCount++;
+    }
+
+    public List<Long> getCreatedProductIds() {
+        return created.stream().map(CreatedRecord::getProductId).collect(Collectors.toList());
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class FailureRecord {
+        private int index;
+        private String productTitle;
+        private String errorMessage;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class CreatedRecord {
+        private int index;
+        private Long productId;
+    }
+}
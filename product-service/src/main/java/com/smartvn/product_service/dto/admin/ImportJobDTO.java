@@ -0,0 +1,27 @@
+package com.smartvn.product_service.dto.admin;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Trạng thái job import trả về cho admin-service khi poll.
+ */
+@Data
+public class ImportJobDTO {
+    private Long id;
+    private String status;
+    private int totalRows;
+    private int processedRows;
+    private int successCount;
+    private int failureCount;
+    private double percentComplete;
+    private Long etaSeconds;
+    private String errorMessage;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private List<BulkImportReport.FailureRecord> failures = new ArrayList<>();
+}
@@ -0,0 +1,40 @@
+package com.smartvn.product_service.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Một trang kết quả phân trang keyset: không có totalElements/totalPages (không chạy COUNT).
+ * Gửi lại nextCursor ở request sau để lấy trang kế tiếp; hasNext = false là trang cuối.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> content;
+    private String nextCursor;
+    private boolean hasNext;
+    private int size;
+
+    /**
+     * Dựng trang từ kết quả query đã lấy dư 1 dòng (LIMIT size + 1): có dòng dư nghĩa là còn trang sau.
+     *
+     * @param rows     Tối đa size + 1 dòng theo đúng thứ tự sort.
+     * @param size     Kích thước trang.
+     * @param cursorOf Tạo cursor từ dòng cuối của trang.
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, String> cursorOf) {
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? cursorOf.apply(content.get(content.size() - 1)) : null;
+        return new CursorPage<>(content, nextCursor, hasNext, size);
+    }
+
+    public <R> CursorPage<R> map(Function<? super T, ? extends R> mapper) {
+        return new CursorPage<>(content.stream().<R>map(mapper).toList(), nextCursor, hasNext, size);
+    }
+}
@@ -0,0 +1,87 @@
+package com.smartvn.product_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Job import sản phẩm hàng loạt chạy nền. Tiến độ được cập nhật sau mỗi chunk đã commit
+ * để admin-service poll qua GET /jobs/{id}.
+ * Instance đang chạy job ghi heartbeat định kỳ; job mất heartbeat (instance chết) bị instance khác đánh FAILED.
+ */
+@Entity
+@Table(name = "import_jobs", indexes = {
+        @Index(name = "idx_import_job_status", columnList = "status, heartbeat_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportJob {
+
+    public enum Status {
+        QUEUED,     // Đã nhận, chờ worker
+        RUNNING,    // Đang import
+        COMPLETED,  // Đã chạy hết các dòng (có thể có dòng lỗi)
+        FAILED      // Dừng giữa chừng; các chunk đã ghi trước đó vẫn được giữ
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.QUEUED;
+
+    @Column(name = "total_rows", nullable = false)
+    private Integer totalRows = 0;
+
+    @Column(name = "processed_rows", nullable = false)
+    private Integer processedRows = 0;
+
+    @Column(name = "success_count", nullable = false)
+    private Integer successCount = 0;
+
+    @Column(name = "failure_count", nullable = false)
+    private Integer failureCount = 0;
+
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+
+    /**
+     * Instance đang giữ job (dữ liệu job chỉ nằm trong bộ nhớ của instance này).
+     */
+    @Column(name = "owner_id", length = 64)
+    private String ownerId;
+
+    @Column(name = "heartbeat_at")
+    private LocalDateTime heartbeatAt;
+
+    /**
+     * Worker ghi đè toàn bộ entity sau mỗi chunk → cần version để không ghi đè FAILED do instance khác đánh dấu.
+     */
+    @Version
+    @Column(nullable = false)
+    private long version;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
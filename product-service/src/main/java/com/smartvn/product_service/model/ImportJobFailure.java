@@ -0,0 +1,37 @@
+package com.smartvn.product_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Một dòng bị lỗi trong job import (index tính từ 0 theo thứ tự dòng gửi lên).
+ */
+@Entity
+@Table(name = "import_job_failures", indexes = {
+        @Index(name = "idx_import_job_failure_job", columnList = "job_id, row_index")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportJobFailure {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "job_id", nullable = false)
+    private Long jobId;
+
+    @Column(name = "row_index", nullable = false)
+    private Integer rowIndex;
+
+    @Column(name = "product_title")
+    private String productTitle;
+
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+}
@@ -6,7 +6,9 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
@@ -16,11 +18,16 @@ import java.time.LocalDateTime;
 /**
  * ✅ SINGLE STORE VERSION - Không còn store_id
  * Mỗi product có nhiều variants (size) với giá & số lượng riêng
+ * <p>
+ * quantity / reserved_quantity được đổi bằng các câu UPDATE có điều kiện (InventoryRepository);
+ * {@code @DynamicUpdate} để entity được lưu lại không ghi đè 2 cột này bằng giá trị đọc từ trước.
  */
 @Entity
+@DynamicUpdate
 @Table(name = "inventory",
         indexes = {
-                @Index(name = "idx_inventory_product", columnList = "product_id")
+                @Index(name = "idx_inventory_product", columnList = "product_id"),
+                @Index(name = "idx_inventory_discounted_price", columnList = "discounted_price, product_id")
         },
         uniqueConstraints = {
                 @UniqueConstraint(name = "uk_product_size", columnNames = {"product_id", "size"})
@@ -55,6 +62,14 @@ public class Inventory {
     @Column(nullable = false)
     private Integer quantity = 0;
 
+    /**
+     * Số lượng đang được giữ chỗ cho các đơn chưa thanh toán / chưa giao (xem InventoryReservation).
+     * Hàng giữ chỗ vẫn nằm trong kho nên chưa bị trừ khỏi quantity.
+     */
+    @ColumnDefault("0")
+    @Column(name = "reserved_quantity", nullable = false)
+    private Integer reservedQuantity = 0;
+
     /**
      * Giá gốc
      */
@@ -87,18 +102,35 @@ public class Inventory {
     @PrePersist
     @PreUpdate
     public void calculateDiscountedPrice() {
-        if (price != null && discountPercent != null && discountPercent > 0) {
+        if (price != null) {
+            this.discountedPrice = discountedPrice(price, discountPercent);
+        }
+    }
+
+    /**
+     * Giá sau khi giảm - dùng chung cho entity và câu UPDATE giá trực tiếp.
+     */
+    public static BigDecimal discountedPrice(BigDecimal price, Integer discountPercent) {
+        if (discountPercent != null && discountPercent > 0) {
             BigDecimal discount = price.multiply(BigDecimal.valueOf(discountPercent / 100.0));
-            this.discountedPrice = price.subtract(discount).setScale(0, RoundingMode.HALF_UP);
-        } else if (price != null) {
-            this.discountedPrice = price; // ✅ THÊM dòng này
+            return price.subtract(discount).setScale(0, RoundingMode.HALF_UP);
         }
+        return price; // ✅ THÊM dòng này
+    }
+
+    /**
+     * Số lượng còn bán được = tồn kho - đang giữ chỗ
+     */
+    public int getAvailableQuantity() {
+        int onHand = quantity != null ? quantity : 0;
+        int reserved = reservedQuantity != null ? reservedQuantity : 0;
+        return Math.max(onHand - reserved, 0);
     }
 
     /**
      * Kiểm tra còn hàng
      */
     public boolean isInStock() {
-        return quantity != null && quantity > 0;
+        return getAvailableQuantity() > 0;
     }
 }
\ No newline at end of file
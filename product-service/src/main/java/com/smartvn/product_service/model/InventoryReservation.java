@@ -0,0 +1,75 @@
+package com.smartvn.product_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Một dòng giữ chỗ tồn kho cho 1 item của đơn hàng (order-service).
+ * Khi HELD, số lượng được cộng vào Inventory.reservedQuantity; hết hạn (expiresAt) mà đơn chưa
+ * thanh toán / chưa giao thì bị sweeper nhả ra (EXPIRED).
+ */
+@Entity
+@Table(name = "inventory_reservation",
+        indexes = {
+                @Index(name = "idx_reservation_order", columnList = "order_id"),
+                @Index(name = "idx_reservation_status_expires", columnList = "status, expires_at")
+        },
+        uniqueConstraints = {
+                // Chặn giữ chỗ 2 lần khi order-service gửi lại RESERVE trong lúc lần đầu còn chạy
+                @UniqueConstraint(name = "uk_reservation_order_item", columnNames = {"order_id", "product_id", "size"})
+        }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryReservation {
+
+    public enum Status {
+        HELD,       // Đang giữ chỗ
+        COMMITTED,  // Đã trừ hẳn khỏi tồn kho (đã thanh toán / đã giao)
+        RELEASED,   // Đơn bị hủy, hàng đã trả lại
+        EXPIRED     // Quá hạn giữ chỗ, hàng đã được nhả cho người khác
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(length = 50)
+    private String size;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.HELD;
+
+    /**
+     * null = giữ tới khi đơn được commit / release (đơn chờ admin xác nhận), sweeper bỏ qua.
+     */
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,31 @@
+package com.smartvn.product_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Đánh dấu đơn hàng (order-service) đã được cộng vào quantity_sold.
+ * order-service gửi lại sự kiện khi retry → đơn đã có bản ghi thì bỏ qua, không cộng 2 lần.
+ */
+@Entity
+@Table(name = "order_sales_records")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSalesRecord {
+
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
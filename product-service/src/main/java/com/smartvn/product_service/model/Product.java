@@ -16,6 +16,7 @@ import java.util.List;
 @Table(name = "products", indexes = {
         @Index(name = "idx_category", columnList = "category_id"),
         @Index(name = "idx_is_active", columnList = "is_active"),
+        @Index(name = "idx_active_created", columnList = "is_active, created_at, id"),
         @Index(name = "idx_title", columnList = "title")
 })
 @Getter
@@ -122,7 +123,7 @@ public class Product {
      * Kiểm tra sản phẩm có còn hàng không (bất kỳ size nào)
      */
     public boolean hasStock() {
-        return inventories.stream().anyMatch(inv -> inv.getQuantity() > 0);
+        return inventories.stream().anyMatch(Inventory::isInStock);
     }
 
     /**
@@ -0,0 +1,64 @@
+package com.smartvn.product_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Bảng tổng hợp (denormalized) cho trang danh sách sản phẩm.
+ * Mỗi product có đúng 1 dòng, được cập nhật lại mỗi khi inventory hoặc image của product thay đổi
+ * (xem ProductListingSummaryService).
+ */
+@Entity
+@Table(name = "product_listing_summary", indexes = {
+        @Index(name = "idx_summary_min_discounted_price", columnList = "min_discounted_price"),
+        @Index(name = "idx_summary_max_discounted_price", columnList = "max_discounted_price")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductListingSummary {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "thumbnail_url", length = 500)
+    private String thumbnailUrl;
+
+    @Column(name = "min_price", precision = 19, scale = 2)
+    private BigDecimal minPrice;
+
+    @Column(name = "max_price", precision = 19, scale = 2)
+    private BigDecimal maxPrice;
+
+    @Column(name = "min_discounted_price", precision = 19, scale = 2)
+    private BigDecimal minDiscountedPrice;
+
+    @Column(name = "max_discounted_price", precision = 19, scale = 2)
+    private BigDecimal maxDiscountedPrice;
+
+    @Column(name = "total_stock", nullable = false)
+    private Long totalStock = 0L;
+
+    @Column(name = "has_discount", nullable = false)
+    private Boolean hasDiscount = false;
+
+    @Column(name = "variant_count", nullable = false)
+    private Integer variantCount = 0;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public ProductListingSummary(Long productId) {
+        this.productId = productId;
+    }
+}
@@ -0,0 +1,63 @@
+package com.smartvn.product_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Tổng hợp đánh giá của 1 product: số lượt, tổng điểm và số lượt theo từng mức sao.
+ * Được cộng / trừ nguyên tử khi review được tạo / xóa (xem ProductRatingService),
+ * ProductRatingReconciler định kỳ tính lại từ bảng reviews để sửa sai lệch.
+ */
+@Entity
+@Table(name = "product_rating_stats")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductRatingStats {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "rating_count", nullable = false)
+    private Integer ratingCount = 0;
+
+    @Column(name = "rating_sum", nullable = false)
+    private Long ratingSum = 0L;
+
+    @Column(name = "star1_count", nullable = false)
+    private Integer star1Count = 0;
+
+    @Column(name = "star2_count", nullable = false)
+    private Integer star2Count = 0;
+
+    @Column(name = "star3_count", nullable = false)
+    private Integer star3Count = 0;
+
+    @Column(name = "star4_count", nullable = false)
+    private Integer star4Count = 0;
+
+    @Column(name = "star5_count", nullable = false)
+    private Integer star5Count = 0;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    /**
+     * Điểm trung bình làm tròn 1 chữ số thập phân (0 nếu chưa có đánh giá).
+     */
+    public double getAverageRating() {
+        if (ratingCount == null || ratingCount == 0) {
+            return 0.0;
+        }
+        return Math.round(ratingSum * 10.0 / ratingCount) / 10.0;
+    }
+}
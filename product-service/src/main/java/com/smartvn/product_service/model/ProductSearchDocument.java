@@ -0,0 +1,38 @@
+package com.smartvn.product_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Document full-text của một sản phẩm (title, brand, description, category) đã bỏ dấu.
+ * Cột search_text có FULLTEXT index (tạo bởi ProductSearchIndexService lúc khởi động).
+ */
+@Entity
+@Table(name = "product_search_index")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSearchDocument {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "search_text", columnDefinition = "TEXT", nullable = false)
+    private String searchText;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public ProductSearchDocument(Long productId) {
+        this.productId = productId;
+    }
+}
@@ -20,6 +20,7 @@ import java.time.LocalDateTime;
                 )
         }, indexes = {
         @Index(name = "idx_product", columnList = "product_id"),
+        @Index(name = "idx_product_created", columnList = "product_id, created_at, id"),
         @Index(name = "idx_user", columnList = "user_id"),
         @Index(name = "idx_status", columnList = "status")
 })
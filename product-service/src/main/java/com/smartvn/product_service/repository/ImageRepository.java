@@ -4,7 +4,9 @@ import com.smartvn.product_service.model.Image;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ImageRepository extends JpaRepository<Image, Long> {
@@ -16,4 +18,20 @@ public interface ImageRepository extends JpaRepository<Image, Long> {
      * @return List các Image.
      */
     List<Image> findByProductId(Long productId);
-}
\ No newline at end of file
+
+    /**
+     * Lấy ảnh đầu tiên (id nhỏ nhất) của sản phẩm, dùng làm thumbnail.
+     *
+     * @param productId ID của sản phẩm.
+     * @return Optional chứa Image nếu sản phẩm có ảnh.
+     */
+    Optional<Image> findFirstByProductIdOrderByIdAsc(Long productId);
+
+    /**
+     * Lấy hình ảnh của nhiều sản phẩm trong 1 query (theo thứ tự id).
+     *
+     * @param productIds Danh sách ID sản phẩm.
+     * @return List các Image.
+     */
+    List<Image> findByProductIdInOrderByIdAsc(Collection<Long> productIds);
+}
@@ -0,0 +1,14 @@
+package com.smartvn.product_service.repository;
+
+import com.smartvn.product_service.model.ImportJobFailure;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ImportJobFailureRepository extends JpaRepository<ImportJobFailure, Long> {
+
+    List<ImportJobFailure> findByJobIdOrderByRowIndexAsc(Long jobId, Pageable pageable);
+}
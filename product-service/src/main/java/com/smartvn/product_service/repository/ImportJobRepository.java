@@ -0,0 +1,37 @@
+package com.smartvn.product_service.repository;
+
+import com.smartvn.product_service.model.ImportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+@Repository
+public interface ImportJobRepository extends JpaRepository<ImportJob, Long> {
+
+    /**
+     * Đánh dấu FAILED các job chưa xong mà instance giữ job đã ngừng heartbeat (dữ liệu job chỉ nằm trong bộ nhớ
+     * của instance đó nên không chạy tiếp được). Tăng version để worker nào còn sống không ghi đè được.
+     */
+    @Modifying
+    @Query("UPDATE ImportJob j SET j.status = com.smartvn.product_service.model.ImportJob.Status.FAILED, " +
+            "j.errorMessage = :reason, j.finishedAt = :now, j.updatedAt = :now, j.version = j.version + 1 " +
+            "WHERE j.status IN :statuses AND (j.heartbeatAt IS NULL OR j.heartbeatAt < :staleBefore)")
+    int failStale(@Param("statuses") Collection<ImportJob.Status> statuses,
+                  @Param("staleBefore") LocalDateTime staleBefore,
+                  @Param("reason") String reason,
+                  @Param("now") LocalDateTime now);
+
+    /**
+     * Heartbeat cho các job instance này đang giữ. Không tăng version: chỉ chạm cột heartbeat_at.
+     */
+    @Modifying
+    @Query("UPDATE ImportJob j SET j.heartbeatAt = :now WHERE j.id IN :ids AND j.ownerId = :ownerId")
+    int touchHeartbeat(@Param("ids") Collection<Long> ids,
+                       @Param("ownerId") String ownerId,
+                       @Param("now") LocalDateTime now);
+}
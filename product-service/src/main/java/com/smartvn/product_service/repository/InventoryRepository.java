@@ -2,10 +2,13 @@ package com.smartvn.product_service.repository;
 
 import com.smartvn.product_service.model.Inventory;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,14 +20,115 @@ public interface InventoryRepository extends JpaRepository<Inventory, Long> {
 
     List<Inventory> findByProductId(Long productId);
 
+    /**
+     * Lấy tất cả variant của nhiều sản phẩm trong 1 query (dùng cho batch-check tồn kho).
+     */
+    @Query("SELECT i FROM Inventory i WHERE i.product.id IN :productIds")
+    List<Inventory> findAllByProductIdIn(@Param("productIds") Collection<Long> productIds);
+
     Optional<Inventory> findByProductIdAndSize(Long productId, String size);
 
     /**
      * Kiểm tra sản phẩm có còn hàng không (bất kỳ size nào)
      */
     @Query("SELECT CASE WHEN COUNT(i) > 0 THEN true ELSE false END " +
-            "FROM Inventory i WHERE i.product.id = :productId AND i.quantity > 0")
+            "FROM Inventory i WHERE i.product.id = :productId AND i.quantity > i.reservedQuantity")
     boolean hasStock(@Param("productId") Long productId);
 
     long countByProductId(Long productId);
-}
\ No newline at end of file
+
+    boolean existsByProductIdAndSize(Long productId, String size);
+
+    /**
+     * Trừ kho nguyên tử: chỉ trừ khi còn đủ hàng chưa bị giữ chỗ (điều kiện nằm trong chính câu UPDATE,
+     * nên 2 request đồng thời không thể cùng trừ vượt tồn kho).
+     *
+     * @return Số dòng bị ảnh hưởng: 1 nếu trừ thành công, 0 nếu không đủ hàng hoặc không tồn tại.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Inventory i SET i.quantity = i.quantity - :quantity, i.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE i.product.id = :productId AND (i.size = :size OR (:size IS NULL AND i.size IS NULL)) " +
+            "AND i.quantity - i.reservedQuantity >= :quantity")
+    int reserveStock(@Param("productId") Long productId,
+                     @Param("size") String size,
+                     @Param("quantity") Integer quantity);
+
+    /**
+     * Cộng lại kho nguyên tử (hủy đơn / rollback).
+     *
+     * @return Số dòng bị ảnh hưởng: 0 nếu inventory không tồn tại.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Inventory i SET i.quantity = i.quantity + :quantity, i.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE i.product.id = :productId AND (i.size = :size OR (:size IS NULL AND i.size IS NULL))")
+    int releaseStock(@Param("productId") Long productId,
+                     @Param("size") String size,
+                     @Param("quantity") Integer quantity);
+
+    /**
+     * Giữ chỗ nguyên tử: tăng reserved_quantity nếu phần còn bán được (quantity - reserved) đủ.
+     *
+     * @return 1 nếu giữ chỗ thành công, 0 nếu không đủ hàng hoặc không tồn tại.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Inventory i SET i.reservedQuantity = i.reservedQuantity + :quantity, i.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE i.product.id = :productId AND (i.size = :size OR (:size IS NULL AND i.size IS NULL)) " +
+            "AND i.quantity - i.reservedQuantity >= :quantity")
+    int holdStock(@Param("productId") Long productId,
+                  @Param("size") String size,
+                  @Param("quantity") Integer quantity);
+
+    /**
+     * Bỏ giữ chỗ (hết hạn / hủy đơn): hàng quay lại trạng thái bán được.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Inventory i SET i.reservedQuantity = i.reservedQuantity - :quantity, i.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE i.product.id = :productId AND (i.size = :size OR (:size IS NULL AND i.size IS NULL)) " +
+            "AND i.reservedQuantity >= :quantity")
+    int releaseHold(@Param("productId") Long productId,
+                    @Param("size") String size,
+                    @Param("quantity") Integer quantity);
+
+    /**
+     * Chốt giữ chỗ (đã thanh toán / đã giao): trừ hẳn khỏi tồn kho và khỏi phần đang giữ.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Inventory i SET i.quantity = i.quantity - :quantity, " +
+            "i.reservedQuantity = i.reservedQuantity - :quantity, i.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE i.product.id = :productId AND (i.size = :size OR (:size IS NULL AND i.size IS NULL)) " +
+            "AND i.reservedQuantity >= :quantity AND i.quantity >= :quantity")
+    int commitHold(@Param("productId") Long productId,
+                   @Param("size") String size,
+                   @Param("quantity") Integer quantity);
+
+    /**
+     * Trừ hẳn tồn kho theo id cho SKU nóng (HotSkuStockService): phần giữ chỗ của SKU nóng được quản lý
+     * trong bộ nhớ nên chỉ kiểm tra quantity.
+     *
+     * @return 1 nếu trừ thành công, 0 nếu không đủ hoặc không tồn tại.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Inventory i SET i.quantity = i.quantity - :quantity, i.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE i.id = :id AND i.quantity >= :quantity")
+    int deductQuantity(@Param("id") Long id, @Param("quantity") Integer quantity);
+
+    // ============================================
+    // SỬA TỪ ADMIN: chỉ ghi đúng cột được sửa, không đụng reserved_quantity
+    // ============================================
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Inventory i SET i.quantity = :quantity, i.updatedAt = CURRENT_TIMESTAMP WHERE i.id = :id")
+    int updateQuantity(@Param("id") Long id, @Param("quantity") Integer quantity);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Inventory i SET i.price = :price, i.discountPercent = :discountPercent, " +
+            "i.discountedPrice = :discountedPrice, i.updatedAt = CURRENT_TIMESTAMP WHERE i.id = :id")
+    int updatePrice(@Param("id") Long id,
+                    @Param("price") BigDecimal price,
+                    @Param("discountPercent") Integer discountPercent,
+                    @Param("discountedPrice") BigDecimal discountedPrice);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Inventory i SET i.size = :size, i.updatedAt = CURRENT_TIMESTAMP WHERE i.id = :id")
+    int updateSize(@Param("id") Long id, @Param("size") String size);
+}
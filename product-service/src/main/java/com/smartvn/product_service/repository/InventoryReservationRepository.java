@@ -0,0 +1,49 @@
+package com.smartvn.product_service.repository;
+
+import com.smartvn.product_service.model.InventoryReservation;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface InventoryReservationRepository extends JpaRepository<InventoryReservation, Long> {
+
+    List<InventoryReservation> findByOrderIdOrderByProductIdAscSizeAsc(Long orderId);
+
+    boolean existsByOrderId(Long orderId);
+
+    /**
+     * Các dòng HELD đã quá hạn, sắp theo (productId, size) để khóa row inventory theo cùng thứ tự.
+     */
+    @Query("SELECT r FROM InventoryReservation r " +
+            "WHERE r.status = com.smartvn.product_service.model.InventoryReservation.Status.HELD " +
+            "AND r.expiresAt < :now ORDER BY r.productId, r.size")
+    List<InventoryReservation> findExpiredHolds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Tổng số lượng đang giữ chỗ (HELD) của 1 variant - dùng để đối soát reserved_quantity.
+     */
+    @Query("SELECT CAST(COALESCE(SUM(r.quantity), 0) AS int) FROM InventoryReservation r " +
+            "WHERE r.status = com.smartvn.product_service.model.InventoryReservation.Status.HELD " +
+            "AND r.productId = :productId AND (r.size = :size OR (:size IS NULL AND r.size IS NULL))")
+    int sumHeldQuantity(@Param("productId") Long productId, @Param("size") String size);
+
+    /**
+     * Chuyển trạng thái có điều kiện: chỉ 1 trong các luồng đồng thời (commit / release / sweeper)
+     * chuyển được một dòng ra khỏi trạng thái hiện tại, nên số lượng không bị cộng/trừ 2 lần.
+     *
+     * @return 1 nếu chuyển thành công, 0 nếu dòng đã ở trạng thái khác.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE InventoryReservation r SET r.status = :to, r.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE r.id = :id AND r.status = :from")
+    int transition(@Param("id") Long id,
+                   @Param("from") InventoryReservation.Status from,
+                   @Param("to") InventoryReservation.Status to);
+}
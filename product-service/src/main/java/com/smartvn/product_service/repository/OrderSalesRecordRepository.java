@@ -0,0 +1,20 @@
+package com.smartvn.product_service.repository;
+
+import com.smartvn.product_service.model.OrderSalesRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OrderSalesRecordRepository extends JpaRepository<OrderSalesRecord, Long> {
+
+    /**
+     * Trong các orderId cho trước, những đơn đã được ghi nhận doanh số.
+     */
+    @Query("SELECT r.orderId FROM OrderSalesRecord r WHERE r.orderId IN :orderIds")
+    List<Long> findRecordedOrderIds(@Param("orderIds") Collection<Long> orderIds);
+}
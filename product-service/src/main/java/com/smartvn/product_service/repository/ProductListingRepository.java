@@ -0,0 +1,53 @@
+package com.smartvn.product_service.repository;
+
+import com.smartvn.product_service.dto.ProductListingAggregateDTO;
+import com.smartvn.product_service.model.Product;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Fragment repository cho trang danh sách sản phẩm.
+ * Trả về projection đã tổng hợp sẵn giá/tồn kho thay vì entity Product.
+ */
+public interface ProductListingRepository {
+
+    /**
+     * Lấy một trang listing theo Specification.
+     *
+     * @param spec     Điều kiện lọc trên Product (có thể null).
+     * @param pageable Thông tin phân trang và sắp xếp (theo thuộc tính của Product).
+     * @return Page các dòng listing đã tổng hợp.
+     */
+    Page<ProductListingAggregateDTO> findListing(Specification<Product> spec, Pageable pageable);
+
+    /**
+     * Như findListing, nhưng khi pageable không chỉ định sort thì sắp xếp theo độ liên quan
+     * (điểm MATCH ... AGAINST) với keyword. Spec phải tự chứa điều kiện lọc keyword.
+     *
+     * @param spec     Điều kiện lọc trên Product (có thể null).
+     * @param keyword  Keyword người dùng nhập (chưa chuẩn hóa).
+     * @param pageable Thông tin phân trang và sắp xếp.
+     * @return Page các dòng listing.
+     */
+    Page<ProductListingAggregateDTO> findListingByRelevance(Specification<Product> spec, String keyword, Pageable pageable);
+
+    /**
+     * Phân trang keyset: lấy các dòng đứng sau (afterValue, afterId) theo thứ tự (sort, id) cùng chiều,
+     * dùng WHERE thay cho OFFSET và không chạy COUNT.
+     *
+     * @param spec       Điều kiện lọc trên Product (có thể null).
+     * @param sort       Cột sắp xếp.
+     * @param direction  Chiều sắp xếp (áp dụng cho cả cột sort và id).
+     * @param afterValue Giá trị cột sort của dòng cuối trang trước (null = trang đầu).
+     * @param afterId    Id của dòng cuối trang trước (null = trang đầu).
+     * @param limit      Số dòng tối đa.
+     * @return Các dòng listing theo thứ tự.
+     */
+    List<ProductListingAggregateDTO> findListingAfter(Specification<Product> spec, ProductListingSort sort,
+                                                     Sort.Direction direction, Comparable<?> afterValue,
+                                                     Long afterId, int limit);
+}
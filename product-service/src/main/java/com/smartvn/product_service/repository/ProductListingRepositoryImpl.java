@@ -0,0 +1,171 @@
+package com.smartvn.product_service.repository;
+
+import com.smartvn.product_service.config.FullTextFunctionContributor;
+import com.smartvn.product_service.dto.ProductListingAggregateDTO;
+import com.smartvn.product_service.model.Product;
+import com.smartvn.product_service.model.ProductListingSummary;
+import com.smartvn.product_service.model.ProductSearchDocument;
+import com.smartvn.product_service.util.SearchTextUtils;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.query.criteria.JpaEntityJoin;
+import org.hibernate.query.criteria.JpaRoot;
+import org.hibernate.query.sqm.tree.SqmJoinType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementation của ProductListingRepository bằng Criteria API.
+ * Mỗi trang chỉ tốn 1 query lấy dữ liệu (Product LEFT JOIN product_listing_summary) + 1 query COUNT;
+ * biến thể keyset (findListingAfter) chỉ có query dữ liệu.
+ */
+public class ProductListingRepositoryImpl implements ProductListingRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<ProductListingAggregateDTO> findListing(Specification<Product> spec, Pageable pageable) {
+        return findListing(spec, null, pageable);
+    }
+
+    @Override
+    public Page<ProductListingAggregateDTO> findListingByRelevance(Specification<Product> spec, String keyword, Pageable pageable) {
+        return findListing(spec, SearchTextUtils.toBooleanQuery(SearchTextUtils.tokenize(keyword)), pageable);
+    }
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public List<ProductListingAggregateDTO> findListingAfter(Specification<Product> spec, ProductListingSort sort,
+                                                            Sort.Direction direction, Comparable<?> afterValue,
+                                                            Long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductListingAggregateDTO> query = cb.createQuery(ProductListingAggregateDTO.class);
+        Root<Product> root = selectListing(cb, query);
+
+        List<Predicate> predicates = new ArrayList<>();
+        Predicate predicate = spec != null ? spec.toPredicate(root, query, cb) : null;
+        if (predicate != null) {
+            predicates.add(predicate);
+        }
+
+        Expression<Comparable> column = root.get(sort.getProperty());
+        Expression<Long> id = root.get("id");
+        if (afterId != null && sort == ProductListingSort.ID) {
+            predicates.add(direction.isDescending() ? cb.lessThan(id, afterId) : cb.greaterThan(id, afterId));
+        } else if (afterValue != null && afterId != null) {
+            // (col, id) < (:value, :id) với DESC, > với ASC - viết tách ra để MySQL dùng được range scan
+            Comparable value = afterValue;
+            predicates.add(direction.isDescending()
+                    ? cb.or(cb.lessThan(column, value),
+                            cb.and(cb.equal(column, value), cb.lessThan(id, afterId)))
+                    : cb.or(cb.greaterThan(column, value),
+                            cb.and(cb.equal(column, value), cb.greaterThan(id, afterId))));
+        }
+        query.where(predicates.toArray(new Predicate[0]));
+
+        if (sort == ProductListingSort.ID) {
+            query.orderBy(order(cb, id, direction));
+        } else {
+            query.orderBy(order(cb, column, direction), order(cb, id, direction));
+        }
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    private Page<ProductListingAggregateDTO> findListing(Specification<Product> spec, String relevanceQuery, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductListingAggregateDTO> query = cb.createQuery(ProductListingAggregateDTO.class);
+        Root<Product> root = selectListing(cb, query);
+
+        Predicate predicate = spec != null ? spec.toPredicate(root, query, cb) : null;
+        if (predicate != null) {
+            query.where(predicate);
+        }
+
+        if (pageable.getSort().isSorted()) {
+            query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+        } else if (relevanceQuery != null) {
+            // Sắp xếp theo điểm relevance của FULLTEXT, hòa điểm thì theo id
+            JpaEntityJoin<ProductSearchDocument> document =
+                    ((JpaRoot<Product>) root).join(ProductSearchDocument.class, SqmJoinType.LEFT);
+            document.on(cb.equal(document.get("productId"), root.get("id")));
+            query.orderBy(
+                    cb.desc(cb.function(FullTextFunctionContributor.MATCH_AGAINST, Double.class,
+                            document.get("searchText"), cb.literal(relevanceQuery))),
+                    cb.asc(root.get("id")));
+        }
+
+        TypedQuery<ProductListingAggregateDTO> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+
+        List<ProductListingAggregateDTO> content = typedQuery.getResultList();
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(spec));
+    }
+
+    /**
+     * FROM Product LEFT JOIN ProductListingSummary + SELECT projection listing.
+     */
+    private Root<Product> selectListing(CriteriaBuilder cb, CriteriaQuery<ProductListingAggregateDTO> query) {
+        Root<Product> root = query.from(Product.class);
+
+        // 1 dòng summary / product (đã tính sẵn) → không cần join inventories/images, không GROUP BY
+        JpaEntityJoin<ProductListingSummary> summary =
+                ((JpaRoot<Product>) root).join(ProductListingSummary.class, SqmJoinType.LEFT);
+        summary.on(cb.equal(summary.get("productId"), root.get("id")));
+
+        query.select(cb.construct(ProductListingAggregateDTO.class,
+                root.get("id"),
+                root.get("title"),
+                root.get("brand"),
+                root.get("averageRating"),
+                root.get("numRatings"),
+                root.get("quantitySold"),
+                summary.get("thumbnailUrl"),
+                summary.get("minPrice"),
+                summary.get("maxPrice"),
+                summary.get("minDiscountedPrice"),
+                summary.get("maxDiscountedPrice"),
+                summary.get("totalStock"),
+                summary.get("hasDiscount"),
+                summary.get("variantCount"),
+                root.get("createdAt")));
+        return root;
+    }
+
+    private Order order(CriteriaBuilder cb, Expression<?> expression, Sort.Direction direction) {
+        return direction.isDescending() ? cb.desc(expression) : cb.asc(expression);
+    }
+
+    private long count(Specification<Product> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Product> root = query.from(Product.class);
+        query.select(cb.count(root));
+
+        Predicate predicate = spec != null ? spec.toPredicate(root, query, cb) : null;
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
@@ -0,0 +1,53 @@
+package com.smartvn.product_service.repository;
+
+import com.smartvn.product_service.dto.ProductListingAggregateDTO;
+import com.smartvn.product_service.exceptions.AppException;
+import org.springframework.http.HttpStatus;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Các cột được phép sort khi phân trang keyset trang listing.
+ * Mỗi cột đều NOT NULL nên điều kiện seek (col, id) không phải xử lý null.
+ */
+public enum ProductListingSort {
+    ID("id", ProductListingAggregateDTO::getId, Long::valueOf),
+    CREATED_AT("createdAt", ProductListingAggregateDTO::getCreatedAt, LocalDateTime::parse),
+    AVERAGE_RATING("averageRating", ProductListingAggregateDTO::getAverageRating, Double::valueOf),
+    NUM_RATINGS("numRatings", ProductListingAggregateDTO::getNumRatings, Integer::valueOf),
+    QUANTITY_SOLD("quantitySold", ProductListingAggregateDTO::getQuantitySold, Long::valueOf);
+
+    private final String property;
+    private final Function<ProductListingAggregateDTO, Comparable<?>> extractor;
+    private final Function<String, Comparable<?>> parser;
+
+    ProductListingSort(String property,
+                       Function<ProductListingAggregateDTO, Comparable<?>> extractor,
+                       Function<String, Comparable<?>> parser) {
+        this.property = property;
+        this.extractor = extractor;
+        this.parser = parser;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public Comparable<?> valueOf(ProductListingAggregateDTO row) {
+        return extractor.apply(row);
+    }
+
+    public Comparable<?> parse(String value) {
+        return parser.apply(value);
+    }
+
+    public static ProductListingSort fromProperty(String property) {
+        return Arrays.stream(values())
+                .filter(s -> s.property.equals(property))
+                .findFirst()
+                .orElseThrow(() -> new AppException("Unsupported sort property for cursor paging: " + property,
+                        HttpStatus.BAD_REQUEST));
+    }
+}
@@ -0,0 +1,19 @@
+package com.smartvn.product_service.repository;
+
+import com.smartvn.product_service.model.ProductListingSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ProductListingSummaryRepository extends JpaRepository<ProductListingSummary, Long> {
+
+    /**
+     * Lấy ID các sản phẩm chưa có dòng tổng hợp (dữ liệu cũ hoặc import trực tiếp vào DB).
+     */
+    @Query("SELECT p.id FROM Product p WHERE NOT EXISTS " +
+            "(SELECT s.productId FROM ProductListingSummary s WHERE s.productId = p.id)")
+    List<Long> findProductIdsWithoutSummary();
+}
@@ -0,0 +1,34 @@
+package com.smartvn.product_service.repository;
+
+import com.smartvn.product_service.model.ProductRatingStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ProductRatingStatsRepository extends JpaRepository<ProductRatingStats, Long> {
+
+    /**
+     * Cộng (delta = 1) hoặc trừ (delta = -1) một lượt đánh giá {@code rating} sao bằng 1 câu UPDATE,
+     * không phải đọc lại toàn bộ review của product.
+     *
+     * @return 0 nếu product chưa có dòng thống kê.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE ProductRatingStats s SET " +
+            "s.ratingCount = s.ratingCount + :delta, " +
+            "s.ratingSum = s.ratingSum + :sumDelta, " +
+            "s.star1Count = s.star1Count + (CASE WHEN :rating = 1 THEN :delta ELSE 0 END), " +
+            "s.star2Count = s.star2Count + (CASE WHEN :rating = 2 THEN :delta ELSE 0 END), " +
+            "s.star3Count = s.star3Count + (CASE WHEN :rating = 3 THEN :delta ELSE 0 END), " +
+            "s.star4Count = s.star4Count + (CASE WHEN :rating = 4 THEN :delta ELSE 0 END), " +
+            "s.star5Count = s.star5Count + (CASE WHEN :rating = 5 THEN :delta ELSE 0 END), " +
+            "s.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE s.productId = :productId")
+    int applyRating(@Param("productId") Long productId,
+                    @Param("rating") int rating,
+                    @Param("delta") int delta,
+                    @Param("sumDelta") long sumDelta);
+}
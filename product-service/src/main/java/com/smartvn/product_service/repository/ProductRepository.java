@@ -1,5 +1,6 @@
 package com.smartvn.product_service.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -8,14 +9,18 @@ import com.smartvn.product_service.model.Product;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>,
+    ProductListingRepository {
 
   Optional<Product> findByIdAndIsActiveTrue(Long id);
 
@@ -50,6 +55,41 @@ public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpec
       "JOIN p.category c")
   List<ProductMetadataDTO> findAllProductMetadata();
 
+  /**
+   * Lấy nhiều product kèm inventories trong 1 query (fetch join), tránh N+1 do inventories EAGER.
+   */
+  @Query("SELECT DISTINCT p FROM Product p LEFT JOIN FETCH p.inventories WHERE p.id IN :ids")
+  List<Product> findAllWithInventoriesByIdIn(@Param("ids") Collection<Long> ids);
+
+  /**
+   * Chỉ lấy cặp (title, brand) của toàn bộ catalogue - dùng để kiểm tra trùng khi import hàng loạt.
+   */
+  @Query("SELECT p.title, p.brand FROM Product p")
+  List<Object[]> findAllTitleBrandPairs();
+
+  /**
+   * Khóa dòng product (SELECT ... FOR UPDATE) - dùng khi khởi tạo dòng thống kê đánh giá lần đầu.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("SELECT p FROM Product p WHERE p.id = :id")
+  Optional<Product> findByIdForUpdate(@Param("id") Long id);
+
+  /**
+   * Cộng dồn doanh số bằng 1 câu UPDATE (không đọc-sửa-ghi entity).
+   */
+  @Modifying(flushAutomatically = true)
+  @Query("UPDATE Product p SET p.quantitySold = p.quantitySold + :delta WHERE p.id = :id")
+  int increaseQuantitySold(@Param("id") Long id, @Param("delta") long delta);
+
+  /**
+   * Ghi số lượt / điểm đánh giá (lấy từ product_rating_stats) mà không cần load entity.
+   */
+  @Modifying(flushAutomatically = true)
+  @Query("UPDATE Product p SET p.numRatings = :numRatings, p.averageRating = :averageRating WHERE p.id = :id")
+  int updateRating(@Param("id") Long id,
+                   @Param("numRatings") int numRatings,
+                   @Param("averageRating") double averageRating);
+
   @Query("select p from Product p where p.id in :ids")
   Page<Product> findByIds(@Param("ids") List<Long> ids, Pageable pageable);
 
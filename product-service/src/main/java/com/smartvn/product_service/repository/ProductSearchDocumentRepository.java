@@ -0,0 +1,19 @@
+package com.smartvn.product_service.repository;
+
+import com.smartvn.product_service.model.ProductSearchDocument;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ProductSearchDocumentRepository extends JpaRepository<ProductSearchDocument, Long> {
+
+    /**
+     * Lấy ID các sản phẩm chưa được index (dữ liệu có từ trước khi có bảng này).
+     */
+    @Query("SELECT p.id FROM Product p WHERE NOT EXISTS " +
+            "(SELECT d.productId FROM ProductSearchDocument d WHERE d.productId = p.id)")
+    List<Long> findProductIdsWithoutDocument();
+}
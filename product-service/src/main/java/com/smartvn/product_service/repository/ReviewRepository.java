@@ -1,12 +1,17 @@
 package com.smartvn.product_service.repository;
 
+import com.smartvn.product_service.dto.RatingAggregateDTO;
 import com.smartvn.product_service.model.Review;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,6 +27,23 @@ public interface ReviewRepository extends JpaRepository<Review, Long>, JpaSpecif
      */
     Page<Review> findByProductId(Long productId, Pageable pageable);
 
+    /**
+     * Trang đầu của phân trang keyset review theo (createdAt DESC, id DESC).
+     */
+    @Query("SELECT r FROM Review r WHERE r.product.id = :productId ORDER BY r.createdAt DESC, r.id DESC")
+    List<Review> findLatestByProductId(@Param("productId") Long productId, Limit limit);
+
+    /**
+     * Các trang sau: review đứng sau (createdAt, id) của dòng cuối trang trước, không OFFSET / COUNT.
+     */
+    @Query("SELECT r FROM Review r WHERE r.product.id = :productId " +
+            "AND (r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id)) " +
+            "ORDER BY r.createdAt DESC, r.id DESC")
+    List<Review> findByProductIdBefore(@Param("productId") Long productId,
+                                       @Param("createdAt") LocalDateTime createdAt,
+                                       @Param("id") Long id,
+                                       Limit limit);
+
     /**
      * Lấy tất cả các đánh giá của một sản phẩm (không phân trang).
      * Dùng cho các tác vụ quản trị.
@@ -32,4 +54,30 @@ public interface ReviewRepository extends JpaRepository<Review, Long>, JpaSpecif
     List<Review> findAllByProductId(Long productId);
 
     Optional<Review> findByProductIdAndUserId(Long productId, Long userId);
-}
\ No newline at end of file
+
+    /**
+     * Tổng hợp đánh giá của 1 product bằng 1 câu aggregate (null nếu product chưa có review).
+     */
+    @Query("SELECT new com.smartvn.product_service.dto.RatingAggregateDTO(" +
+            "r.product.id, COUNT(r), SUM(r.rating), " +
+            "SUM(CASE WHEN r.rating = 1 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN r.rating = 2 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN r.rating = 3 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN r.rating = 4 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN r.rating = 5 THEN 1 ELSE 0 END)) " +
+            "FROM Review r WHERE r.product.id = :productId GROUP BY r.product.id")
+    Optional<RatingAggregateDTO> aggregateRatings(@Param("productId") Long productId);
+
+    /**
+     * Tổng hợp đánh giá của mọi product có review - dùng cho job đối soát.
+     */
+    @Query("SELECT new com.smartvn.product_service.dto.RatingAggregateDTO(" +
+            "r.product.id, COUNT(r), SUM(r.rating), " +
+            "SUM(CASE WHEN r.rating = 1 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN r.rating = 2 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN r.rating = 3 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN r.rating = 4 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN r.rating = 5 THEN 1 ELSE 0 END)) " +
+            "FROM Review r GROUP BY r.product.id")
+    List<RatingAggregateDTO> aggregateRatingsByProduct();
+}
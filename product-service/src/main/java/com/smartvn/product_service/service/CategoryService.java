@@ -5,11 +5,18 @@ import com.smartvn.product_service.model.Category;
 import com.smartvn.product_service.repository.CategoryRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -17,6 +24,11 @@ import java.util.List;
 public class CategoryService {
 
     private final CategoryRepository categoryRepository;
+    private final CategoryTreeCache categoryTreeCache;
+    private final PlatformTransactionManager transactionManager;
+
+    private record CategoryKey(Long id, String name, Integer level, Long parentId) {
+    }
 
     /**
      * Tạo một danh mục mới.
@@ -54,7 +66,85 @@ public class CategoryService {
         }
 
         log.info("Creating new category: {}", newCategory.getName());
-        return categoryRepository.save(newCategory);
+        Category saved = categoryRepository.save(newCategory);
+        categoryTreeCache.refreshAfterCommit();
+        return saved;
+    }
+
+    /**
+     * Tìm hoặc tạo danh mục theo tên (không phân biệt hoa thường) mà không cần khóa.
+     * Tra cây danh mục trong bộ nhớ trước; chưa có thì INSERT trong transaction riêng và dựa vào
+     * unique constraint của cột name: thread / instance khác tạo trước → bắt lỗi trùng và đọc lại bản đã commit.
+     *
+     * @param name     Tên danh mục.
+     * @param level    1 = danh mục cha, 2 = danh mục con.
+     * @param parentId ID danh mục cha (bắt buộc với level 2).
+     * @return ID danh mục.
+     */
+    public Long getOrCreateCategoryId(String name, int level, Long parentId) {
+        String trimmed = name.trim();
+        if (trimmed.isEmpty() || trimmed.length() > 50) {
+            throw new AppException("Category name must be between 1 and 50 characters", HttpStatus.BAD_REQUEST);
+        }
+
+        CategoryTreeCache.Node node = categoryTreeCache.findByName(trimmed);
+        CategoryKey category = node != null
+                ? new CategoryKey(node.id(), node.name(), node.level(), node.parentId())
+                : insertIfAbsent(trimmed, level, parentId);
+
+        if (!Objects.equals(category.level(), level)) {
+            throw new AppException(
+                    "Category '" + category.name() + "' exists at level " + category.level(),
+                    HttpStatus.CONFLICT);
+        }
+        if (level == 2 && !Objects.equals(category.parentId(), parentId)) {
+            throw new AppException(
+                    "Category '" + category.name() + "' already belongs to another parent category",
+                    HttpStatus.CONFLICT);
+        }
+        return category.id();
+    }
+
+    private CategoryKey insertIfAbsent(String name, int level, Long parentId) {
+        // Transaction riêng: lỗi trùng tên không làm hỏng transaction của người gọi,
+        // và bản ghi được commit ngay cho các request khác thấy
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        try {
+            return tx.execute(status -> {
+                Category category = new Category();
+                category.setName(capitalize(name));
+                category.setLevel(level);
+                category.setIsParent(level == 1);
+                if (parentId != null) {
+                    category.setParentCategory(categoryRepository.getReferenceById(parentId));
+                }
+                Category saved = categoryRepository.saveAndFlush(category);
+                categoryTreeCache.refreshAfterCommit();
+                log.info("Created new category: {} (level {})", saved.getName(), level);
+                return new CategoryKey(saved.getId(), saved.getName(), level, parentId);
+            });
+        } catch (DataIntegrityViolationException e) {
+            CategoryKey concurrent = tx.execute(status -> categoryRepository.findByNameIgnoreCase(name)
+                    .map(c -> new CategoryKey(c.getId(), c.getName(), c.getLevel(),
+                            c.getParentCategory() != null ? c.getParentCategory().getId() : null))
+                    .orElse(null));
+            if (concurrent == null) {
+                throw e;
+            }
+            log.debug("Category '{}' was created concurrently, reusing id {}", name, concurrent.id());
+            return concurrent;
+        }
+    }
+
+    /**
+     * ✅ CAPITALIZE tên category (google pixel → Google Pixel)
+     */
+    private String capitalize(String str) {
+        return Arrays.stream(str.trim().split("\\s+"))
+                .map(word -> word.substring(0, 1).toUpperCase() + word.substring(1).toLowerCase())
+                .collect(Collectors.joining(" "));
     }
 
     /**
@@ -110,5 +200,6 @@ public class CategoryService {
 
         log.warn("Deleting category: {}", category.getName());
         categoryRepository.delete(category);
+        categoryTreeCache.refreshAfterCommit();
     }
 }
\ No newline at end of file
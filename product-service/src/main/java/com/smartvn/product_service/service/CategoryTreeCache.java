@@ -0,0 +1,173 @@
+package com.smartvn.product_service.service;
+
+import com.smartvn.product_service.model.Category;
+import com.smartvn.product_service.repository.CategoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Snapshot bất biến của cây danh mục trong bộ nhớ: tra theo tên / id và danh sách id con đã tính sẵn,
+ * để filter category khi search không phải query DB.
+ * Snapshot được dựng lại toàn bộ rồi thay bằng 1 phép gán volatile (request đọc luôn thấy 1 cây nhất quán)
+ * sau khi có thay đổi danh mục được commit, và định kỳ để bắt thay đổi từ instance khác.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CategoryTreeCache {
+
+    /**
+     * Tên không tìm thấy → cho phép nạp lại sớm nhất sau khoảng này (tránh request tên rác làm query liên tục).
+     */
+    private static final long MISS_REFRESH_INTERVAL_MS = 5_000;
+
+    private final CategoryRepository categoryRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * @param id         ID danh mục.
+     * @param name       Tên danh mục.
+     * @param level      1 = danh mục cha, 2 = danh mục con.
+     * @param parentId   ID danh mục cha (null với level 1).
+     * @param filterIds  ID dùng để lọc sản phẩm: các danh mục con (đệ quy), hoặc chính nó nếu không có con.
+     */
+    public record Node(Long id, String name, Integer level, Long parentId, List<Long> filterIds) {
+    }
+
+    private record Snapshot(Map<Long, Node> byId, Map<String, Node> byName, long builtAt) {
+    }
+
+    public Node findByName(String name) {
+        if (name == null) {
+            return null;
+        }
+        String key = nameKey(name);
+        Node node = current().byName().get(key);
+        if (node == null && refreshOnMiss()) {
+            node = snapshot.byName().get(key);
+        }
+        return node;
+    }
+
+    public Node findById(Long id) {
+        if (id == null) {
+            return null;
+        }
+        Node node = current().byId().get(id);
+        if (node == null && refreshOnMiss()) {
+            node = snapshot.byId().get(id);
+        }
+        return node;
+    }
+
+    /**
+     * Dựng lại snapshot sau khi transaction hiện tại commit (ngay lập tức nếu không có transaction).
+     */
+    public void refreshAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refresh();
+                }
+            });
+        } else {
+            refresh();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${category.tree.refresh-interval-ms:300000}",
+            initialDelayString = "${category.tree.refresh-interval-ms:300000}")
+    public void scheduledRefresh() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.warn("⚠️ Failed to refresh category tree: {}", e.getMessage());
+        }
+    }
+
+    public synchronized void refresh() {
+        // Transaction riêng: đọc cây danh mục trong transaction của người gọi (REPEATABLE READ) sẽ chốt snapshot
+        // của họ trước khi danh mục mới được insert ở REQUIRES_NEW → lần đọc sau của người gọi không thấy nó
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        tx.setReadOnly(true);
+        List<Category> all = tx.execute(status -> categoryRepository.findAll());
+
+        Map<Long, List<Long>> childrenByParent = new HashMap<>();
+        all.stream()
+                .sorted(Comparator.comparing(Category::getId))
+                .forEach(c -> {
+                    Long parentId = parentId(c);
+                    if (parentId != null) {
+                        childrenByParent.computeIfAbsent(parentId, k -> new ArrayList<>()).add(c.getId());
+                    }
+                });
+
+        Map<Long, Node> byId = new HashMap<>();
+        Map<String, Node> byName = new HashMap<>();
+        for (Category c : all) {
+            List<Long> descendants = new ArrayList<>();
+            collectDescendants(c.getId(), childrenByParent, descendants);
+            Node node = new Node(c.getId(), c.getName(), c.getLevel(), parentId(c),
+                    descendants.isEmpty() ? List.of(c.getId()) : List.copyOf(descendants));
+            byId.put(node.id(), node);
+            byName.put(nameKey(node.name()), node);
+        }
+
+        snapshot = new Snapshot(Map.copyOf(byId), Map.copyOf(byName), System.currentTimeMillis());
+        log.debug("Category tree rebuilt with {} categories", byId.size());
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            refresh();
+            current = snapshot;
+        }
+        return current;
+    }
+
+    private synchronized boolean refreshOnMiss() {
+        if (System.currentTimeMillis() - snapshot.builtAt() < MISS_REFRESH_INTERVAL_MS) {
+            return false;
+        }
+        refresh();
+        return true;
+    }
+
+    private void collectDescendants(Long id, Map<Long, List<Long>> childrenByParent, List<Long> out) {
+        for (Long childId : childrenByParent.getOrDefault(id, List.of())) {
+            out.add(childId);
+            collectDescendants(childId, childrenByParent, out);
+        }
+    }
+
+    private Long parentId(Category c) {
+        // Lấy id từ proxy lazy không cần khởi tạo entity cha
+        return c.getParentCategory() != null ? c.getParentCategory().getId() : null;
+    }
+
+    /**
+     * Tên danh mục là unique và so sánh không phân biệt hoa thường (collation MySQL mặc định).
+     */
+    private String nameKey(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+}
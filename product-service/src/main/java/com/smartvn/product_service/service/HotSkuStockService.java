@@ -0,0 +1,409 @@
+package com.smartvn.product_service.service;
+
+import com.smartvn.product_service.model.Inventory;
+import com.smartvn.product_service.repository.InventoryRepository;
+import com.smartvn.product_service.repository.InventoryReservationRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Điểm ghi tồn kho duy nhất cho InventoryService / InventoryReservationService.
+ * <p>
+ * SKU thường: đi thẳng xuống câu UPDATE có điều kiện của InventoryRepository.
+ * SKU "nóng" (khai báo ở inventory.hot-sku.skus, chỉ bật khi inventory.hot-sku.enabled=true):
+ * số lượng còn bán được và đang giữ chỗ nằm chung trong 1 AtomicLong, giữ chỗ / nhả giữ chỗ quyết định bằng CAS
+ * (không khóa row), phần chênh lệch reserved_quantity được cộng vào LongAdder và ghi xuống bảng inventory
+ * theo lô (write-behind) - khi khởi động (trước khi nhận request) reserved_quantity được dựng lại từ các dòng HELD
+ * của sổ giữ chỗ.
+ * Thay đổi quantity (chốt, trừ thẳng, trả lại kho) không dựng lại được từ sổ giữ chỗ nên vẫn ghi ngay
+ * trong transaction của nghiệp vụ.
+ * <p>
+ * Counter nằm trong bộ nhớ của 1 instance → chỉ bật chế độ này khi SKU nóng được phục vụ bởi
+ * đúng 1 instance product-service.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class HotSkuStockService implements SmartInitializingSingleton {
+
+    private final InventoryRepository inventoryRepository;
+    private final InventoryReservationRepository reservationRepository;
+    private final ProductListingSummaryService listingSummaryService;
+    private final ProductCacheService productCacheService;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${inventory.hot-sku.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * Danh sách "productId:size" cách nhau bởi dấu phẩy, vd "12:128GB,15:M". Size rỗng = variant không có size.
+     */
+    @Value("${inventory.hot-sku.skus:}")
+    private String configuredSkus;
+
+    private final Map<SkuKey, HotSkuCounter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Counter đã gỡ (variant bị đổi size / xóa) nhưng có thể còn chênh lệch chưa flush từ request đang chạy dở.
+     */
+    private final Set<HotSkuCounter> retired = ConcurrentHashMap.newKeySet();
+
+    private record SkuKey(Long productId, String size) {
+    }
+
+    private static final class HotSkuCounter {
+        private final Long inventoryId;
+        private final Long productId;
+        private final String size;
+        /**
+         * 32 bit cao = số lượng bán được, 32 bit thấp = đang giữ chỗ: mọi thay đổi của 2 số là 1 lần CAS.
+         */
+        private final AtomicLong stock;
+        private final LongAdder reservedDelta = new LongAdder();
+
+        private HotSkuCounter(Long inventoryId, Long productId, String size, int available, int reserved) {
+            this.inventoryId = inventoryId;
+            this.productId = productId;
+            this.size = size;
+            this.stock = new AtomicLong(pack(available, reserved));
+        }
+
+        private static long pack(int available, int reserved) {
+            return ((long) available << 32) | (reserved & 0xFFFFFFFFL);
+        }
+
+        private static int available(long stock) {
+            return (int) (stock >> 32);
+        }
+
+        private static int reserved(long stock) {
+            return (int) stock;
+        }
+
+        private int available() {
+            return available(stock.get());
+        }
+
+        /**
+         * Cộng nguyên tử cả 2 số nếu không số nào bị âm (vòng CAS, không lock).
+         */
+        private boolean tryAdd(int availableDelta, int reservedDelta) {
+            while (true) {
+                long current = stock.get();
+                int available = available(current) + availableDelta;
+                int reserved = reserved(current) + reservedDelta;
+                if (available < 0 || reserved < 0) {
+                    return false;
+                }
+                if (stock.compareAndSet(current, pack(available, reserved))) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Số lượng bán được = tồn kho mới - phần đang giữ chỗ, tính trên cùng 1 giá trị reserved.
+         */
+        private void resetAvailable(int quantity) {
+            stock.updateAndGet(current -> pack(Math.max(quantity - reserved(current), 0), reserved(current)));
+        }
+    }
+
+    // ============================================
+    // GHI TỒN KHO (trả về số dòng bị ảnh hưởng như InventoryRepository)
+    // ============================================
+
+    /**
+     * Giữ chỗ: reserved_quantity += q nếu còn đủ hàng bán được.
+     */
+    public int holdStock(Long productId, String size, Integer quantity) {
+        HotSkuCounter counter = counter(productId, size);
+        if (counter == null) {
+            return inventoryRepository.holdStock(productId, size, quantity);
+        }
+        if (!counter.tryAdd(-quantity, quantity)) {
+            return 0;
+        }
+        onOutcome(() -> counter.reservedDelta.add(quantity), () -> counter.tryAdd(quantity, -quantity));
+        return 1;
+    }
+
+    /**
+     * Bỏ giữ chỗ: reserved_quantity -= q, hàng bán được trở lại sau khi transaction commit.
+     *
+     * @return 0 nếu phần đang giữ chỗ ít hơn q.
+     */
+    public int releaseHold(Long productId, String size, Integer quantity) {
+        HotSkuCounter counter = counter(productId, size);
+        if (counter == null) {
+            return inventoryRepository.releaseHold(productId, size, quantity);
+        }
+        if (!counter.tryAdd(0, -quantity)) {
+            return 0;
+        }
+        onOutcome(() -> {
+            counter.reservedDelta.add(-quantity);
+            counter.tryAdd(quantity, 0);
+        }, () -> counter.tryAdd(0, quantity));
+        return 1;
+    }
+
+    /**
+     * Chốt giữ chỗ: quantity -= q (ghi ngay trong transaction), reserved_quantity -= q
+     * (số lượng bán được không đổi).
+     *
+     * @return 0 nếu phần đang giữ chỗ hoặc tồn kho ít hơn q.
+     */
+    public int commitHold(Long productId, String size, Integer quantity) {
+        HotSkuCounter counter = counter(productId, size);
+        if (counter == null) {
+            return inventoryRepository.commitHold(productId, size, quantity);
+        }
+        if (!counter.tryAdd(0, -quantity)) {
+            return 0;
+        }
+        if (inventoryRepository.deductQuantity(counter.inventoryId, quantity) == 0) {
+            counter.tryAdd(0, quantity);
+            return 0;
+        }
+        onOutcome(() -> counter.reservedDelta.add(-quantity),
+                () -> counter.tryAdd(0, quantity));
+        return 1;
+    }
+
+    /**
+     * Trừ thẳng khỏi tồn kho (ghi ngay trong transaction) nếu còn đủ hàng bán được.
+     */
+    public int reserveStock(Long productId, String size, Integer quantity) {
+        HotSkuCounter counter = counter(productId, size);
+        if (counter == null) {
+            return inventoryRepository.reserveStock(productId, size, quantity);
+        }
+        if (!counter.tryAdd(-quantity, 0)) {
+            return 0;
+        }
+        if (inventoryRepository.deductQuantity(counter.inventoryId, quantity) == 0) {
+            counter.tryAdd(quantity, 0);
+            return 0;
+        }
+        onOutcome(null, () -> counter.tryAdd(quantity, 0));
+        return 1;
+    }
+
+    /**
+     * Cộng trả lại tồn kho (hủy đơn đã chốt / rollback), ghi ngay trong transaction.
+     */
+    public int releaseStock(Long productId, String size, Integer quantity) {
+        int updated = inventoryRepository.releaseStock(productId, size, quantity);
+        HotSkuCounter counter = counter(productId, size);
+        if (counter != null && updated > 0) {
+            onOutcome(() -> counter.tryAdd(quantity, 0), null);
+        }
+        return updated;
+    }
+
+    // ============================================
+    // ĐỌC
+    // ============================================
+
+    /**
+     * Số lượng bán được của SKU nóng, hoặc null nếu SKU không được quản lý trong bộ nhớ.
+     */
+    public Integer availableQuantity(Long productId, String size) {
+        HotSkuCounter counter = counter(productId, size);
+        return counter != null ? counter.available() : null;
+    }
+
+    public boolean isHot(Long productId, String size) {
+        return counter(productId, size) != null;
+    }
+
+    // ============================================
+    // ĐỒNG BỘ VỚI MYSQL
+    // ============================================
+
+    /**
+     * Khởi động: đối soát reserved_quantity với sổ giữ chỗ (phần chênh lệch chưa kịp flush
+     * trước khi tắt sẽ được khôi phục từ các dòng HELD), rồi nạp counter từ DB.
+     * quantity luôn được ghi trong transaction nghiệp vụ nên không cần khôi phục.
+     * Chạy khi mọi singleton đã tạo xong nhưng trước khi web server / scheduler bắt đầu → không request nào
+     * ghi tồn kho trong lúc nạp.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        loadCounters();
+    }
+
+    void loadCounters() {
+        if (!enabled) {
+            return;
+        }
+        Map<SkuKey, HotSkuCounter> loaded = new ConcurrentHashMap<>();
+        for (SkuKey key : parseConfiguredSkus()) {
+            Inventory inv = inventoryRepository.findByProductIdAndSize(key.productId(), key.size()).orElse(null);
+            if (inv == null) {
+                log.warn("⚠️ Hot SKU {}:{} has no inventory row, skipping", key.productId(), key.size());
+                continue;
+            }
+            int held = reservationRepository.sumHeldQuantity(key.productId(), key.size());
+            if (!Objects.equals(inv.getReservedQuantity(), held)) {
+                jdbcTemplate.update("UPDATE inventory SET reserved_quantity = ? WHERE id = ?", held, inv.getId());
+                log.info("Reconciled reserved_quantity of hot SKU {}:{} from {} to {}",
+                        key.productId(), key.size(), inv.getReservedQuantity(), held);
+                inv.setReservedQuantity(held);
+            }
+
+            loaded.put(key, new HotSkuCounter(inv.getId(), key.productId(), key.size(),
+                    inv.getAvailableQuantity(), held));
+        }
+        counters.putAll(loaded);
+        if (!counters.isEmpty()) {
+            log.info("✅ Loaded {} hot SKU stock counters", counters.size());
+        }
+    }
+
+    /**
+     * Nạp lại counter sau khi admin sửa trực tiếp tồn kho của SKU nóng (gọi sau commit).
+     * Phần giữ chỗ lấy từ counter (reserved_quantity trong DB có thể chưa flush).
+     * Variant bị xóa hoặc đổi sang size khác → gỡ counter, SKU quay về ghi thẳng DB.
+     */
+    public void reload(Long productId, String size) {
+        SkuKey key = new SkuKey(productId, size);
+        HotSkuCounter counter = counters.get(key);
+        if (counter == null) {
+            return;
+        }
+        Runnable reload = () -> inventoryRepository.findById(counter.inventoryId)
+                .filter(inv -> Objects.equals(inv.getSize(), counter.size))
+                .ifPresentOrElse(inv -> counter.resetAvailable(inv.getQuantity()), () -> {
+                    if (counters.remove(key, counter)) {
+                        retired.add(counter);
+                        log.info("Hot SKU {}:{} no longer matches inventory {}, counter removed",
+                                productId, size, counter.inventoryId);
+                    }
+                });
+        onOutcome(reload, null);
+    }
+
+    /**
+     * Write-behind: ghi phần chênh lệch reserved_quantity của tất cả SKU nóng xuống bảng inventory trong 1 batch.
+     */
+    @Scheduled(fixedDelayString = "${inventory.hot-sku.flush-interval-ms:200}")
+    public void flush() {
+        if (counters.isEmpty() && retired.isEmpty()) {
+            return;
+        }
+
+        List<HotSkuCounter> flushed = new ArrayList<>();
+        List<Object[]> batchArgs = new ArrayList<>();
+        List<HotSkuCounter> pending = new ArrayList<>(counters.values());
+        pending.addAll(retired);
+        for (HotSkuCounter counter : pending) {
+            long reservedDelta = counter.reservedDelta.sumThenReset();
+            if (reservedDelta == 0) {
+                // Counter đã gỡ, hết chênh lệch → không cần theo dõi nữa
+                retired.remove(counter);
+                continue;
+            }
+            flushed.add(counter);
+            batchArgs.add(new Object[]{reservedDelta, counter.inventoryId});
+        }
+        if (batchArgs.isEmpty()) {
+            return;
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(
+                    "UPDATE inventory SET reserved_quantity = reserved_quantity + ?, " +
+                            "updated_at = CURRENT_TIMESTAMP WHERE id = ?",
+                    batchArgs);
+        } catch (Exception e) {
+            // Trả lại phần chênh lệch để lần flush sau ghi tiếp
+            for (int i = 0; i < flushed.size(); i++) {
+                flushed.get(i).reservedDelta.add((Long) batchArgs.get(i)[0]);
+            }
+            log.error("❌ Failed to flush hot SKU stock deltas: {}", e.getMessage());
+            return;
+        }
+
+        Set<Long> productIds = new LinkedHashSet<>();
+        flushed.forEach(counter -> productIds.add(counter.productId));
+        listingSummaryService.refreshAll(productIds);
+        productIds.forEach(productCacheService::evictProductDetail);
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private HotSkuCounter counter(Long productId, String size) {
+        if (!enabled || counters.isEmpty()) {
+            return null;
+        }
+        return counters.get(new SkuKey(productId, size));
+    }
+
+    /**
+     * Chỉ công bố thay đổi khi transaction commit; rollback thì hoàn lại quyết định đã lấy trong bộ nhớ.
+     */
+    private void onOutcome(Runnable onCommit, Runnable onRollback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            if (onCommit != null) {
+                onCommit.run();
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    if (onCommit != null) {
+                        onCommit.run();
+                    }
+                } else if (onRollback != null) {
+                    onRollback.run();
+                }
+            }
+        });
+    }
+
+    private List<SkuKey> parseConfiguredSkus() {
+        List<SkuKey> keys = new ArrayList<>();
+        for (String entry : configuredSkus.split(",")) {
+            String trimmed = entry.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int separator = trimmed.indexOf(':');
+            try {
+                Long productId = Long.parseLong(separator < 0 ? trimmed : trimmed.substring(0, separator));
+                String size = separator < 0 || separator == trimmed.length() - 1
+                        ? null
+                        : trimmed.substring(separator + 1);
+                keys.add(new SkuKey(productId, size));
+            } catch (NumberFormatException e) {
+                log.warn("⚠️ Invalid hot SKU entry '{}', expected productId:size", trimmed);
+            }
+        }
+        return keys;
+    }
+}
@@ -10,11 +10,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.util.List;
-import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -23,36 +21,28 @@ public class ImageService {
 
     private final ImageRepository imageRepository;
     private final ProductRepository productRepository;
-    private final CloudinaryService cloudinaryService;
+    private final ImageUploader imageUploader;
+    private final ProductListingSummaryService listingSummaryService;
+    private final ProductCacheService productCacheService;
 
     /**
-     * Tải lên một hình ảnh mới và liên kết nó với một sản phẩm.
+     * Lưu các ảnh đã upload xong (xem ImageUploadService) cho một sản phẩm trong 1 transaction,
+     * refresh listing summary và cache chi tiết 1 lần cho cả lô.
      *
      * @param productId ID của sản phẩm.
-     * @param file      File hình ảnh.
-     * @return Entity Image đã được lưu.
+     * @param images    Các Image chưa gắn product (đã có fileName / fileType / downloadUrl).
+     * @return Các Image đã được lưu.
      */
     @Transactional
-    public Image uploadImageForProduct(Long productId, MultipartFile file) {
+    public List<Image> saveUploadedImages(Long productId, List<Image> images) {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new AppException("Product not found with id: " + productId, HttpStatus.NOT_FOUND));
 
-        try {
-            Map<String, String> uploadResult = cloudinaryService.upload(file);
-
-            Image image = new Image();
-            image.setFileName(uploadResult.get("public_id")); // Lưu public_id để xóa sau này
-            image.setFileType(file.getContentType());
-            image.setDownloadUrl(uploadResult.get("url"));
-            image.setProduct(product);
-
-            log.info("Image uploaded for product {}: {}", productId, image.getDownloadUrl());
-            return imageRepository.save(image);
-
-        } catch (IOException e) {
-            log.error("Failed to upload image for product {}: {}", productId, e.getMessage());
-            throw new AppException("Failed to upload image", HttpStatus.INTERNAL_SERVER_ERROR);
-        }
+        images.forEach(image -> image.setProduct(product));
+        List<Image> saved = imageRepository.saveAll(images);
+        listingSummaryService.refresh(productId);
+        productCacheService.evictProductDetail(productId);
+        return saved;
     }
 
     /**
@@ -83,7 +73,7 @@ public class ImageService {
             // 4. Nếu có vẻ là public_id, thử xóa trên Cloudinary
             try {
                 log.info("Attempting to delete image from Cloudinary using fileName as public_id: {}", potentialPublicId);
-                cloudinaryService.delete(potentialPublicId); // Gọi phương thức void delete()
+                imageUploader.delete(potentialPublicId); // Gọi phương thức void delete()
 
                 // Nếu không có exception, ghi log thành công (không có kết quả chi tiết từ hàm void)
                 log.info("Cloudinary delete API call executed successfully (or image not found on Cloudinary) for public_id: {}", potentialPublicId);
@@ -94,7 +84,7 @@ public class ImageService {
                         imageId, potentialPublicId, e.getMessage(), e); // Log cả stack trace
                 // Ném lỗi để báo hiệu sự cố và rollback transaction DB.
                 throw new AppException("Failed to communicate with Cloudinary to delete image. Database changes rolled back.", HttpStatus.INTERNAL_SERVER_ERROR, e);
-            } catch (RuntimeException e) { // Bắt các lỗi Runtime khác có thể xảy ra trong cloudinaryService.delete
+            } catch (RuntimeException e) { // Bắt các lỗi Runtime khác có thể xảy ra trong imageUploader.delete
                 log.error("!!! RuntimeException during Cloudinary deletion attempt for image id {} (public_id from fileName: '{}'): {}", imageId, potentialPublicId, e.getMessage(), e); // Log cả stack trace
                 // Ném lỗi để rollback
                 throw new AppException("An unexpected error occurred during Cloudinary deletion attempt", HttpStatus.INTERNAL_SERVER_ERROR, e);
@@ -107,7 +97,10 @@ public class ImageService {
         // 6. Xóa bản ghi khỏi cơ sở dữ liệu
         try {
             log.info("Attempting to delete image record from database with id: {}", imageId);
+            Long productId = image.getProduct().getId();
             imageRepository.delete(image);
+            listingSummaryService.refresh(productId);
+            productCacheService.evictProductDetail(productId);
             log.info("--- Successfully deleted image record from database with id: {} ---", imageId); // Log kết thúc thành công
         } catch (Exception e) {
             log.error("!!! Failed to delete image record {} from database: {}", imageId, e.getMessage(), e); // Log cả stack trace
@@ -0,0 +1,197 @@
+package com.smartvn.product_service.service;
+
+import com.smartvn.product_service.exceptions.AppException;
+import com.smartvn.product_service.model.Image;
+import com.smartvn.product_service.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Pipeline upload ảnh sản phẩm, chạy ngoài transaction:
+ * 1. Spool từng file multipart ra đĩa (không giữ byte[] trên heap).
+ * 2. Upload song song trên imageUploadExecutor (số upload đồng thời có giới hạn).
+ * 3. Tất cả upload xong mới mở 1 transaction lưu toàn bộ Image (ImageService.saveUploadedImages).
+ * Có file lỗi hoặc lưu DB lỗi → xóa các file đã upload (best effort) và báo lỗi cho cả request.
+ */
+@Service
+@Slf4j
+public class ImageUploadService {
+
+    private final ImageUploader imageUploader;
+    private final ImageService imageService;
+    private final ProductRepository productRepository;
+    private final ThreadPoolTaskExecutor imageUploadExecutor;
+    private final Path spoolDir;
+
+    @Value("${image.upload.max-files-per-request:20}")
+    private int maxFilesPerRequest;
+
+    public ImageUploadService(ImageUploader imageUploader,
+                              ImageService imageService,
+                              ProductRepository productRepository,
+                              @Qualifier("imageUploadExecutor") ThreadPoolTaskExecutor imageUploadExecutor,
+                              @Value("${image.upload.spool-dir:${java.io.tmpdir}/smartvn-image-spool}") String spoolDir)
+            throws IOException {
+        this.imageUploader = imageUploader;
+        this.imageService = imageService;
+        this.productRepository = productRepository;
+        this.imageUploadExecutor = imageUploadExecutor;
+        this.spoolDir = Files.createDirectories(Paths.get(spoolDir));
+    }
+
+    /**
+     * Upload nhiều ảnh cho một sản phẩm.
+     *
+     * @param productId ID của sản phẩm.
+     * @param files     Các file ảnh (giữ nguyên thứ tự trong kết quả).
+     * @return Các Image đã lưu.
+     */
+    public List<Image> uploadImages(Long productId, List<MultipartFile> files) {
+        validate(productId, files);
+        long start = System.currentTimeMillis();
+
+        List<Path> spooled = new ArrayList<>();
+        try {
+            for (MultipartFile file : files) {
+                spooled.add(spool(file));
+            }
+
+            List<ImageUploader.UploadedImage> uploaded = uploadAll(productId, spooled);
+
+            List<Image> images = new ArrayList<>();
+            for (int i = 0; i < files.size(); i++) {
+                Image image = new Image();
+                image.setFileName(uploaded.get(i).publicId()); // Lưu public_id để xóa sau này
+                image.setFileType(files.get(i).getContentType());
+                image.setDownloadUrl(uploaded.get(i).url());
+                images.add(image);
+            }
+
+            try {
+                List<Image> saved = imageService.saveUploadedImages(productId, images);
+                log.info("✅ Uploaded {} images for product {} in {} ms",
+                        saved.size(), productId, System.currentTimeMillis() - start);
+                return saved;
+            } catch (RuntimeException e) {
+                deleteQuietly(uploaded);
+                throw e;
+            }
+        } finally {
+            spooled.forEach(this::deleteSpoolFile);
+        }
+    }
+
+    private void validate(Long productId, List<MultipartFile> files) {
+        if (files == null || files.isEmpty()) {
+            throw new AppException("At least one image file is required", HttpStatus.BAD_REQUEST);
+        }
+        if (files.size() > maxFilesPerRequest) {
+            throw new AppException("Too many files, maximum is " + maxFilesPerRequest + " per request",
+                    HttpStatus.BAD_REQUEST);
+        }
+        for (MultipartFile file : files) {
+            if (file.isEmpty()) {
+                throw new AppException("Image file is empty: " + file.getOriginalFilename(), HttpStatus.BAD_REQUEST);
+            }
+            String contentType = file.getContentType();
+            if (contentType == null || !contentType.startsWith("image/")) {
+                throw new AppException("File is not an image: " + file.getOriginalFilename(), HttpStatus.BAD_REQUEST);
+            }
+        }
+        if (!productRepository.existsById(productId)) {
+            throw new AppException("Product not found with id: " + productId, HttpStatus.NOT_FOUND);
+        }
+    }
+
+    /**
+     * Gửi tất cả file lên executor rồi chờ hết. Chỉ trả về khi mọi file đều thành công;
+     * ngược lại xóa các file đã lên kho và ném lỗi (hàng đợi đầy → 429).
+     */
+    private List<ImageUploader.UploadedImage> uploadAll(Long productId, List<Path> files) {
+        List<CompletableFuture<ImageUploader.UploadedImage>> futures = new ArrayList<>();
+        boolean rejected = false;
+        for (Path file : files) {
+            try {
+                futures.add(CompletableFuture.supplyAsync(() -> upload(file), imageUploadExecutor));
+            } catch (TaskRejectedException e) {
+                rejected = true;
+                break;
+            }
+        }
+
+        List<ImageUploader.UploadedImage> uploaded = new ArrayList<>();
+        Throwable failure = null;
+        for (CompletableFuture<ImageUploader.UploadedImage> future : futures) {
+            try {
+                uploaded.add(future.join());
+            } catch (CompletionException e) {
+                failure = e.getCause();
+            }
+        }
+
+        if (rejected) {
+            deleteQuietly(uploaded);
+            throw new AppException("Too many image uploads in progress, please retry later",
+                    HttpStatus.TOO_MANY_REQUESTS);
+        }
+        if (failure != null) {
+            log.error("Failed to upload image for product {}: {}", productId, failure.getMessage());
+            deleteQuietly(uploaded);
+            throw new AppException("Failed to upload image", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+        return uploaded;
+    }
+
+    private ImageUploader.UploadedImage upload(Path file) {
+        try {
+            return imageUploader.upload(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path spool(MultipartFile file) {
+        try {
+            Path target = Files.createTempFile(spoolDir, "upload-", ".tmp");
+            file.transferTo(target);
+            return target;
+        } catch (IOException e) {
+            log.error("Failed to spool upload {}: {}", file.getOriginalFilename(), e.getMessage());
+            throw new AppException("Failed to upload image", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    private void deleteQuietly(List<ImageUploader.UploadedImage> uploaded) {
+        for (ImageUploader.UploadedImage image : uploaded) {
+            try {
+                imageUploader.delete(image.publicId());
+            } catch (IOException | RuntimeException e) {
+                log.warn("⚠️ Failed to clean up uploaded image {}: {}", image.publicId(), e.getMessage());
+            }
+        }
+    }
+
+    private void deleteSpoolFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("⚠️ Failed to delete spool file {}: {}", file, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.smartvn.product_service.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Nơi lưu trữ file ảnh sản phẩm. Mặc định là Cloudinary (CloudinaryService);
+ * đặt image.uploader.type=stub để dùng StubImageUploader lưu ra thư mục local khi chạy offline / test.
+ */
+public interface ImageUploader {
+
+    /**
+     * @param publicId ID dùng để xóa file sau này (lưu vào Image.fileName).
+     * @param url      URL công khai của ảnh.
+     */
+    record UploadedImage(String publicId, String url) {
+    }
+
+    /**
+     * Tải file (đã spool ra đĩa) lên kho lưu trữ. File được đọc dạng stream, không nạp cả file vào heap.
+     */
+    UploadedImage upload(Path file) throws IOException;
+
+    void delete(String publicId) throws IOException;
+}
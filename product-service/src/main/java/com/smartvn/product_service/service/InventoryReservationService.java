@@ -0,0 +1,269 @@
+package com.smartvn.product_service.service;
+
+import com.smartvn.product_service.dto.InventoryCheckRequest;
+import com.smartvn.product_service.dto.ReserveInventoryRequest;
+import com.smartvn.product_service.exceptions.AppException;
+import com.smartvn.product_service.model.InventoryReservation;
+import com.smartvn.product_service.repository.InventoryRepository;
+import com.smartvn.product_service.repository.InventoryReservationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Sổ giữ chỗ tồn kho cho đơn hàng.
+ * Đặt hàng chỉ giữ chỗ (reserved_quantity) có thời hạn; tồn kho thật (quantity) chỉ bị trừ khi đơn
+ * được thanh toán / giao hàng (commit). Hàng còn bán được = quantity - reserved_quantity.
+ * Mọi thay đổi trạng thái đều là UPDATE có điều kiện nên gọi lại nhiều lần (retry) vẫn an toàn.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryReservationService {
+
+    private final InventoryReservationRepository reservationRepository;
+    private final InventoryRepository inventoryRepository;
+    private final ProductListingSummaryService listingSummaryService;
+    private final ProductCacheService productCacheService;
+    private final HotSkuStockService stockService;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${inventory.reservation.ttl-minutes:30}")
+    private long ttlMinutes;
+
+    /**
+     * Giữ chỗ cho toàn bộ item của đơn: thiếu hàng 1 item là rollback cả đơn.
+     * Nếu đơn đã có giữ chỗ (order-service gọi lại) thì không giữ thêm lần nữa. Hai lần gọi chạy đồng thời
+     * cùng qua được bước kiểm tra thì lần sau vướng unique (order_id, product_id, size), rollback cả phần
+     * giữ chỗ của nó và được coi là gọi lại.
+     */
+    public void reserve(ReserveInventoryRequest request) {
+        if (request.getOrderId() == null || request.getItems() == null || request.getItems().isEmpty()) {
+            throw new AppException("Order id and items are required", HttpStatus.BAD_REQUEST);
+        }
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> doReserve(request));
+        } catch (DataIntegrityViolationException e) {
+            if (!reservationRepository.existsByOrderId(request.getOrderId())) {
+                throw e;
+            }
+            log.info("Order {} was reserved by a concurrent request, treating as replay", request.getOrderId());
+        }
+    }
+
+    private void doReserve(ReserveInventoryRequest request) {
+        if (reservationRepository.existsByOrderId(request.getOrderId())) {
+            log.info("Order {} already has inventory reservations, skipping", request.getOrderId());
+            return;
+        }
+
+        // Gộp dòng trùng (productId, size) rồi sắp xếp để các transaction đồng thời khóa row cùng thứ tự
+        // → tránh deadlock
+        Map<String, InventoryCheckRequest> merged = new LinkedHashMap<>();
+        for (InventoryCheckRequest rq : request.getItems()) {
+            if (rq.getQuantity() == null || rq.getQuantity() <= 0) {
+                throw new AppException("Quantity must be greater than 0", HttpStatus.BAD_REQUEST);
+            }
+            merged.merge(rq.getProductId() + "-" + rq.getSize(),
+                    new InventoryCheckRequest(rq.getProductId(), rq.getSize(), rq.getQuantity()),
+                    (a, b) -> new InventoryCheckRequest(a.getProductId(), a.getSize(), a.getQuantity() + b.getQuantity()));
+        }
+        List<InventoryCheckRequest> ordered = merged.values().stream()
+                .sorted(Comparator.comparing(InventoryCheckRequest::getProductId)
+                        .thenComparing(InventoryCheckRequest::getSize, Comparator.nullsFirst(Comparator.naturalOrder())))
+                .collect(Collectors.toList());
+
+        // Đơn chờ xác nhận có thể nằm PENDING lâu hơn TTL → không cho sweeper nhả hàng rồi bán lại
+        LocalDateTime expiresAt = Boolean.TRUE.equals(request.getAwaitingConfirmation())
+                ? null
+                : LocalDateTime.now().plusMinutes(ttlMinutes);
+        Set<Long> touchedProductIds = new LinkedHashSet<>();
+        for (InventoryCheckRequest rq : ordered) {
+            holdOrThrow(rq);
+
+            InventoryReservation reservation = new InventoryReservation();
+            reservation.setOrderId(request.getOrderId());
+            reservation.setProductId(rq.getProductId());
+            reservation.setSize(rq.getSize());
+            reservation.setQuantity(rq.getQuantity());
+            reservation.setStatus(InventoryReservation.Status.HELD);
+            reservation.setExpiresAt(expiresAt);
+            reservationRepository.save(reservation);
+
+            touchedProductIds.add(rq.getProductId());
+        }
+
+        afterStockChange(touchedProductIds);
+        log.info("✅ Reserved {} items for order {} until {}", ordered.size(), request.getOrderId(),
+                expiresAt != null ? expiresAt : "commit/release");
+    }
+
+    /**
+     * Chốt giữ chỗ của đơn (đã thanh toán VNPay / đã giao): trừ hẳn khỏi tồn kho.
+     * Dòng đã EXPIRED thì thử trừ lại từ phần còn bán được; hết hàng → CONFLICT.
+     *
+     * @return Số dòng được chốt trong lần gọi này (0 nếu đã chốt trước đó hoặc đơn không có giữ chỗ).
+     */
+    @Transactional
+    public int commit(Long orderId) {
+        List<InventoryReservation> reservations = reservationRepository.findByOrderIdOrderByProductIdAscSizeAsc(orderId);
+
+        int committed = 0;
+        Set<Long> touchedProductIds = new LinkedHashSet<>();
+        for (InventoryReservation r : reservations) {
+            if (r.getStatus() == InventoryReservation.Status.HELD
+                    && transition(r, InventoryReservation.Status.HELD, InventoryReservation.Status.COMMITTED)) {
+                if (stockService.commitHold(r.getProductId(), r.getSize(), r.getQuantity()) == 0) {
+                    throw new AppException(
+                            String.format("Cannot commit reservation %d for product %d size %s",
+                                    r.getId(), r.getProductId(), r.getSize()),
+                            HttpStatus.CONFLICT
+                    );
+                }
+            } else if (r.getStatus() == InventoryReservation.Status.EXPIRED
+                    && transition(r, InventoryReservation.Status.EXPIRED, InventoryReservation.Status.COMMITTED)) {
+                if (stockService.reserveStock(r.getProductId(), r.getSize(), r.getQuantity()) == 0) {
+                    throw new AppException(
+                            String.format("Reservation for order %d expired and product %d size %s is out of stock",
+                                    orderId, r.getProductId(), r.getSize()),
+                            HttpStatus.CONFLICT
+                    );
+                }
+            } else {
+                continue;
+            }
+            committed++;
+            touchedProductIds.add(r.getProductId());
+        }
+
+        afterStockChange(touchedProductIds);
+        if (committed > 0) {
+            log.info("✅ Committed {} reservations for order {}", committed, orderId);
+        }
+        return committed;
+    }
+
+    /**
+     * Nhả giữ chỗ khi đơn bị hủy. Dòng đã COMMITTED thì cộng trả lại vào tồn kho.
+     *
+     * @return Tổng số dòng giữ chỗ của đơn (0 = đơn được tạo trước khi có sổ giữ chỗ,
+     *         order-service sẽ tự hoàn kho theo cách cũ).
+     */
+    @Transactional
+    public int release(Long orderId) {
+        List<InventoryReservation> reservations = reservationRepository.findByOrderIdOrderByProductIdAscSizeAsc(orderId);
+
+        Set<Long> touchedProductIds = new LinkedHashSet<>();
+        for (InventoryReservation r : reservations) {
+            switch (r.getStatus()) {
+                case HELD -> {
+                    if (transition(r, InventoryReservation.Status.HELD, InventoryReservation.Status.RELEASED)) {
+                        if (stockService.releaseHold(r.getProductId(), r.getSize(), r.getQuantity()) == 0) {
+                            throw new AppException(
+                                    String.format("Cannot release reservation %d for product %d size %s",
+                                            r.getId(), r.getProductId(), r.getSize()),
+                                    HttpStatus.CONFLICT
+                            );
+                        }
+                        touchedProductIds.add(r.getProductId());
+                    }
+                }
+                case COMMITTED -> {
+                    if (transition(r, InventoryReservation.Status.COMMITTED, InventoryReservation.Status.RELEASED)) {
+                        if (stockService.releaseStock(r.getProductId(), r.getSize(), r.getQuantity()) == 0) {
+                            throw new AppException(
+                                    String.format("Cannot return stock of reservation %d: product %d size %s not found",
+                                            r.getId(), r.getProductId(), r.getSize()),
+                                    HttpStatus.NOT_FOUND
+                            );
+                        }
+                        touchedProductIds.add(r.getProductId());
+                    }
+                }
+                // Hàng đã được nhả lúc hết hạn, chỉ cần đánh dấu
+                case EXPIRED -> transition(r, InventoryReservation.Status.EXPIRED, InventoryReservation.Status.RELEASED);
+                default -> {
+                }
+            }
+        }
+
+        afterStockChange(touchedProductIds);
+        return reservations.size();
+    }
+
+    /**
+     * Nhả 1 lô giữ chỗ đã quá hạn (gọi bởi InventoryReservationSweeper, mỗi lô 1 transaction).
+     *
+     * @return Số dòng quá hạn đã xử lý trong lô.
+     */
+    @Transactional
+    public int expireBatch(int batchSize) {
+        List<InventoryReservation> expired = reservationRepository.findExpiredHolds(
+                LocalDateTime.now(), PageRequest.of(0, batchSize));
+
+        Set<Long> touchedProductIds = new LinkedHashSet<>();
+        for (InventoryReservation r : expired) {
+            if (transition(r, InventoryReservation.Status.HELD, InventoryReservation.Status.EXPIRED)) {
+                if (stockService.releaseHold(r.getProductId(), r.getSize(), r.getQuantity()) == 0) {
+                    // Không ném lỗi để 1 dòng lệch không chặn cả lô của sweeper
+                    log.error("Reservation {} expired but reserved_quantity of product {} size {} is lower than {}",
+                            r.getId(), r.getProductId(), r.getSize(), r.getQuantity());
+                }
+                touchedProductIds.add(r.getProductId());
+            }
+        }
+
+        afterStockChange(touchedProductIds);
+        return expired.size();
+    }
+
+    private boolean transition(InventoryReservation r,
+                               InventoryReservation.Status from,
+                               InventoryReservation.Status to) {
+        return reservationRepository.transition(r.getId(), from, to) == 1;
+    }
+
+    /**
+     * UPDATE ... SET reserved_quantity = reserved_quantity + :q WHERE ... AND quantity - reserved_quantity >= :q.
+     * Affected rows = 0 nghĩa là không đủ hàng hoặc không có inventory → ném exception.
+     */
+    private void holdOrThrow(InventoryCheckRequest rq) {
+        if (rq.getQuantity() == null || rq.getQuantity() <= 0) {
+            throw new AppException("Quantity must be greater than 0", HttpStatus.BAD_REQUEST);
+        }
+        if (stockService.holdStock(rq.getProductId(), rq.getSize(), rq.getQuantity()) == 1) {
+            return;
+        }
+
+        if (!inventoryRepository.existsByProductIdAndSize(rq.getProductId(), rq.getSize())) {
+            throw new AppException("Inventory not found", HttpStatus.NOT_FOUND);
+        }
+        throw new AppException(
+                String.format("Insufficient stock for product %d size %s",
+                        rq.getProductId(), rq.getSize()),
+                HttpStatus.BAD_REQUEST
+        );
+    }
+
+    private void afterStockChange(Set<Long> productIds) {
+        // ✅ Mỗi product chỉ refresh summary 1 lần dù có nhiều dòng giữ chỗ, sau khi transaction commit
+        listingSummaryService.refreshAfterCommit(productIds);
+        productIds.forEach(productCacheService::evictProductDetail);
+    }
+}
@@ -0,0 +1,45 @@
+package com.smartvn.product_service.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Định kỳ nhả các giữ chỗ đã quá hạn (đơn không được thanh toán / xác nhận kịp).
+ * Xử lý theo lô, mỗi lô 1 transaction riêng để không khóa inventory quá lâu.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryReservationSweeper {
+
+    private static final int MAX_BATCHES_PER_RUN = 50;
+
+    private final InventoryReservationService reservationService;
+
+    @Value("${inventory.reservation.sweep-batch-size:200}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${inventory.reservation.sweep-interval-ms:60000}")
+    public void releaseExpiredHolds() {
+        int total = 0;
+        for (int i = 0; i < MAX_BATCHES_PER_RUN; i++) {
+            int processed;
+            try {
+                processed = reservationService.expireBatch(batchSize);
+            } catch (Exception e) {
+                log.error("❌ Failed to release expired inventory holds: {}", e.getMessage());
+                break;
+            }
+            total += processed;
+            if (processed < batchSize) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("✅ Released {} expired inventory holds", total);
+        }
+    }
+}
@@ -14,7 +14,15 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -23,73 +31,152 @@ public class InventoryService {
 
     private final InventoryRepository inventoryRepository;
     private final ProductRepository productRepository;
+    private final ProductListingSummaryService listingSummaryService;
+    private final ProductCacheService productCacheService;
+    private final HotSkuStockService stockService;
 
     public List<Inventory> getInventoriesByProduct(Long productId) {
         return inventoryRepository.findAllByProductId(productId);
     }
 
+    /**
+     * Sửa tồn kho / giá từ admin bằng câu UPDATE chỉ ghi cột được sửa: không ghi đè reserved_quantity
+     * (và quantity khi chỉ sửa giá) mà các giao dịch giữ chỗ / chốt đơn đồng thời vừa cập nhật.
+     */
+    @Transactional
     public void updateInventoryQuantity(Long inventoryId, Integer quantity) {
         Inventory inventory = inventoryRepository.findById(inventoryId).orElseThrow(() -> new RuntimeException("Inventory not found"));
-        inventory.setQuantity(quantity);
-        inventoryRepository.save(inventory);
+        inventoryRepository.updateQuantity(inventoryId, quantity);
+        stockService.reload(inventory.getProduct().getId(), inventory.getSize());
+        listingSummaryService.refreshAfterCommit(inventory.getProduct().getId());
+        productCacheService.evictProductDetail(inventory.getProduct().getId());
     }
 
+    @Transactional
     public void updateInventoryPrice(Long inventoryId, BigDecimal price, Integer discount) {
         Inventory inventory = inventoryRepository.findById(inventoryId).orElseThrow(() -> new RuntimeException("Inventory not found"));
-        inventory.setPrice(price);
-        inventory.setDiscountPercent(discount);
-        inventoryRepository.save(inventory);
+        inventoryRepository.updatePrice(inventoryId, price, discount, Inventory.discountedPrice(price, discount));
+        listingSummaryService.refreshAfterCommit(inventory.getProduct().getId());
+        productCacheService.evictProductDetail(inventory.getProduct().getId());
     }
 
+    /**
+     * Trừ kho cho cả đơn hàng.
+     * Mỗi dòng là 1 câu UPDATE có điều kiện quantity >= :q (không đọc-rồi-ghi), nên không oversell
+     * khi nhiều checkout đồng thời. Chỉ cần 1 dòng thất bại là ném exception → rollback toàn bộ batch.
+     */
     @Transactional
     public void batchReduceInventory(List<InventoryCheckRequest> requests) {
-        for(InventoryCheckRequest rq: requests) {
-            Inventory inv = inventoryRepository.findByProductIdAndSize(rq.getProductId(), rq.getSize())
-                    .orElseThrow(() -> new AppException("Inventory not found", HttpStatus.NOT_FOUND));
-
-            if(inv.getQuantity() <rq.getQuantity()) {
-                throw new AppException(
-                        String.format("Insufficient stock for product %d size %s",
-                                rq.getProductId(), rq.getSize()),
-                        HttpStatus.BAD_REQUEST
-                );
-            }
-            inv.setQuantity(inv.getQuantity() - rq.getQuantity());
-            inventoryRepository.save(inv);
+        // Sắp xếp theo (productId, size) để các transaction đồng thời khóa row cùng thứ tự → tránh deadlock
+        List<InventoryCheckRequest> ordered = requests.stream()
+                .sorted(Comparator.comparing(InventoryCheckRequest::getProductId)
+                        .thenComparing(InventoryCheckRequest::getSize, Comparator.nullsFirst(Comparator.naturalOrder())))
+                .collect(Collectors.toList());
+
+        Set<Long> touchedProductIds = new LinkedHashSet<>();
+        for (InventoryCheckRequest rq : ordered) {
+            reserveOrThrow(rq);
+            touchedProductIds.add(rq.getProductId());
         }
+        // ✅ Mỗi product chỉ refresh summary 1 lần dù có nhiều size trong đơn
+        listingSummaryService.refreshAfterCommit(touchedProductIds);
+        touchedProductIds.forEach(productCacheService::evictProductDetail);
     }
 
     public boolean checkInventoryAvailability(InventoryCheckRequest req) {
+        Integer hotAvailable = stockService.availableQuantity(req.getProductId(), req.getSize());
+        if (hotAvailable != null) {
+            return hotAvailable >= req.getQuantity();
+        }
         Inventory inv = inventoryRepository.findByProductIdAndSize(req.getProductId(), req.getSize())
                 .orElse(null);
-        return inv != null && inv.getQuantity() >= req.getQuantity();
+        return inv != null && inv.getAvailableQuantity() >= req.getQuantity();
     }
 
-    @Transactional
-    public void batchReduceOneInventory(InventoryCheckRequest rq) {
-        Inventory inv = inventoryRepository.findByProductIdAndSize(rq.getProductId(), rq.getSize())
-                .orElseThrow(() -> new AppException("Inventory not found", HttpStatus.NOT_FOUND));
+    /**
+     * Kiểm tra tồn kho cho cả giỏ hàng bằng 1 query (thay vì 1 query cho mỗi dòng).
+     * Các dòng trùng (productId, size) được cộng dồn số lượng trước khi so với tồn kho.
+     *
+     * @return Map key "productId-size" → còn đủ hàng hay không.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Boolean> batchCheckAvailability(List<InventoryCheckRequest> requests) {
+        Map<String, Integer> requested = new LinkedHashMap<>();
+        for (InventoryCheckRequest rq : requests) {
+            String key = stockKey(rq.getProductId(), rq.getSize());
+            requested.merge(key, rq.getQuantity() != null ? rq.getQuantity() : 0, Integer::sum);
+        }
 
-        if(inv.getQuantity() <rq.getQuantity()) {
-            throw new AppException(
-                    String.format("Insufficient stock for product %d size %s",
-                            rq.getProductId(), rq.getSize()),
-                    HttpStatus.BAD_REQUEST
-            );
+        Set<Long> productIds = requests.stream()
+                .map(InventoryCheckRequest::getProductId)
+                .collect(Collectors.toSet());
+        Map<String, Integer> available = new HashMap<>();
+        if (!productIds.isEmpty()) {
+            for (Inventory inv : inventoryRepository.findAllByProductIdIn(productIds)) {
+                Integer hotAvailable = stockService.availableQuantity(inv.getProduct().getId(), inv.getSize());
+                available.put(stockKey(inv.getProduct().getId(), inv.getSize()),
+                        hotAvailable != null ? hotAvailable : inv.getAvailableQuantity());
+            }
         }
-        inv.setQuantity(inv.getQuantity() - rq.getQuantity());
-        inventoryRepository.save(inv);
+
+        Map<String, Boolean> results = new LinkedHashMap<>();
+        requested.forEach((key, quantity) -> {
+            Integer stock = available.get(key);
+            results.put(key, quantity > 0 && stock != null && stock >= quantity);
+        });
+        return results;
+    }
+
+    private static String stockKey(Long productId, String size) {
+        return productId + "-" + size;
+    }
+
+    @Transactional
+    public void batchReduceOneInventory(InventoryCheckRequest rq) {
+        reserveOrThrow(rq);
+        listingSummaryService.refreshAfterCommit(rq.getProductId());
+        productCacheService.evictProductDetail(rq.getProductId());
     }
 
     @Transactional
     public void batchRetoreOneInventory(InventoryCheckRequest rq) {
-        Inventory inv = inventoryRepository.findByProductIdAndSize(rq.getProductId(), rq.getSize())
-                .orElseThrow(() -> new AppException("Inventory not found", HttpStatus.NOT_FOUND));
+        validateQuantity(rq);
+        int updated = stockService.releaseStock(rq.getProductId(), rq.getSize(), rq.getQuantity());
+        if (updated == 0) {
+            throw new AppException("Inventory not found", HttpStatus.NOT_FOUND);
+        }
+        listingSummaryService.refreshAfterCommit(rq.getProductId());
+        productCacheService.evictProductDetail(rq.getProductId());
+    }
+
+    /**
+     * UPDATE ... SET quantity = quantity - :q WHERE ... AND quantity >= :q.
+     * Affected rows = 0 nghĩa là không đủ hàng hoặc không có inventory → ném exception.
+     */
+    private void reserveOrThrow(InventoryCheckRequest rq) {
+        validateQuantity(rq);
+        int updated = stockService.reserveStock(rq.getProductId(), rq.getSize(), rq.getQuantity());
+        if (updated == 1) {
+            return;
+        }
+
+        if (!inventoryRepository.existsByProductIdAndSize(rq.getProductId(), rq.getSize())) {
+            throw new AppException("Inventory not found", HttpStatus.NOT_FOUND);
+        }
+        throw new AppException(
+                String.format("Insufficient stock for product %d size %s",
+                        rq.getProductId(), rq.getSize()),
+                HttpStatus.BAD_REQUEST
+        );
+    }
 
-        inv.setQuantity(inv.getQuantity() + rq.getQuantity());
-        inventoryRepository.save(inv);
+    private void validateQuantity(InventoryCheckRequest rq) {
+        if (rq.getQuantity() == null || rq.getQuantity() <= 0) {
+            throw new AppException("Quantity must be greater than 0", HttpStatus.BAD_REQUEST);
+        }
     }
 
+    @Transactional
     public Inventory addInventory(Long productId, UpdateInventoryRequest req) {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new AppException("Product not found", HttpStatus.NOT_FOUND));
@@ -101,19 +188,40 @@ public class InventoryService {
         inv.setPrice(req.getPrice());
         inv.setDiscountPercent(req.getDiscountPercent());
 
-        return inventoryRepository.save(inv);
+        Inventory saved = inventoryRepository.save(inv);
+        listingSummaryService.refreshAfterCommit(productId);
+        productCacheService.evictProductDetail(productId);
+        return saved;
     }
 
+    @Transactional
     public Inventory updateInventory(Long inventoryId, UpdateInventoryRequest req) {
         Inventory inv = inventoryRepository.findById(inventoryId)
                 .orElseThrow(() -> new AppException("Inventory not found", HttpStatus.NOT_FOUND));
 
-        if (req.getSize() != null) inv.setSize(req.getSize());
-        if (req.getQuantity() != null) inv.setQuantity(req.getQuantity());
-        if (req.getPrice() != null) inv.setPrice(req.getPrice());
-        if (req.getDiscountPercent() != null) inv.setDiscountPercent(req.getDiscountPercent());
+        Long productId = inv.getProduct().getId();
+        String previousSize = inv.getSize();
+        if (req.getSize() != null) {
+            inventoryRepository.updateSize(inventoryId, req.getSize());
+        }
+        if (req.getQuantity() != null) {
+            inventoryRepository.updateQuantity(inventoryId, req.getQuantity());
+        }
+        if (req.getPrice() != null || req.getDiscountPercent() != null) {
+            BigDecimal price = req.getPrice() != null ? req.getPrice() : inv.getPrice();
+            Integer discount = req.getDiscountPercent() != null ? req.getDiscountPercent() : inv.getDiscountPercent();
+            inventoryRepository.updatePrice(inventoryId, price, discount, Inventory.discountedPrice(price, discount));
+        }
 
-        return inventoryRepository.save(inv);
+        Inventory saved = inventoryRepository.findById(inventoryId)
+                .orElseThrow(() -> new AppException("Inventory not found", HttpStatus.NOT_FOUND));
+        stockService.reload(productId, previousSize);
+        if (!Objects.equals(previousSize, saved.getSize())) {
+            stockService.reload(productId, saved.getSize());
+        }
+        listingSummaryService.refreshAfterCommit(productId);
+        productCacheService.evictProductDetail(productId);
+        return saved;
     }
 
     // ✅ THÊM VÀO InventoryService.java
@@ -138,6 +246,9 @@ public class InventoryService {
         }
 
         inventoryRepository.delete(inventory);
+        stockService.reload(productId, inventory.getSize());
+        listingSummaryService.refreshAfterCommit(productId);
+        productCacheService.evictProductDetail(productId);
         log.info("✅ Deleted inventory variant: {} - {}",
                 productId, inventory.getSize());
     }
@@ -0,0 +1,484 @@
+package com.smartvn.product_service.service;
+
+import com.smartvn.product_service.dto.admin.BulkImportReport;
+import com.smartvn.product_service.dto.admin.CreateProductRequest;
+import com.smartvn.product_service.exceptions.AppException;
+import com.smartvn.product_service.model.Category;
+import com.smartvn.product_service.model.Inventory;
+import com.smartvn.product_service.repository.CategoryRepository;
+import com.smartvn.product_service.repository.ProductRepository;
+import com.smartvn.product_service.util.SearchTextUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Engine import sản phẩm hàng loạt.
+ * <ul>
+ *   <li>Kiểm tra trùng (title, brand) bằng HashSet nạp 1 lần từ DB thay vì quét cả catalogue cho mỗi dòng.</li>
+ *   <li>Danh mục được nạp 1 lần vào bộ nhớ, chưa có thì tạo qua CategoryService.getOrCreateCategoryId.</li>
+ *   <li>Ghi bằng JDBC batch theo từng chunk, mỗi chunk 1 transaction; chunk lỗi thì ghi lại từng dòng
+ *       để chỉ đánh dấu lỗi đúng dòng hỏng.</li>
+ *   <li>Bảng product_listing_summary và product_search_index được ghi luôn trong chunk
+ *       (tính từ dữ liệu import), không refresh từng sản phẩm.</li>
+ * </ul>
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductBulkImportService {
+
+    private static final String INSERT_PRODUCT_SQL =
+            "INSERT INTO products (title, brand, description, category_id, color, weight, dimension, " +
+                    "battery_type, battery_capacity, ram_capacity, rom_capacity, screen_size, connection_port, " +
+                    "detailed_review, powerful_performance, num_ratings, average_rating, quantity_sold, " +
+                    "is_active, warning_count, created_at, updated_at) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0, 0, 0, true, 0, ?, ?)";
+
+    private static final String INSERT_INVENTORY_SQL =
+            "INSERT INTO inventory (product_id, size, quantity, reserved_quantity, price, discount_percent, " +
+                    "discounted_price, created_at, updated_at) VALUES (?, ?, ?, 0, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_IMAGE_SQL =
+            "INSERT INTO images (product_id, download_url, file_name, file_type, created_at) VALUES (?, ?, ?, ?, ?)";
+
+    private static final String INSERT_SUMMARY_SQL =
+            "INSERT INTO product_listing_summary (product_id, thumbnail_url, min_price, max_price, " +
+                    "min_discounted_price, max_discounted_price, total_stock, has_discount, variant_count, updated_at) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_SEARCH_DOCUMENT_SQL =
+            "INSERT INTO product_search_index (product_id, search_text, updated_at) VALUES (?, ?, ?)";
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final CategoryService categoryService;
+    private final CategoryTreeCache categoryTreeCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${import.bulk.chunk-size:500}")
+    private int chunkSize;
+
+    /**
+     * Dòng đã qua validate, chờ ghi trong chunk.
+     */
+    private record PendingRow(int index, CreateProductRequest request, CategoryRef category, String key) {
+    }
+
+    /**
+     * Thông tin danh mục cần cho import (không giữ entity để tránh lazy-loading ngoài transaction).
+     */
+    private record CategoryRef(Long id, String name, Integer level, Long parentId, String parentName) {
+    }
+
+    public BulkImportReport importProducts(List<CreateProductRequest> rows) {
+        return importProducts(rows.iterator(), report -> {
+        });
+    }
+
+    /**
+     * Import từ một nguồn dòng bất kỳ (list, file stream...).
+     *
+     * @param rows           Các dòng sản phẩm theo thứ tự; index trong báo cáo lỗi tính theo thứ tự này.
+     *                       next() ném AppException = dòng hỏng (ghi lỗi, đọc tiếp);
+     *                       UncheckedIOException = nguồn hỏng (dừng import, ném lại cho nơi gọi).
+     * @param onChunkWritten Được gọi sau mỗi chunk đã commit (báo tiến độ).
+     */
+    public BulkImportReport importProducts(Iterator<CreateProductRequest> rows,
+                                           Consumer<BulkImportReport> onChunkWritten) {
+        BulkImportReport report = new BulkImportReport();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        Set<String> existingKeys = loadExistingKeys();
+        CategoryResolver categories = new CategoryResolver();
+        List<PendingRow> chunk = new ArrayList<>(chunkSize);
+
+        int index = 0;
+        while (rows.hasNext()) {
+            int rowIndex = index++;
+            CreateProductRequest req = null;
+            try {
+                // next() có thể ném AppException khi dòng trong file không parse được
+                req = rows.next();
+                validate(req);
+                String key = titleBrandKey(req.getTitle(), req.getBrand());
+                if (existingKeys.contains(key)) {
+                    throw new AppException("Product already exists", HttpStatus.CONFLICT);
+                }
+                CategoryRef category = categories.resolve(req);
+                existingKeys.add(key);
+                chunk.add(new PendingRow(rowIndex, req, category, key));
+            } catch (UncheckedIOException e) {
+                // Không đọc được nguồn (upload bị cắt, mất kết nối) → dừng cả lần import, không coi là lỗi dòng.
+                // Các chunk trước đã commit; chunk đang gom bị bỏ.
+                log.warn("⚠️ Bulk import aborted after {} rows ({} imported): {}",
+                        rowIndex, report.getSuccessCount(), rootMessage(e));
+                throw e;
+            } catch (RuntimeException e) {
+                report.addFailure(rowIndex, req != null ? req.getTitle() : null, rootMessage(e));
+            }
+            report.setTotalRows(index);
+
+            // Mỗi chunkSize dòng đọc vào: ghi các dòng hợp lệ và báo tiến độ
+            if (index % chunkSize == 0) {
+                writeChunk(chunk, report, existingKeys, tx);
+                chunk.clear();
+                onChunkWritten.accept(report);
+            }
+        }
+
+        if (index == 0 || index % chunkSize != 0) {
+            writeChunk(chunk, report, existingKeys, tx);
+            onChunkWritten.accept(report);
+        }
+
+        log.info("✅ Bulk import finished: {}/{} rows imported, {} failed",
+                report.getSuccessCount(), report.getTotalRows(), report.getFailureCount());
+        return report;
+    }
+
+    // ============================================
+    // GHI CHUNK
+    // ============================================
+
+    private void writeChunk(List<PendingRow> chunk, BulkImportReport report,
+                            Set<String> existingKeys, TransactionTemplate tx) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            List<Long> ids = tx.execute(status -> insertRows(chunk));
+            recordSuccess(report, chunk, ids);
+            return;
+        } catch (Exception e) {
+            log.warn("⚠️ Chunk of {} rows failed ({}), retrying row by row", chunk.size(), rootMessage(e));
+        }
+
+        for (PendingRow row : chunk) {
+            try {
+                List<Long> ids = tx.execute(status -> insertRows(List.of(row)));
+                recordSuccess(report, List.of(row), ids);
+            } catch (Exception e) {
+                existingKeys.remove(row.key());
+                report.addFailure(row.index(), row.request().getTitle(), rootMessage(e));
+            }
+        }
+    }
+
+    private void recordSuccess(BulkImportReport report, List<PendingRow> rows, List<Long> ids) {
+        for (int i = 0; i < rows.size(); i++) {
+            report.addCreated(rows.get(i).index(), ids.get(i));
+        }
+    }
+
+    /**
+     * Ghi 1 chunk: products (lấy ID tự tăng từ batch), rồi inventory, images, summary, search document.
+     */
+    private List<Long> insertRows(List<PendingRow> rows) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Long> productIds = insertProducts(rows, now);
+
+        List<Object[]> inventoryArgs = new ArrayList<>();
+        List<Object[]> imageArgs = new ArrayList<>();
+        List<Object[]> summaryArgs = new ArrayList<>();
+        List<Object[]> documentArgs = new ArrayList<>();
+
+        for (int i = 0; i < rows.size(); i++) {
+            Long productId = productIds.get(i);
+            CreateProductRequest req = rows.get(i).request();
+            CategoryRef category = rows.get(i).category();
+
+            List<Inventory> variants = toInventories(req.getVariants());
+            for (Inventory inv : variants) {
+                inventoryArgs.add(new Object[]{productId, inv.getSize(), inv.getQuantity(), inv.getPrice(),
+                        inv.getDiscountPercent(), inv.getDiscountedPrice(), now, now});
+            }
+
+            List<CreateProductRequest.ImageUrlDTO> images = req.getImageUrls() != null ? req.getImageUrls() : List.of();
+            for (CreateProductRequest.ImageUrlDTO image : images) {
+                imageArgs.add(new Object[]{productId, image.getDownloadUrl(), image.getFileName(), image.getFileType(), now});
+            }
+
+            summaryArgs.add(new Object[]{
+                    productId,
+                    images.isEmpty() ? null : images.get(0).getDownloadUrl(),
+                    variants.stream().map(Inventory::getPrice).min(BigDecimal::compareTo).orElse(null),
+                    variants.stream().map(Inventory::getPrice).max(BigDecimal::compareTo).orElse(null),
+                    variants.stream().map(Inventory::getDiscountedPrice).filter(Objects::nonNull).min(BigDecimal::compareTo).orElse(null),
+                    variants.stream().map(Inventory::getDiscountedPrice).filter(Objects::nonNull).max(BigDecimal::compareTo).orElse(null),
+                    variants.stream().mapToLong(Inventory::getQuantity).sum(),
+                    variants.stream().anyMatch(inv -> inv.getDiscountPercent() > 0),
+                    variants.size(),
+                    now
+            });
+
+            documentArgs.add(new Object[]{
+                    productId,
+                    SearchTextUtils.buildDocument(req.getTitle(), req.getBrand(),
+                            category.name(), category.parentName(), req.getDescription()),
+                    now
+            });
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_INVENTORY_SQL, inventoryArgs);
+        if (!imageArgs.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_IMAGE_SQL, imageArgs);
+        }
+        jdbcTemplate.batchUpdate(INSERT_SUMMARY_SQL, summaryArgs);
+        jdbcTemplate.batchUpdate(INSERT_SEARCH_DOCUMENT_SQL, documentArgs);
+        return productIds;
+    }
+
+    /**
+     * Batch insert products và đọc lại ID tự tăng theo đúng thứ tự dòng.
+     */
+    private List<Long> insertProducts(List<PendingRow> rows, Timestamp now) {
+        return jdbcTemplate.execute((ConnectionCallback<List<Long>>) con -> {
+            try (PreparedStatement ps = con.prepareStatement(INSERT_PRODUCT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (PendingRow row : rows) {
+                    CreateProductRequest req = row.request();
+                    int p = 1;
+                    ps.setString(p++, req.getTitle().trim());
+                    ps.setString(p++, req.getBrand().trim());
+                    ps.setString(p++, req.getDescription());
+                    ps.setObject(p++, row.category().id(), Types.BIGINT);
+                    ps.setString(p++, req.getColor());
+                    ps.setString(p++, req.getWeight());
+                    ps.setString(p++, req.getDimension());
+                    ps.setString(p++, req.getBatteryType());
+                    ps.setString(p++, req.getBatteryCapacity());
+                    ps.setString(p++, req.getRamCapacity());
+                    ps.setString(p++, req.getRomCapacity());
+                    ps.setString(p++, req.getScreenSize());
+                    ps.setString(p++, req.getConnectionPort());
+                    ps.setString(p++, req.getDetailedReview());
+                    ps.setString(p++, req.getPowerfulPerformance());
+                    ps.setTimestamp(p++, now);
+                    ps.setTimestamp(p, now);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                List<Long> ids = new ArrayList<>(rows.size());
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    while (keys.next()) {
+                        ids.add(keys.getLong(1));
+                    }
+                }
+                if (ids.size() != rows.size()) {
+                    throw new IllegalStateException("Expected " + rows.size() + " generated ids but got " + ids.size());
+                }
+                return ids;
+            }
+        });
+    }
+
+    private List<Inventory> toInventories(List<CreateProductRequest.CreateInventoryDTO> variants) {
+        return variants.stream().map(variantDto -> {
+            Inventory inventory = new Inventory();
+            inventory.setSize(variantDto.getSize().trim());
+            inventory.setQuantity(variantDto.getQuantity());
+            inventory.setPrice(variantDto.getPrice());
+            inventory.setDiscountPercent(variantDto.getDiscountPercent() != null ? variantDto.getDiscountPercent() : 0);
+            inventory.calculateDiscountedPrice();
+            return inventory;
+        }).collect(Collectors.toList());
+    }
+
+    // ============================================
+    // VALIDATE
+    // ============================================
+
+    /**
+     * Kiểm tra những ràng buộc của CreateProductRequest / bảng products ngay từ đầu,
+     * để dòng hỏng bị loại trước khi vào batch thay vì làm hỏng cả chunk.
+     */
+    private void validate(CreateProductRequest req) {
+        if (req == null) {
+            throw new AppException("Empty row", HttpStatus.BAD_REQUEST);
+        }
+        requireText(req.getTitle(), "Title", 100);
+        requireText(req.getBrand(), "Brand", 50);
+
+        if (req.getVariants() == null || req.getVariants().isEmpty()) {
+            throw new AppException("Product must have at least one variant: " + req.getTitle(), HttpStatus.BAD_REQUEST);
+        }
+
+        Set<String> sizes = new HashSet<>();
+        for (CreateProductRequest.CreateInventoryDTO variant : req.getVariants()) {
+            requireText(variant.getSize(), "Size", 50);
+            if (!sizes.add(variant.getSize().trim())) {
+                throw new AppException("Duplicate variant size: " + variant.getSize(), HttpStatus.BAD_REQUEST);
+            }
+            if (variant.getQuantity() == null || variant.getQuantity() < 0) {
+                throw new AppException("Quantity must be >= 0 for size " + variant.getSize(), HttpStatus.BAD_REQUEST);
+            }
+            if (variant.getPrice() == null || variant.getPrice().signum() <= 0) {
+                throw new AppException("Price must be > 0 for size " + variant.getSize(), HttpStatus.BAD_REQUEST);
+            }
+            Integer discount = variant.getDiscountPercent();
+            if (discount != null && (discount < 0 || discount > 100)) {
+                throw new AppException("Discount must be between 0 and 100 for size " + variant.getSize(), HttpStatus.BAD_REQUEST);
+            }
+        }
+
+        if (req.getImageUrls() != null) {
+            for (CreateProductRequest.ImageUrlDTO image : req.getImageUrls()) {
+                requireText(image.getDownloadUrl(), "Image URL", 500);
+            }
+        }
+    }
+
+    private void requireText(String value, String field, int maxLength) {
+        if (value == null || value.isBlank()) {
+            throw new AppException(field + " is required", HttpStatus.BAD_REQUEST);
+        }
+        if (value.trim().length() > maxLength) {
+            throw new AppException(field + " must be less than " + maxLength + " characters", HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // ============================================
+    // TRÙNG LẶP & DANH MỤC
+    // ============================================
+
+    private Set<String> loadExistingKeys() {
+        Set<String> keys = new HashSet<>();
+        for (Object[] pair : productRepository.findAllTitleBrandPairs()) {
+            keys.add(titleBrandKey((String) pair[0], (String) pair[1]));
+        }
+        return keys;
+    }
+
+    private static String titleBrandKey(String title, String brand) {
+        return title.trim().toLowerCase(Locale.ROOT) + '\u0000' + brand.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String nameKey(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Danh mục của cả lần import: nạp toàn bộ bảng categories 1 lần (bảng nhỏ),
+     * tra cứu theo id / tên trong bộ nhớ, chỉ gọi CategoryService khi phải tạo danh mục mới.
+     */
+    private final class CategoryResolver {
+
+        private final Map<Long, CategoryRef> byId = new HashMap<>();
+        private final Map<String, CategoryRef> byName = new HashMap<>();
+
+        private CategoryResolver() {
+            List<Category> all = categoryRepository.findAll();
+            Map<Long, String> names = all.stream().collect(Collectors.toMap(Category::getId, Category::getName));
+            all.stream()
+                    .sorted(Comparator.comparing(Category::getId))
+                    .forEach(c -> {
+                        Long parentId = c.getParentCategory() != null ? c.getParentCategory().getId() : null;
+                        register(new CategoryRef(c.getId(), c.getName(), c.getLevel(), parentId,
+                                parentId != null ? names.get(parentId) : null));
+                    });
+        }
+
+        private CategoryRef resolve(CreateProductRequest req) {
+            if (req.getCategoryId() != null) {
+                CategoryRef ref = byId.get(req.getCategoryId());
+                if (ref == null) {
+                    throw new AppException("Category not found with id: " + req.getCategoryId(), HttpStatus.NOT_FOUND);
+                }
+                return ref;
+            }
+
+            if (req.getTopLevelCategory() == null || req.getTopLevelCategory().isBlank()
+                    || req.getSecondLevelCategory() == null || req.getSecondLevelCategory().isBlank()) {
+                throw new AppException(
+                        "Either categoryId or (topLevelCategory + secondLevelCategory) must be provided",
+                        HttpStatus.BAD_REQUEST);
+            }
+
+            CategoryRef parent = getOrCreate(req.getTopLevelCategory(), 1, null);
+            CategoryRef child = getOrCreate(req.getSecondLevelCategory(), 2, parent);
+            if (!Objects.equals(child.parentId(), parent.id())) {
+                throw new AppException(
+                        "Category '" + child.name() + "' already belongs to another parent category",
+                        HttpStatus.CONFLICT);
+            }
+            return child;
+        }
+
+        private CategoryRef getOrCreate(String rawName, int level, CategoryRef parent) {
+            String name = rawName.trim();
+            if (name.length() > 50) {
+                throw new AppException("Category name must be less than 50 characters", HttpStatus.BAD_REQUEST);
+            }
+
+            CategoryRef existing = byName.get(nameKey(name));
+            if (existing == null) {
+                existing = create(name, level, parent);
+            }
+            if (!Objects.equals(existing.level(), level)) {
+                throw new AppException(
+                        "Category '" + existing.name() + "' exists at level " + existing.level(),
+                        HttpStatus.CONFLICT);
+            }
+            return existing;
+        }
+
+        /**
+         * Tạo (hoặc lấy bản request khác vừa tạo) qua CategoryService - cùng 1 đường insert-if-absent
+         * với tạo sản phẩm đơn lẻ; service đã kiểm tra level / danh mục cha.
+         */
+        private CategoryRef create(String name, int level, CategoryRef parent) {
+            Long parentId = parent != null ? parent.id() : null;
+            Long id = categoryService.getOrCreateCategoryId(name, level, parentId);
+            CategoryTreeCache.Node node = categoryTreeCache.findById(id);
+            String savedName = node != null
+                    ? node.name()
+                    : categoryRepository.findById(id).map(Category::getName).orElse(name);
+            return register(new CategoryRef(id, savedName, level, parentId, parent != null ? parent.name() : null));
+        }
+
+        private CategoryRef register(CategoryRef ref) {
+            byId.put(ref.id(), ref);
+            byName.put(nameKey(ref.name()), ref);
+            return ref;
+        }
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root.getMessage() != null ? root.getMessage() : e.getClass().getSimpleName();
+    }
+}
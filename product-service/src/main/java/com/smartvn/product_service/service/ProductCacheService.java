@@ -0,0 +1,50 @@
+package com.smartvn.product_service.service;
+
+import com.smartvn.product_service.config.CacheConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Invalidate cache chi tiết sản phẩm / tóm tắt đánh giá khi dữ liệu thay đổi.
+ * Nếu đang trong transaction thì xóa thêm 1 lần sau commit, tránh trường hợp request đọc song song
+ * nạp lại dữ liệu cũ vào cache trước khi transaction ghi kết thúc.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductCacheService {
+
+    private final CacheManager cacheManager;
+
+    public void evictProductDetail(Long productId) {
+        evict(CacheConfig.PRODUCT_DETAIL_CACHE, productId);
+    }
+
+    public void evictReviewSummary(Long productId) {
+        evict(CacheConfig.REVIEW_SUMMARY_CACHE, productId);
+    }
+
+    private void evict(String cacheName, Long productId) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null || productId == null) {
+            return;
+        }
+
+        cache.evict(productId);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.evict(productId);
+                }
+            });
+        }
+        log.debug("Evicted {} cache for product {}", cacheName, productId);
+    }
+}
@@ -0,0 +1,252 @@
+package com.smartvn.product_service.service;
+
+import com.smartvn.product_service.dto.admin.BulkImportReport;
+import com.smartvn.product_service.dto.admin.CreateProductRequest;
+import com.smartvn.product_service.dto.admin.ImportJobDTO;
+import com.smartvn.product_service.exceptions.AppException;
+import com.smartvn.product_service.model.ImportJob;
+import com.smartvn.product_service.model.ImportJobFailure;
+import com.smartvn.product_service.repository.ImportJobFailureRepository;
+import com.smartvn.product_service.repository.ImportJobRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Import sản phẩm hàng loạt dạng job nền.
+ * Request chỉ tạo job (QUEUED) rồi trả về ngay; worker trong importJobExecutor chạy
+ * ProductBulkImportService (mỗi chunk 1 transaction riêng) và ghi tiến độ + lỗi từng dòng
+ * vào import_jobs / import_job_failures sau mỗi chunk. Chunk lỗi không rollback các chunk trước.
+ * Job gắn với instance nhận nó (ownerId) và được giữ heartbeat; chỉ job mất heartbeat mới bị coi là gián đoạn.
+ */
+@Service
+@Slf4j
+public class ProductImportJobService {
+
+    private static final String INTERRUPTED_MESSAGE = "Interrupted: the instance running this job stopped";
+
+    private final ImportJobRepository jobRepository;
+    private final ImportJobFailureRepository failureRepository;
+    private final ProductBulkImportService bulkImportService;
+    private final ThreadPoolTaskExecutor importJobExecutor;
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Set<Long> ownedJobIds = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Không có heartbeat trong khoảng này → instance giữ job coi như đã chết. Phải lớn hơn nhiều lần chu kỳ heartbeat.
+     */
+    @Value("${import.jobs.stale-after-ms:300000}")
+    private long staleAfterMs;
+
+    @Value("${import.jobs.max-stored-failures:1000}")
+    private int maxStoredFailures;
+
+    @Value("${import.jobs.max-reported-failures:200}")
+    private int maxReportedFailures;
+
+    public ProductImportJobService(ImportJobRepository jobRepository,
+                                   ImportJobFailureRepository failureRepository,
+                                   ProductBulkImportService bulkImportService,
+                                   @Qualifier("importJobExecutor") ThreadPoolTaskExecutor importJobExecutor) {
+        this.jobRepository = jobRepository;
+        this.failureRepository = failureRepository;
+        this.bulkImportService = bulkImportService;
+        this.importJobExecutor = importJobExecutor;
+    }
+
+    /**
+     * Tạo job và đưa vào hàng đợi. Hàng đợi đầy → 429, admin gửi lại sau.
+     */
+    public ImportJobDTO submit(List<CreateProductRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new AppException("Import must contain at least one product", HttpStatus.BAD_REQUEST);
+        }
+
+        ImportJob job = new ImportJob();
+        job.setStatus(ImportJob.Status.QUEUED);
+        job.setTotalRows(requests.size());
+        job.setOwnerId(instanceId);
+        job.setHeartbeatAt(LocalDateTime.now());
+        job = jobRepository.save(job);
+
+        Long jobId = job.getId();
+        List<CreateProductRequest> rows = new ArrayList<>(requests);
+        ownedJobIds.add(jobId);
+        try {
+            importJobExecutor.execute(() -> run(jobId, rows));
+        } catch (TaskRejectedException e) {
+            ownedJobIds.remove(jobId);
+            job.setStatus(ImportJob.Status.FAILED);
+            job.setErrorMessage("Import queue is full");
+            job.setFinishedAt(LocalDateTime.now());
+            jobRepository.save(job);
+            throw new AppException("Too many import jobs in progress, please retry later",
+                    HttpStatus.TOO_MANY_REQUESTS);
+        }
+
+        log.info("📦 Queued import job {} with {} rows", jobId, rows.size());
+        return toDTO(job, List.of());
+    }
+
+    @Transactional(readOnly = true)
+    public ImportJobDTO getJob(Long jobId) {
+        ImportJob job = jobRepository.findById(jobId)
+                .orElseThrow(() -> new AppException("Import job not found", HttpStatus.NOT_FOUND));
+        List<ImportJobFailure> failures = failureRepository.findByJobIdOrderByRowIndexAsc(
+                jobId, PageRequest.of(0, maxReportedFailures));
+        return toDTO(job, failures);
+    }
+
+    /**
+     * Dữ liệu job chỉ nằm trong bộ nhớ của instance nhận job → job của instance đã chết (hết heartbeat)
+     * không chạy tiếp được. Job instance khác đang chạy vẫn có heartbeat nên không bị đụng tới.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${import.jobs.stale-check-interval-ms:60000}",
+            initialDelayString = "${import.jobs.stale-check-interval-ms:60000}")
+    @Transactional
+    public void failInterruptedJobs() {
+        LocalDateTime now = LocalDateTime.now();
+        int interrupted = jobRepository.failStale(
+                List.of(ImportJob.Status.QUEUED, ImportJob.Status.RUNNING),
+                now.minusNanos(staleAfterMs * 1_000_000), INTERRUPTED_MESSAGE, now);
+        if (interrupted > 0) {
+            log.warn("⚠️ Marked {} import jobs without heartbeat as FAILED", interrupted);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${import.jobs.heartbeat-interval-ms:30000}")
+    @Transactional
+    public void heartbeat() {
+        if (!ownedJobIds.isEmpty()) {
+            jobRepository.touchHeartbeat(List.copyOf(ownedJobIds), instanceId, LocalDateTime.now());
+        }
+    }
+
+    private void run(Long jobId, List<CreateProductRequest> rows) {
+        try {
+            runOwned(jobId, rows);
+        } catch (OptimisticLockingFailureException e) {
+            // Job đã bị đánh FAILED (mất heartbeat quá lâu) → không ghi đè kết quả đó
+            log.warn("⚠️ Import job {} was marked as failed elsewhere, stopping", jobId);
+        } finally {
+            ownedJobIds.remove(jobId);
+        }
+    }
+
+    private void runOwned(Long jobId, List<CreateProductRequest> rows) {
+        ImportJob job = jobRepository.findById(jobId).orElse(null);
+        if (job == null || job.getStatus() != ImportJob.Status.QUEUED) {
+            return;
+        }
+        job.setStatus(ImportJob.Status.RUNNING);
+        job.setStartedAt(LocalDateTime.now());
+        job.setHeartbeatAt(LocalDateTime.now());
+        ImportJob running = jobRepository.save(job);
+
+        try {
+            BulkImportReport report = bulkImportService.importProducts(rows.iterator(),
+                    chunkReport -> saveProgress(running, chunkReport));
+            running.setStatus(ImportJob.Status.COMPLETED);
+            running.setFinishedAt(LocalDateTime.now());
+            jobRepository.save(running);
+            log.info("✅ Import job {} completed: {}/{} success, {} failed",
+                    jobId, report.getSuccessCount(), report.getTotalRows(), report.getFailureCount());
+        } catch (OptimisticLockingFailureException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("❌ Import job {} failed after {} rows", jobId, running.getProcessedRows(), e);
+            running.setStatus(ImportJob.Status.FAILED);
+            running.setErrorMessage(truncate(e.getMessage()));
+            running.setFinishedAt(LocalDateTime.now());
+            jobRepository.save(running);
+        }
+    }
+
+    /**
+     * Gọi sau mỗi chunk đã commit: lưu bộ đếm và lỗi của chunk, rồi bỏ kết quả chunk khỏi bộ nhớ.
+     */
+    private void saveProgress(ImportJob job, BulkImportReport report) {
+        int stored = job.getFailureCount();
+        List<ImportJobFailure> failures = new ArrayList<>();
+        for (BulkImportReport.FailureRecord f : report.getFailures()) {
+            if (stored++ >= maxStoredFailures) {
+                break;
+            }
+            failures.add(new ImportJobFailure(null, job.getId(), f.getIndex(),
+                    f.getProductTitle(), truncate(f.getErrorMessage())));
+        }
+        failureRepository.saveAll(failures);
+
+        job.setProcessedRows(report.getTotalRows());
+        job.setSuccessCount(report.getSuccessCount());
+        job.setFailureCount(report.getFailureCount());
+        job.setHeartbeatAt(LocalDateTime.now());
+        ImportJob saved = jobRepository.save(job);
+        job.setVersion(saved.getVersion());
+
+        report.getFailures().clear();
+        report.getCreated().clear();
+    }
+
+    private ImportJobDTO toDTO(ImportJob job, List<ImportJobFailure> failures) {
+        ImportJobDTO dto = new ImportJobDTO();
+        dto.setId(job.getId());
+        dto.setStatus(job.getStatus().name());
+        dto.setTotalRows(job.getTotalRows());
+        dto.setProcessedRows(job.getProcessedRows());
+        dto.setSuccessCount(job.getSuccessCount());
+        dto.setFailureCount(job.getFailureCount());
+        dto.setErrorMessage(job.getErrorMessage());
+        dto.setCreatedAt(job.getCreatedAt());
+        dto.setStartedAt(job.getStartedAt());
+        dto.setFinishedAt(job.getFinishedAt());
+        dto.setPercentComplete(job.getTotalRows() > 0
+                ? Math.round(job.getProcessedRows() * 1000.0 / job.getTotalRows()) / 10.0
+                : 0);
+        dto.setEtaSeconds(estimateRemainingSeconds(job));
+        dto.setFailures(failures.stream()
+                .map(f -> new BulkImportReport.FailureRecord(f.getRowIndex(), f.getProductTitle(), f.getErrorMessage()))
+                .collect(Collectors.toList()));
+        return dto;
+    }
+
+    /**
+     * ETA theo tốc độ trung bình từ lúc bắt đầu; null khi chưa có chunk nào xong hoặc job đã kết thúc.
+     */
+    private Long estimateRemainingSeconds(ImportJob job) {
+        if (job.getStatus() != ImportJob.Status.RUNNING || job.getStartedAt() == null || job.getProcessedRows() == 0) {
+            return null;
+        }
+        long elapsedMillis = Duration.between(job.getStartedAt(), LocalDateTime.now()).toMillis();
+        int remaining = job.getTotalRows() - job.getProcessedRows();
+        return Math.max(0, elapsedMillis * remaining / job.getProcessedRows() / 1000);
+    }
+
+    private String truncate(String message) {
+        if (message == null || message.length() <= 1000) {
+            return message;
+        }
+        return message.substring(0, 1000);
+    }
+}
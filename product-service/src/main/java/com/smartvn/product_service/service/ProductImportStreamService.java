@@ -0,0 +1,328 @@
+package com.smartvn.product_service.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.smartvn.product_service.dto.admin.BulkImportReport;
+import com.smartvn.product_service.dto.admin.CreateProductRequest;
+import com.smartvn.product_service.exceptions.AppException;
+import com.smartvn.product_service.util.CsvRecordReader;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+
+/**
+ * Import sản phẩm từ file NDJSON / CSV dạng stream.
+ * Đọc từng dòng → đưa qua ProductBulkImportService theo chunk → ghi kết quả từng dòng và tiến độ
+ * về response dưới dạng NDJSON. Sau mỗi chunk, kết quả đã gửi được xóa khỏi báo cáo nên heap
+ * không tăng theo kích thước file. Đọc và xử lý tuần tự: client upload chỉ nhanh bằng tốc độ ghi DB.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductImportStreamService {
+
+    public static final String FORMAT_NDJSON = "ndjson";
+    public static final String FORMAT_CSV = "csv";
+
+    private final ProductBulkImportService bulkImportService;
+    private final ObjectMapper objectMapper;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private record RowResultLine(String type, int index, String status, Long productId, String title, String error) {
+    }
+
+    private record ProgressLine(String type, int rowsRead, int imported, int failed) {
+    }
+
+    private record ErrorLine(String type, String error) {
+    }
+
+    /**
+     * @param in     Nội dung file (NDJSON: mỗi dòng 1 CreateProductRequest; CSV: xem CsvProductIterator).
+     * @param format {@link #FORMAT_NDJSON} hoặc {@link #FORMAT_CSV}.
+     * @param out    Nơi ghi kết quả NDJSON (flush sau mỗi chunk).
+     */
+    public BulkImportReport importStream(InputStream in, String format, OutputStream out) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        Iterator<CreateProductRequest> rows = FORMAT_CSV.equals(format)
+                ? new CsvProductIterator(new CsvRecordReader(reader))
+                : new NdjsonProductIterator(reader);
+
+        BulkImportReport report;
+        try {
+            report = bulkImportService.importProducts(rows, chunkReport -> writeChunkResults(chunkReport, out));
+        } catch (UncheckedIOException e) {
+            // Báo cho client biết import dừng giữa chừng (không có dòng "summary"), nếu response còn ghi được
+            try {
+                writeLine(out, new ErrorLine("error", "Import aborted: " + e.getMessage()));
+                flush(out);
+            } catch (UncheckedIOException ignored) {
+                // Kết nối đã đóng
+            }
+            throw e;
+        }
+        writeLine(out, new ProgressLine("summary", report.getTotalRows(), report.getSuccessCount(), report.getFailureCount()));
+        flush(out);
+        return report;
+    }
+
+    private void writeChunkResults(BulkImportReport report, OutputStream out) {
+        report.getFailures().forEach(f ->
+                writeLine(out, new RowResultLine("row", f.getIndex(), "FAILED", null, f.getProductTitle(), f.getErrorMessage())));
+        report.getCreated().forEach(c ->
+                writeLine(out, new RowResultLine("row", c.getIndex(), "CREATED", c.getProductId(), null, null)));
+        writeLine(out, new ProgressLine("progress", report.getTotalRows(), report.getSuccessCount(), report.getFailureCount()));
+        flush(out);
+
+        // Đã gửi cho client → bỏ khỏi bộ nhớ, chỉ giữ bộ đếm
+        report.getFailures().clear();
+        report.getCreated().clear();
+    }
+
+    private void writeLine(OutputStream out, Object line) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(line));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void flush(OutputStream out) {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // ============================================
+    // NDJSON
+    // ============================================
+
+    /**
+     * Mỗi dòng không rỗng là 1 object JSON. Dòng parse lỗi → AppException (engine ghi nhận lỗi dòng đó và đọc tiếp);
+     * lỗi đọc stream → UncheckedIOException (engine dừng import).
+     */
+    private final class NdjsonProductIterator implements Iterator<CreateProductRequest> {
+
+        private final BufferedReader reader;
+        private final ObjectReader rowReader = objectMapper.readerFor(CreateProductRequest.class);
+        private String nextLine;
+        private int lineNumber;
+
+        private NdjsonProductIterator(BufferedReader reader) {
+            this.reader = reader;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextLine != null;
+        }
+
+        @Override
+        public CreateProductRequest next() {
+            if (nextLine == null) {
+                throw new NoSuchElementException();
+            }
+            String line = nextLine;
+            int currentLine = lineNumber;
+            advance();
+            try {
+                return rowReader.readValue(line);
+            } catch (JsonProcessingException e) {
+                throw new AppException("Invalid JSON at line " + currentLine + ": " + e.getOriginalMessage(),
+                        HttpStatus.BAD_REQUEST);
+            }
+        }
+
+        private void advance() {
+            // Đọc lỗi thì không còn dòng kế tiếp (không trả lại dòng cũ)
+            nextLine = null;
+            try {
+                String line;
+                do {
+                    line = reader.readLine();
+                    lineNumber++;
+                } while (line != null && line.isBlank());
+                nextLine = line;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    // ============================================
+    // CSV
+    // ============================================
+
+    /**
+     * CSV có header, mỗi dòng là 1 variant. Các dòng liên tiếp cùng (title, brand) được gộp thành 1 sản phẩm;
+     * thông tin sản phẩm lấy từ dòng đầu tiên của nhóm.
+     * Cột: title, brand, description, categoryId, topLevelCategory, secondLevelCategory, color, weight,
+     * dimension, batteryType, batteryCapacity, ramCapacity, romCapacity, screenSize, connectionPort,
+     * detailedReview, powerfulPerformance, size, quantity, price, discountPercent,
+     * imageUrls (nhiều URL cách nhau bởi '|').
+     */
+    private static final class CsvProductIterator implements Iterator<CreateProductRequest> {
+
+        private final CsvRecordReader reader;
+        private final Map<String, Integer> columns = new HashMap<>();
+        private List<String> pending;
+        private int pendingLine;
+
+        private CsvProductIterator(CsvRecordReader reader) {
+            this.reader = reader;
+            List<String> header = read();
+            if (header == null) {
+                return;
+            }
+            for (int i = 0; i < header.size(); i++) {
+                columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+            for (String required : List.of("title", "brand", "size", "quantity", "price")) {
+                if (!columns.containsKey(required)) {
+                    throw new AppException("CSV header is missing column: " + required, HttpStatus.BAD_REQUEST);
+                }
+            }
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return pending != null;
+        }
+
+        @Override
+        public CreateProductRequest next() {
+            if (pending == null) {
+                throw new NoSuchElementException();
+            }
+            List<String> first = pending;
+            int firstLine = pendingLine;
+            List<List<String>> group = new ArrayList<>();
+            group.add(first);
+
+            String groupKey = groupKey(first);
+            advance();
+            while (pending != null && groupKey.equals(groupKey(pending))) {
+                group.add(pending);
+                advance();
+            }
+
+            try {
+                return toRequest(group);
+            } catch (RuntimeException e) {
+                throw new AppException("Invalid CSV row at line " + firstLine + ": " + e.getMessage(),
+                        HttpStatus.BAD_REQUEST);
+            }
+        }
+
+        private CreateProductRequest toRequest(List<List<String>> group) {
+            List<String> first = group.get(0);
+            CreateProductRequest req = new CreateProductRequest();
+            req.setTitle(get(first, "title"));
+            req.setBrand(get(first, "brand"));
+            req.setDescription(get(first, "description"));
+            String categoryId = get(first, "categoryid");
+            req.setCategoryId(categoryId != null ? Long.parseLong(categoryId) : null);
+            req.setTopLevelCategory(get(first, "toplevelcategory"));
+            req.setSecondLevelCategory(get(first, "secondlevelcategory"));
+            req.setColor(get(first, "color"));
+            req.setWeight(get(first, "weight"));
+            req.setDimension(get(first, "dimension"));
+            req.setBatteryType(get(first, "batterytype"));
+            req.setBatteryCapacity(get(first, "batterycapacity"));
+            req.setRamCapacity(get(first, "ramcapacity"));
+            req.setRomCapacity(get(first, "romcapacity"));
+            req.setScreenSize(get(first, "screensize"));
+            req.setConnectionPort(get(first, "connectionport"));
+            req.setDetailedReview(get(first, "detailedreview"));
+            req.setPowerfulPerformance(get(first, "powerfulperformance"));
+
+            List<CreateProductRequest.CreateInventoryDTO> variants = new ArrayList<>();
+            for (List<String> record : group) {
+                CreateProductRequest.CreateInventoryDTO variant = new CreateProductRequest.CreateInventoryDTO();
+                variant.setSize(get(record, "size"));
+                String quantity = get(record, "quantity");
+                variant.setQuantity(quantity != null ? Integer.parseInt(quantity) : null);
+                String price = get(record, "price");
+                variant.setPrice(price != null ? new BigDecimal(price) : null);
+                String discount = get(record, "discountpercent");
+                variant.setDiscountPercent(discount != null ? Integer.parseInt(discount) : 0);
+                variants.add(variant);
+            }
+            req.setVariants(variants);
+
+            String imageUrls = get(first, "imageurls");
+            if (imageUrls != null) {
+                req.setImageUrls(Arrays.stream(imageUrls.split("\\|"))
+                        .map(String::trim)
+                        .filter(url -> !url.isEmpty())
+                        .map(url -> {
+                            CreateProductRequest.ImageUrlDTO image = new CreateProductRequest.ImageUrlDTO();
+                            image.setDownloadUrl(url);
+                            return image;
+                        })
+                        .collect(Collectors.toList()));
+            }
+            return req;
+        }
+
+        private String groupKey(List<String> record) {
+            String title = get(record, "title");
+            String brand = get(record, "brand");
+            return (title != null ? title.toLowerCase(Locale.ROOT) : "") + '\u0000'
+                    + (brand != null ? brand.toLowerCase(Locale.ROOT) : "");
+        }
+
+        /**
+         * Giá trị đã trim của cột, null nếu không có cột hoặc ô trống.
+         */
+        private String get(List<String> record, String column) {
+            Integer i = columns.get(column);
+            if (i == null || i >= record.size()) {
+                return null;
+            }
+            String value = record.get(i).trim();
+            return value.isEmpty() ? null : value;
+        }
+
+        private void advance() {
+            // Đọc lỗi thì không còn bản ghi kế tiếp (không trả lại bản ghi cũ)
+            pending = null;
+            pending = read();
+            pendingLine = reader.getRecordLine();
+        }
+
+        private List<String> read() {
+            try {
+                return reader.next();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.smartvn.product_service.service;
+
+import com.smartvn.product_service.model.Image;
+import com.smartvn.product_service.model.Inventory;
+import com.smartvn.product_service.model.ProductListingSummary;
+import com.smartvn.product_service.repository.ImageRepository;
+import com.smartvn.product_service.repository.InventoryRepository;
+import com.smartvn.product_service.repository.ProductListingSummaryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Duy trì bảng product_listing_summary.
+ * Được gọi từ InventoryService / ImageService / ProductService khi dữ liệu sản phẩm đổi,
+ * nên trang listing chỉ cần đọc 1 dòng đã tính sẵn cho mỗi sản phẩm.
+ * Các ghi tồn kho (đặt hàng, giữ chỗ) dùng refreshAfterCommit: dòng tổng hợp được tính lại sau khi transaction
+ * commit, để row tổng hợp của sản phẩm bán chạy không bị khóa suốt transaction ghi tồn kho.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductListingSummaryService {
+
+    private final ProductListingSummaryRepository summaryRepository;
+    private final InventoryRepository inventoryRepository;
+    private final ImageRepository imageRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * Key gắn tập productId chờ refresh vào transaction hiện tại.
+     */
+    private final Object pendingRefreshKey = new Object();
+
+    /**
+     * Tính lại dòng tổng hợp của một sản phẩm từ inventory và images hiện tại.
+     *
+     * @param productId ID của sản phẩm.
+     * @return Dòng tổng hợp đã được lưu.
+     */
+    @Transactional
+    public ProductListingSummary refresh(Long productId) {
+        ProductListingSummary summary = summaryRepository.findById(productId)
+                .orElseGet(() -> new ProductListingSummary(productId));
+
+        List<Inventory> inventories = inventoryRepository.findAllByProductId(productId);
+
+        summary.setVariantCount(inventories.size());
+        summary.setTotalStock(inventories.stream()
+                .mapToLong(Inventory::getAvailableQuantity)
+                .sum());
+        summary.setHasDiscount(inventories.stream()
+                .anyMatch(inv -> inv.getDiscountPercent() != null && inv.getDiscountPercent() > 0));
+        summary.setMinPrice(inventories.stream().map(Inventory::getPrice)
+                .min(BigDecimal::compareTo).orElse(null));
+        summary.setMaxPrice(inventories.stream().map(Inventory::getPrice)
+                .max(BigDecimal::compareTo).orElse(null));
+        summary.setMinDiscountedPrice(inventories.stream().map(Inventory::getDiscountedPrice)
+                .filter(p -> p != null)
+                .min(BigDecimal::compareTo).orElse(null));
+        summary.setMaxDiscountedPrice(inventories.stream().map(Inventory::getDiscountedPrice)
+                .filter(p -> p != null)
+                .max(BigDecimal::compareTo).orElse(null));
+
+        summary.setThumbnailUrl(imageRepository.findFirstByProductIdOrderByIdAsc(productId)
+                .map(Image::getDownloadUrl)
+                .orElse(null));
+
+        return summaryRepository.save(summary);
+    }
+
+    /**
+     * Tính lại cho nhiều sản phẩm (mỗi sản phẩm chỉ tính 1 lần).
+     */
+    @Transactional
+    public void refreshAll(Collection<Long> productIds) {
+        productIds.stream().distinct().forEach(this::refresh);
+    }
+
+    /**
+     * Tính lại sau khi transaction hiện tại commit (ngay lập tức nếu không có transaction).
+     * Nhiều lần gọi trong cùng 1 transaction chỉ refresh mỗi sản phẩm 1 lần; rollback thì bỏ qua.
+     */
+    public void refreshAfterCommit(Long productId) {
+        refreshAfterCommit(List.of(productId));
+    }
+
+    @SuppressWarnings("unchecked")
+    public void refreshAfterCommit(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refreshInNewTransaction(productIds);
+            return;
+        }
+
+        Set<Long> pending = (Set<Long>) TransactionSynchronizationManager.getResource(pendingRefreshKey);
+        if (pending == null) {
+            Set<Long> ids = new LinkedHashSet<>();
+            TransactionSynchronizationManager.bindResource(pendingRefreshKey, ids);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refreshInNewTransaction(ids);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(pendingRefreshKey);
+                }
+            });
+            pending = ids;
+        }
+        pending.addAll(productIds);
+    }
+
+    private void refreshInNewTransaction(Collection<Long> productIds) {
+        // Sau commit transaction cũ vẫn còn gắn với thread → bắt buộc REQUIRES_NEW
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            tx.executeWithoutResult(status -> productIds.stream().distinct().forEach(this::refresh));
+        } catch (Exception e) {
+            // Dữ liệu tồn kho đã commit; không để lỗi ở bảng tổng hợp biến request thành lỗi
+            log.error("❌ Failed to refresh listing summary of products {}: {}", productIds, e.getMessage());
+        }
+    }
+
+    /**
+     * Khi khởi động: tạo dòng tổng hợp cho các sản phẩm chưa có
+     * (dữ liệu tạo trước khi có bảng này hoặc được import thẳng vào DB).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillMissingSummaries() {
+        List<Long> missing = summaryRepository.findProductIdsWithoutSummary();
+        if (missing.isEmpty()) {
+            return;
+        }
+        log.info("Backfilling listing summary for {} products", missing.size());
+        missing.forEach(this::refresh);
+    }
+}
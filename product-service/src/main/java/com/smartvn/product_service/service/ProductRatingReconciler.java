@@ -0,0 +1,32 @@
+package com.smartvn.product_service.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Định kỳ tính lại thống kê đánh giá từ bảng reviews để sửa sai lệch
+ * (review bị xóa thẳng trong DB, lỗi giữa chừng, dữ liệu có từ trước khi có bảng thống kê...).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductRatingReconciler {
+
+    private final ProductRatingService ratingService;
+
+    @Scheduled(cron = "${review.rating.reconcile-cron:0 30 3 * * *}")
+    public void reconcile() {
+        try {
+            int fixed = ratingService.reconcileAll();
+            if (fixed > 0) {
+                log.warn("⚠️ Reconciled rating stats for {} products", fixed);
+            } else {
+                log.info("✅ Rating stats are consistent");
+            }
+        } catch (Exception e) {
+            log.error("❌ Failed to reconcile rating stats: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.smartvn.product_service.service;
+
+import com.smartvn.product_service.dto.RatingAggregateDTO;
+import com.smartvn.product_service.exceptions.AppException;
+import com.smartvn.product_service.model.ProductRatingStats;
+import com.smartvn.product_service.repository.ProductRatingStatsRepository;
+import com.smartvn.product_service.repository.ProductRepository;
+import com.smartvn.product_service.repository.ReviewRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Duy trì thống kê đánh giá (product_rating_stats) theo kiểu cộng dồn:
+ * mỗi lần tạo / xóa review chỉ là 1 câu UPDATE +1 / -1, sau đó ghi lại num_ratings / average_rating
+ * của product. Không còn đọc toàn bộ review của product trên mỗi lần ghi.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductRatingService {
+
+    private final ProductRatingStatsRepository statsRepository;
+    private final ReviewRepository reviewRepository;
+    private final ProductRepository productRepository;
+    private final ProductCacheService productCacheService;
+
+    /**
+     * Gọi trong transaction tạo review, sau khi review đã được save.
+     * Không tự mở transaction: dùng chung transaction của người gọi (không đánh dấu rollback-only
+     * khi người gọi chủ động bỏ qua lỗi, như lúc admin xóa review).
+     */
+    public void onReviewAdded(Long productId, int rating) {
+        apply(productId, rating, 1);
+    }
+
+    /**
+     * Gọi trong transaction xóa review, sau khi review đã được delete.
+     */
+    public void onReviewRemoved(Long productId, int rating) {
+        apply(productId, rating, -1);
+    }
+
+    /**
+     * Tính lại toàn bộ thống kê từ bảng reviews bằng 1 câu GROUP BY, chỉ ghi những product bị lệch.
+     *
+     * @return Số product đã được sửa.
+     */
+    @Transactional
+    public int reconcileAll() {
+        Map<Long, RatingAggregateDTO> actual = new HashMap<>();
+        for (RatingAggregateDTO row : reviewRepository.aggregateRatingsByProduct()) {
+            actual.put(row.getProductId(), row);
+        }
+
+        int fixed = 0;
+        for (ProductRatingStats stats : statsRepository.findAll()) {
+            RatingAggregateDTO row = actual.remove(stats.getProductId());
+            if (copyFrom(stats, row)) {
+                statsRepository.save(stats);
+                syncProduct(stats);
+                fixed++;
+            }
+        }
+
+        // Product có review nhưng chưa có dòng thống kê
+        for (RatingAggregateDTO row : actual.values()) {
+            ProductRatingStats stats = new ProductRatingStats();
+            stats.setProductId(row.getProductId());
+            copyFrom(stats, row);
+            statsRepository.save(stats);
+            syncProduct(stats);
+            fixed++;
+        }
+        return fixed;
+    }
+
+    private void apply(Long productId, int rating, int delta) {
+        if (rating < 1 || rating > 5) {
+            throw new AppException("Rating must be between 1 and 5", HttpStatus.BAD_REQUEST);
+        }
+
+        if (statsRepository.applyRating(productId, rating, delta, (long) rating * delta) == 0) {
+            // Lần đầu product có thống kê: khóa dòng product để chỉ 1 transaction khởi tạo
+            productRepository.findByIdForUpdate(productId)
+                    .orElseThrow(() -> new AppException("Product not found while updating rating: " + productId,
+                            HttpStatus.NOT_FOUND));
+            if (statsRepository.applyRating(productId, rating, delta, (long) rating * delta) == 0) {
+                initialize(productId);
+            }
+        }
+
+        ProductRatingStats stats = statsRepository.findById(productId)
+                .orElseThrow(() -> new AppException("Rating stats not found for product: " + productId,
+                        HttpStatus.INTERNAL_SERVER_ERROR));
+        syncProduct(stats);
+        log.info("Updated product {} rating: {} stars from {} reviews.",
+                productId, stats.getAverageRating(), stats.getRatingCount());
+    }
+
+    /**
+     * Tạo dòng thống kê từ dữ liệu review hiện có (đã bao gồm thay đổi của transaction này).
+     */
+    private void initialize(Long productId) {
+        ProductRatingStats stats = new ProductRatingStats();
+        stats.setProductId(productId);
+        copyFrom(stats, reviewRepository.aggregateRatings(productId).orElse(null));
+        statsRepository.save(stats);
+    }
+
+    private void syncProduct(ProductRatingStats stats) {
+        productRepository.updateRating(stats.getProductId(), stats.getRatingCount(), stats.getAverageRating());
+        productCacheService.evictProductDetail(stats.getProductId());
+        productCacheService.evictReviewSummary(stats.getProductId());
+    }
+
+    /**
+     * @return true nếu có giá trị thay đổi.
+     */
+    private boolean copyFrom(ProductRatingStats stats, RatingAggregateDTO row) {
+        int count = row != null ? row.getRatingCount().intValue() : 0;
+        long sum = row != null && row.getRatingSum() != null ? row.getRatingSum() : 0L;
+        List<Integer> stars = row != null
+                ? List.of(row.getStar1Count().intValue(), row.getStar2Count().intValue(), row.getStar3Count().intValue(),
+                        row.getStar4Count().intValue(), row.getStar5Count().intValue())
+                : List.of(0, 0, 0, 0, 0);
+
+        boolean changed = !Objects.equals(stats.getRatingCount(), count)
+                || !Objects.equals(stats.getRatingSum(), sum)
+                || !Objects.equals(stats.getStar1Count(), stars.get(0))
+                || !Objects.equals(stats.getStar2Count(), stars.get(1))
+                || !Objects.equals(stats.getStar3Count(), stars.get(2))
+                || !Objects.equals(stats.getStar4Count(), stars.get(3))
+                || !Objects.equals(stats.getStar5Count(), stars.get(4));
+
+        stats.setRatingCount(count);
+        stats.setRatingSum(sum);
+        stats.setStar1Count(stars.get(0));
+        stats.setStar2Count(stars.get(1));
+        stats.setStar3Count(stars.get(2));
+        stats.setStar4Count(stars.get(3));
+        stats.setStar5Count(stars.get(4));
+        return changed;
+    }
+}
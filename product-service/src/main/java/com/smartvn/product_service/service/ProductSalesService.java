@@ -0,0 +1,72 @@
+package com.smartvn.product_service.service;
+
+import com.smartvn.product_service.dto.InventoryCheckRequest;
+import com.smartvn.product_service.dto.OrderSalesRequest;
+import com.smartvn.product_service.model.OrderSalesRecord;
+import com.smartvn.product_service.repository.OrderSalesRecordRepository;
+import com.smartvn.product_service.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Ghi nhận doanh số (quantity_sold) theo lô đơn hàng từ outbox của order-service.
+ * Idempotent theo orderId (bảng order_sales_records) nên order-service retry bao nhiêu lần cũng chỉ cộng 1 lần.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSalesService {
+
+    private final OrderSalesRecordRepository salesRecordRepository;
+    private final ProductRepository productRepository;
+    private final ProductCacheService productCacheService;
+
+    /**
+     * @return Số đơn được ghi nhận mới trong lần gọi này (đơn đã ghi nhận trước đó bị bỏ qua).
+     */
+    @Transactional
+    public int recordSales(List<OrderSalesRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            return 0;
+        }
+        Set<Long> seen = new HashSet<>(salesRecordRepository.findRecordedOrderIds(
+                requests.stream().map(OrderSalesRequest::getOrderId).collect(Collectors.toSet())));
+
+        // Gộp theo product để mỗi product chỉ 1 câu UPDATE; TreeMap → khóa row theo thứ tự id, tránh deadlock
+        Map<Long, Long> soldByProduct = new TreeMap<>();
+        int recorded = 0;
+        for (OrderSalesRequest request : requests) {
+            if (request.getOrderId() == null || !seen.add(request.getOrderId())) {
+                continue;
+            }
+            salesRecordRepository.save(new OrderSalesRecord(request.getOrderId(), null));
+            if (request.getItems() != null) {
+                for (InventoryCheckRequest item : request.getItems()) {
+                    soldByProduct.merge(item.getProductId(), item.getQuantity().longValue(), Long::sum);
+                }
+            }
+            recorded++;
+        }
+
+        soldByProduct.forEach((productId, quantity) -> {
+            if (productRepository.increaseQuantitySold(productId, quantity) == 0) {
+                log.warn("⚠️ Product {} not found while recording {} sold", productId, quantity);
+            }
+            productCacheService.evictProductDetail(productId);
+        });
+
+        if (recorded > 0) {
+            log.info("✅ Recorded sales of {} orders for {} products", recorded, soldByProduct.size());
+        }
+        return recorded;
+    }
+}
@@ -0,0 +1,111 @@
+package com.smartvn.product_service.service;
+
+import com.smartvn.product_service.model.Category;
+import com.smartvn.product_service.model.Product;
+import com.smartvn.product_service.model.ProductSearchDocument;
+import com.smartvn.product_service.repository.ProductRepository;
+import com.smartvn.product_service.repository.ProductSearchDocumentRepository;
+import com.smartvn.product_service.util.SearchTextUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Duy trì bảng product_search_index (inverted index FULLTEXT của MySQL).
+ * Document được cập nhật ngay khi tạo / sửa sản phẩm, nên không cần rebuild toàn bộ index.
+ * Khi chưa xác nhận được FULLTEXT index, tìm kiếm chạy bằng LIKE trên cùng bảng (chậm hơn nhưng không lỗi).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSearchIndexService {
+
+    private static final String FULLTEXT_INDEX_NAME = "ft_product_search_text";
+
+    private final ProductSearchDocumentRepository documentRepository;
+    private final ProductRepository productRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile boolean fullTextAvailable;
+
+    /**
+     * true khi FULLTEXT index đã có → được dùng MATCH ... AGAINST.
+     */
+    public boolean isFullTextAvailable() {
+        return fullTextAvailable;
+    }
+
+    /**
+     * Index (hoặc index lại) một sản phẩm.
+     *
+     * @param product Sản phẩm đã được lưu (có id).
+     */
+    @Transactional
+    public void index(Product product) {
+        ProductSearchDocument document = documentRepository.findById(product.getId())
+                .orElseGet(() -> new ProductSearchDocument(product.getId()));
+
+        Category category = product.getCategory();
+        Category parent = category != null ? category.getParentCategory() : null;
+
+        document.setSearchText(SearchTextUtils.buildDocument(
+                product.getTitle(),
+                product.getBrand(),
+                category != null ? category.getName() : null,
+                parent != null ? parent.getName() : null,
+                product.getDescription()));
+
+        documentRepository.save(document);
+    }
+
+    @Transactional
+    public void index(Long productId) {
+        productRepository.findById(productId).ifPresent(this::index);
+    }
+
+    /**
+     * Khi khởi động: index các sản phẩm chưa có document.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillMissingDocuments() {
+        List<Long> missing = documentRepository.findProductIdsWithoutDocument();
+        if (missing.isEmpty()) {
+            return;
+        }
+        log.info("Indexing {} products into product_search_index", missing.size());
+        missing.forEach(this::index);
+    }
+
+    /**
+     * JPA không khai báo được FULLTEXT index nên tạo bằng DDL nếu chưa tồn tại.
+     * Chạy ngoài transaction vì ALTER TABLE của MySQL tự commit.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureFullTextIndex() {
+        try {
+            Integer existing = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM information_schema.statistics " +
+                            "WHERE table_schema = DATABASE() " +
+                            "AND table_name = 'product_search_index' " +
+                            "AND index_name = ?",
+                    Integer.class, FULLTEXT_INDEX_NAME);
+
+            if (existing == null || existing == 0) {
+                jdbcTemplate.execute("ALTER TABLE product_search_index ADD FULLTEXT INDEX "
+                        + FULLTEXT_INDEX_NAME + " (search_text)");
+                log.info("✅ Created FULLTEXT index {}", FULLTEXT_INDEX_NAME);
+            }
+            fullTextAvailable = true;
+        } catch (Exception e) {
+            log.error("❌ Could not create FULLTEXT index {}, keyword search falls back to LIKE: {}",
+                    FULLTEXT_INDEX_NAME, e.getMessage());
+        }
+    }
+}
@@ -4,17 +4,26 @@ import java.lang.module.ResolutionException;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
+import com.smartvn.product_service.config.CacheConfig;
 import com.smartvn.product_service.dto.InventoryCheckRequest;
+import com.smartvn.product_service.dto.ProductDTO;
 import com.smartvn.product_service.dto.ProductDetailDTO;
+import com.smartvn.product_service.dto.ProductListingAggregateDTO;
 import com.smartvn.product_service.dto.ProductListingDTO;
 import com.smartvn.product_service.dto.ProductMetadataDTO;
+import com.smartvn.product_service.dto.admin.BulkImportReport;
 import com.smartvn.product_service.dto.admin.CreateProductRequest;
 import com.smartvn.product_service.dto.admin.UpdateProductRequest;
+import com.smartvn.product_service.dto.response.CursorPage;
 import com.smartvn.product_service.exceptions.AppException;
 import com.smartvn.product_service.model.Category;
 import com.smartvn.product_service.model.Image;
@@ -23,11 +32,16 @@ import com.smartvn.product_service.model.Product;
 import com.smartvn.product_service.repository.CategoryRepository;
 import com.smartvn.product_service.repository.ImageRepository;
 import com.smartvn.product_service.repository.InventoryRepository;
+import com.smartvn.product_service.repository.ProductListingSort;
 import com.smartvn.product_service.repository.ProductRepository;
 import com.smartvn.product_service.specification.ProductSpecification;
+import com.smartvn.product_service.util.CursorCodec;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
@@ -49,10 +63,25 @@ public class ProductService {
   private final CategoryRepository categoryRepository;
   private final InventoryRepository inventoryRepository;
   private final ImageRepository imageRepository;
+  private final ProductListingSummaryService listingSummaryService;
+  private final ProductSearchIndexService searchIndexService;
+  private final ProductCacheService productCacheService;
+  private final ProductBulkImportService bulkImportService;
+  private final CategoryTreeCache categoryTreeCache;
+  private final CategoryService categoryService;
+
+  /**
+   * Số sản phẩm tối đa được nạp lại và trả về chi tiết sau bulk import; phần còn lại chỉ trả về id.
+   */
+  @Value("${import.bulk.echo-limit:100}")
+  private int bulkEchoLimit;
 
   public Page<ProductListingDTO> relateDescriptionProductIds(List<Long> productIds, Pageable pageable) {
-    Page<Product> productPage = productRepository.findByIds(productIds, pageable);
-    return productPage.map(this::toListingDTO);
+    if (productIds == null || productIds.isEmpty()) {
+      return Page.empty(pageable);
+    }
+    return productRepository.findListing(ProductSpecification.idIn(productIds), pageable)
+        .map(this::toListingDTO);
 
   }
 
@@ -69,6 +98,80 @@ public class ProductService {
     log.info("🔍 Searching - keyword: {}, topLevel: {}, secondLevel: {}, price: {}-{}",
         keyword, topLevelCategory, secondLevelCategory, minPrice, maxPrice);
 
+    // 1-3. Resolve category + SPECIFICATION (null = có filter category nhưng không tìm thấy)
+    Specification<Product> spec = buildSearchSpec(keyword, topLevelCategory, secondLevelCategory, minPrice, maxPrice);
+    if (spec == null) {
+      return Page.empty(pageable);
+    }
+
+    // 4. ✅ Projection: giá/tồn kho được tổng hợp trong SQL, không load entity + inventories
+    // Có keyword mà không chỉ định sort → xếp theo độ liên quan của full-text search
+    if (keyword != null && !keyword.trim().isEmpty()) {
+      return productRepository.findListingByRelevance(spec, keyword, pageable)
+          .map(this::toListingDTO);
+    }
+    return productRepository.findListing(spec, pageable)
+        .map(this::toListingDTO);
+  }
+
+  /**
+   * Như searchProducts nhưng phân trang keyset: trang sau được lấy bằng WHERE (sort, id) sau cursor
+   * thay vì OFFSET, không chạy COUNT. Có keyword vẫn sắp xếp theo cột sort (điểm relevance không dùng làm cursor được).
+   *
+   * @param sort   "property,direction" (vd "createdAt,desc"), property thuộc ProductListingSort.
+   * @param cursor nextCursor của trang trước (null = trang đầu).
+   * @param size   Kích thước trang.
+   */
+  public CursorPage<ProductListingDTO> searchProductsByCursor(
+      String keyword,
+      String topLevelCategory,
+      String secondLevelCategory,
+      BigDecimal minPrice,
+      BigDecimal maxPrice,
+      String sort,
+      String cursor,
+      int size) {
+    String[] sortParts = (sort == null || sort.isBlank() ? "createdAt,desc" : sort.trim()).split(",");
+    ProductListingSort sortColumn = ProductListingSort.fromProperty(sortParts[0].trim());
+    Sort.Direction direction = sortParts.length > 1
+        ? Sort.Direction.fromOptionalString(sortParts[1].trim()).orElse(Sort.Direction.DESC)
+        : Sort.Direction.DESC;
+    String sortKey = sortColumn.getProperty() + "," + direction.name().toLowerCase();
+
+    CursorCodec.Cursor after = CursorCodec.decode(cursor, sortKey);
+    Comparable<?> afterValue = null;
+    if (after != null) {
+      try {
+        afterValue = sortColumn.parse(after.value());
+      } catch (RuntimeException e) {
+        throw new AppException("Invalid cursor", HttpStatus.BAD_REQUEST);
+      }
+    }
+
+    Specification<Product> spec = buildSearchSpec(keyword, topLevelCategory, secondLevelCategory, minPrice, maxPrice);
+    if (spec == null) {
+      return new CursorPage<>(List.of(), null, false, size);
+    }
+
+    // Lấy dư 1 dòng để biết còn trang sau mà không cần COUNT
+    List<ProductListingAggregateDTO> rows = productRepository.findListingAfter(
+        spec, sortColumn, direction, afterValue, after != null ? after.id() : null, size + 1);
+    return CursorPage.of(rows, size,
+            last -> CursorCodec.encode(sortKey, sortColumn.valueOf(last), last.getId()))
+        .map(this::toListingDTO);
+  }
+
+  /**
+   * Điều kiện lọc chung của searchProducts / searchProductsByCursor.
+   *
+   * @return Specification, hoặc null nếu có filter category nhưng không tìm thấy category (kết quả rỗng).
+   */
+  private Specification<Product> buildSearchSpec(
+      String keyword,
+      String topLevelCategory,
+      String secondLevelCategory,
+      BigDecimal minPrice,
+      BigDecimal maxPrice) {
     // 1. Resolve category IDs
     List<Long> categoryIds = resolveCategoryIds(topLevelCategory, secondLevelCategory);
 
@@ -78,20 +181,70 @@ public class ProductService {
 
     if (hasCategoryFilter && (categoryIds == null || categoryIds.isEmpty())) {
       log.warn("⚠️ Category not found");
-      return Page.empty(pageable);
+      return null;
     }
 
     // 3. ✅ SỬ DỤNG SPECIFICATION để query (bao gồm cả price filter)
-    Specification<Product> spec = ProductSpecification.searchProducts(
+    return ProductSpecification.searchProducts(
         keyword,
+        searchIndexService.isFullTextAvailable(),
         categoryIds.isEmpty() ? null : categoryIds,
         minPrice,
         maxPrice);
+  }
 
-    Page<Product> productPage = productRepository.findAll(spec, pageable);
+  /**
+   * Lấy ProductDTO cho nhiều sản phẩm: 1 query product + inventories (fetch join), 1 query images.
+   * Giá lấy theo variant đầu tiên giống ProductDetailDTO.toSimpleDTO().
+   */
+  public List<ProductDTO> getProductsByIds(List<Long> productIds) {
+    if (productIds == null || productIds.isEmpty()) {
+      return Collections.emptyList();
+    }
+    Set<Long> ids = new LinkedHashSet<>(productIds);
+
+    Map<Long, Product> products = productRepository.findAllWithInventoriesByIdIn(ids).stream()
+        .collect(Collectors.toMap(Product::getId, p -> p));
 
-    // 4. ✅ Chỉ cần map sang DTO, không cần filter nữa
-    return productPage.map(this::toListingDTO);
+    Map<Long, List<String>> imageUrls = imageRepository.findByProductIdInOrderByIdAsc(ids).stream()
+        .collect(Collectors.groupingBy(
+            img -> img.getProduct().getId(),
+            Collectors.mapping(Image::getDownloadUrl, Collectors.toList())));
+
+    return ids.stream()
+        .map(products::get)
+        .filter(Objects::nonNull)
+        .map(p -> toSimpleDTO(p, imageUrls.getOrDefault(p.getId(), new ArrayList<>())))
+        .collect(Collectors.toList());
+  }
+
+  private ProductDTO toSimpleDTO(Product product, List<String> imageUrls) {
+    ProductDTO dto = new ProductDTO();
+    dto.setId(product.getId());
+    dto.setTitle(product.getTitle());
+    dto.setBrand(product.getBrand());
+    dto.setDescription(product.getDescription());
+    dto.setColor(product.getColor());
+    dto.setWeight(product.getWeight());
+    dto.setIsActive(product.getIsActive());
+    dto.setImages(imageUrls);
+
+    List<Inventory> variants = product.getInventories().stream()
+        .sorted(Comparator.comparing(Inventory::getId))
+        .collect(Collectors.toList());
+    if (!variants.isEmpty()) {
+      Inventory firstVariant = variants.get(0);
+      dto.setPrice(firstVariant.getPrice());
+      dto.setDiscountedPrice(firstVariant.getDiscountedPrice());
+      dto.setDiscountPercent(firstVariant.getDiscountPercent());
+
+      dto.setTotalStock(variants.stream()
+          .mapToInt(Inventory::getAvailableQuantity)
+          .sum());
+      dto.setHasStock(dto.getTotalStock() > 0);
+    }
+
+    return dto;
   }
 
   public List<ProductMetadataDTO> exportAllProductMetadata() {
@@ -110,46 +263,23 @@ public class ProductService {
     // Case 1: Có secondLevel → chỉ lấy category cấp 2 đó
     if (secondLevelCategory != null && !secondLevelCategory.trim().isEmpty()) {
       log.debug("🔎 Looking for second level category: {}", secondLevelCategory);
-      return categoryRepository.findByName(secondLevelCategory.trim())
-          .filter(cat -> cat.getLevel() == 2)
-          .map(cat -> {
-            log.info("✅ Found category ID: {} ({})", cat.getId(), cat.getName());
-            return Collections.singletonList(cat.getId());
-          })
-          .orElseGet(() -> {
-            log.warn("⚠️ Second level category '{}' not found", secondLevelCategory);
-            return Collections.emptyList();
-          });
-    }
-
-    // Case 2: Chỉ có topLevel → lấy TẤT CẢ category cấp 2 là con của nó
+      CategoryTreeCache.Node category = categoryTreeCache.findByName(secondLevelCategory);
+      if (category == null || category.level() != 2) {
+        log.warn("⚠️ Second level category '{}' not found", secondLevelCategory);
+        return Collections.emptyList();
+      }
+      return Collections.singletonList(category.id());
+    }
+
+    // Case 2: Chỉ có topLevel → lấy TẤT CẢ category con (nếu không có con thì dùng chính parent)
     if (topLevelCategory != null && !topLevelCategory.trim().isEmpty()) {
       log.debug("🔎 Looking for top level category: {}", topLevelCategory);
-      return categoryRepository.findByName(topLevelCategory.trim())
-          .filter(cat -> cat.getLevel() == 1)
-          .map(parent -> {
-            // ✅ BỎ KIỂM TRA EMPTY - NẾU KHÔNG CÓ CHILDREN THÌ TÌM TRONG CHÍNH PARENT
-            List<Long> childIds = parent.getSubCategories() != null && !parent.getSubCategories().isEmpty()
-                ? parent.getSubCategories().stream()
-                    .map(Category::getId)
-                    .collect(Collectors.toList())
-                : Collections.emptyList();
-
-            // ✅ NẾU KHÔNG CÓ CHILDREN, DÙNG CHÍNH PARENT ID
-            if (childIds.isEmpty()) {
-              log.info("ℹ️ No sub-categories for '{}', using parent ID: {}",
-                  topLevelCategory, parent.getId());
-              return Collections.singletonList(parent.getId());
-            }
-
-            log.info("✅ Found {} sub-categories for '{}': {}",
-                childIds.size(), topLevelCategory, childIds);
-            return childIds;
-          })
-          .orElseGet(() -> {
-            log.warn("⚠️ Top level category '{}' not found", topLevelCategory);
-            return Collections.emptyList();
-          });
+      CategoryTreeCache.Node parent = categoryTreeCache.findByName(topLevelCategory);
+      if (parent == null || parent.level() != 1) {
+        log.warn("⚠️ Top level category '{}' not found", topLevelCategory);
+        return Collections.emptyList();
+      }
+      return parent.filterIds();
     }
 
     // Case 3: Không filter category
@@ -157,6 +287,7 @@ public class ProductService {
     return Collections.emptyList();
   }
 
+  @Cacheable(cacheNames = CacheConfig.PRODUCT_DETAIL_CACHE, key = "#productId")
   public ProductDetailDTO getProductDetail(Long productId) {
     log.info("Fetching detail for product ID: {}", productId);
     Product product = productRepository.findById(productId)
@@ -200,7 +331,7 @@ public class ProductService {
             inv.getPrice(),
             inv.getDiscountPercent(),
             inv.getDiscountedPrice(),
-            inv.getQuantity(),
+            inv.getAvailableQuantity(),
             inv.isInStock()))
         .collect(Collectors.toList()));
 
@@ -212,61 +343,45 @@ public class ProductService {
     return dto;
   }
 
-  @Transactional
+  /**
+   * Import hàng loạt (dùng ProductBulkImportService: kiểm tra trùng bằng HashSet, JDBC batch theo chunk).
+   * Không bọc @Transactional: mỗi chunk tự commit, dòng lỗi được báo riêng trong failures.
+   * Chỉ nạp lại chi tiết tối đa import.bulk.echo-limit sản phẩm đầu tiên (không kéo cả lần import về heap);
+   * mọi sản phẩm đã tạo đều có trong createdProducts (index dòng → id).
+   */
   public BulkImportResult createBulkProductsOptimized(
       List<CreateProductRequest> requests) {
 
-    BulkImportResult result = new BulkImportResult();
-
-    // Map<Long, Category> categoryMap = categoryRepository
-    // .findAllById(categoryIds)
-    // .stream()
-    // .collect(Collectors.toMap(Category::getId, c -> c));
-
-    // 2. Prepare products to save
-    List<Product> productsToSave = new ArrayList<>();
-
-    for (int i = 0; i < requests.size(); i++) {
-      CreateProductRequest req = requests.get(i);
-
-      try {
-        Category category = resolveCategoryFromRequest(req);
-        // Validate
-        boolean exists = productRepository.findAll().stream()
-            .anyMatch(p -> p.getTitle().equalsIgnoreCase(req.getTitle()) &&
-                p.getBrand().equalsIgnoreCase(req.getBrand()));
-
-        if (exists) {
-          result.addFailure(i, req.getTitle(), "Product already exists");
-          continue;
-        }
-
-        Product product = buildProductFromRequest(req, category);
-        result.getSuccessProducts().add(product);
-
-      } catch (Exception e) {
-        result.addFailure(i, req.getTitle(), e.getMessage());
-      }
-    }
+    BulkImportReport report = bulkImportService.importProducts(requests);
 
-    // ✅ BATCH INSERT
-    List<Product> saved = productRepository.saveAll(result.getSuccessProducts());
-    result.getSuccessProducts().clear();
-    result.getSuccessProducts().addAll(saved);
-
-    // Create inventories & images
-    for (Product product : saved) {
-      CreateProductRequest req = findRequestForProduct(requests, product);
-      createInventoriesForProduct(product, req.getVariants());
-      createImagesForProduct(product, req.getImageUrls());
-    }
+    BulkImportResult result = new BulkImportResult();
+    result.setSuccessCount(report.getSuccessCount());
+    result.setCreatedProducts(report.getCreated());
+
+    List<Long> echoedIds = report.getCreatedProductIds().stream()
+        .limit(Math.max(bulkEchoLimit, 0))
+        .collect(Collectors.toList());
+    if (!echoedIds.isEmpty()) {
+      Map<Long, Product> created = productRepository.findAllWithInventoriesByIdIn(echoedIds)
+          .stream()
+          .collect(Collectors.toMap(Product::getId, p -> p));
+      echoedIds.stream()
+          .map(created::get)
+          .filter(Objects::nonNull)
+          .forEach(result::addSuccess);
+    }
+    result.setSuccessProductsTruncated(report.getSuccessCount() > echoedIds.size());
+    report.getFailures().forEach(f -> result.addFailure(f.getIndex(), f.getProductTitle(), f.getErrorMessage()));
 
     return result;
   }
 
   @Data
   public static class BulkImportResult {
+    private int successCount;
+    private List<BulkImportReport.CreatedRecord> createdProducts = new ArrayList<>();
     private List<Product> successProducts = new ArrayList<>();
+    private boolean successProductsTruncated;
     private List<FailureRecord> failures = new ArrayList<>();
 
     public void addSuccess(Product p) {
@@ -286,50 +401,35 @@ public class ProductService {
     }
   }
 
-  private ProductListingDTO toListingDTO(Product product) {
+  private ProductListingDTO toListingDTO(ProductListingAggregateDTO row) {
     ProductListingDTO dto = new ProductListingDTO();
-    dto.setId(product.getId());
-    dto.setTitle(product.getTitle());
-    dto.setBrand(product.getBrand());
-    dto.setAverageRating(product.getAverageRating());
-    dto.setNumRatings(product.getNumRatings());
-    dto.setQuantitySold(product.getQuantitySold());
-
-    if (product.getImages() != null && !product.getImages().isEmpty()) {
-      dto.setThumbnailUrl(product.getImages().get(0).getDownloadUrl());
-    }
-
-    // Tính toán giá và tình trạng kho từ inventory
-    List<Inventory> inventories = product.getInventories();
-    if (!inventories.isEmpty()) {
-      BigDecimal minPrice = inventories.stream().map(Inventory::getPrice).min(BigDecimal::compareTo)
-          .orElse(BigDecimal.ZERO);
-      BigDecimal maxPrice = inventories.stream().map(Inventory::getPrice).max(BigDecimal::compareTo)
-          .orElse(BigDecimal.ZERO);
-      BigDecimal minDiscountedPrice = inventories.stream().map(Inventory::getDiscountedPrice).min(BigDecimal::compareTo)
-          .orElse(BigDecimal.ZERO);
-      BigDecimal maxDiscountedPrice = inventories.stream().map(Inventory::getDiscountedPrice).max(BigDecimal::compareTo)
-          .orElse(BigDecimal.ZERO);
-      int totalStock = inventories.stream().mapToInt(Inventory::getQuantity).sum();
-
-      dto.setPriceRange(formatPriceRange(minPrice, maxPrice));
-      dto.setDiscountedPriceRange(formatPriceRange(minDiscountedPrice, maxDiscountedPrice));
-      dto.setInStock(totalStock > 0);
-
-      boolean hasAnyDiscount = inventories.stream()
-          .anyMatch(inv -> inv.getDiscountPercent() != null && inv.getDiscountPercent() > 0);
+    dto.setId(row.getId());
+    dto.setTitle(row.getTitle());
+    dto.setBrand(row.getBrand());
+    dto.setAverageRating(row.getAverageRating());
+    dto.setNumRatings(row.getNumRatings());
+    dto.setQuantitySold(row.getQuantitySold());
+    dto.setThumbnailUrl(row.getThumbnailUrl());
+
+    // Giá và tình trạng kho đã được tổng hợp sẵn trong product_listing_summary
+    if (row.hasVariants()) {
+      dto.setPriceRange(formatPriceRange(row.getMinPrice(), row.getMaxPrice()));
+      dto.setDiscountedPriceRange(formatPriceRange(row.getMinDiscountedPrice(), row.getMaxDiscountedPrice()));
+      dto.setInStock(row.inStock());
+
+      boolean hasAnyDiscount = row.hasDiscount();
       dto.setHasDiscount(hasAnyDiscount);
 
-      dto.setVariantCount(inventories.size());
+      dto.setVariantCount(row.getVariantCount());
 
       List<String> badges = new ArrayList<>();
-      if (product.getQuantitySold() != null && product.getQuantitySold() > 50) {
+      if (row.getQuantitySold() != null && row.getQuantitySold() > 50) {
         badges.add("Bán chạy");
       }
       if (hasAnyDiscount) {
         badges.add("Giảm giá");
       }
-      if (product.getAverageRating() != null && product.getAverageRating() >= 4.5) {
+      if (row.getAverageRating() != null && row.getAverageRating() >= 4.5) {
         badges.add("Đánh giá cao");
       }
       dto.setBadges(badges);
@@ -457,6 +557,10 @@ public class ProductService {
       createImagesForProduct(savedProduct, request.getImageUrls());
     }
 
+    // 7. ✅ Tạo dòng tổng hợp cho trang listing + document full-text search
+    listingSummaryService.refresh(savedProduct.getId());
+    searchIndexService.index(savedProduct);
+
     return savedProduct;
   }
 
@@ -558,6 +662,8 @@ public class ProductService {
     product.setUpdatedAt(LocalDateTime.now());
 
     Product updated = productRepository.save(product);
+    searchIndexService.index(updated);
+    productCacheService.evictProductDetail(productId);
     log.info("✅ Product updated: {}", updated.getTitle());
 
     return updated;
@@ -571,6 +677,7 @@ public class ProductService {
           newParent.setLevel(1);
           newParent.setIsParent(true);
           Category saved = categoryRepository.save(newParent);
+          categoryTreeCache.refreshAfterCommit();
           log.info("Created new parent category: {}", topLevelName);
           return saved;
         });
@@ -583,6 +690,7 @@ public class ProductService {
           newChild.setIsParent(false);
           newChild.setParentCategory(parentCategory);
           Category saved = categoryRepository.save(newChild);
+          categoryTreeCache.refreshAfterCommit();
           log.info("Created new child category: {} under {}", secondLevelName, topLevelName);
           return saved;
         });
@@ -596,6 +704,7 @@ public class ProductService {
         .orElseThrow(() -> new AppException("Product not found", HttpStatus.NOT_FOUND));
     product.setIsActive(!product.getIsActive());
     productRepository.save(product);
+    productCacheService.evictProductDetail(productId);
   }
 
   @Transactional
@@ -604,6 +713,7 @@ public class ProductService {
         .orElseThrow(() -> new AppException("Product not found", HttpStatus.NOT_FOUND));
     product.setIsActive(false);
     productRepository.save(product);
+    productCacheService.evictProductDetail(productId);
   }
 
   public Page<Product> searchProductsForAdmin(
@@ -615,19 +725,19 @@ public class ProductService {
     Specification<Product> spec = Specification.where(null);
 
     if (search != null) {
-      spec = spec.and((root, query, cb) -> cb.like(cb.lower(root.get("title")), "%" + search.toLowerCase() + "%"));
+      spec = spec.and(ProductSpecification.matchesKeyword(search, searchIndexService.isFullTextAvailable()));
     }
 
     // ✅ THAY ĐỔI DUY NHẤT Ở ĐÂY
     if (categoryId != null) {
-      Category category = categoryRepository.findById(categoryId)
-          .orElseThrow(() -> new AppException("Category not found", HttpStatus.NOT_FOUND));
+      CategoryTreeCache.Node category = categoryTreeCache.findById(categoryId);
+      if (category == null) {
+        throw new AppException("Category not found", HttpStatus.NOT_FOUND);
+      }
 
-      if (category.getLevel() == 1) {
-        // Parent category → search trong tất cả subcategories
-        List<Long> subCategoryIds = category.getSubCategories().stream()
-            .map(Category::getId)
-            .collect(Collectors.toList());
+      if (category.level() == 1) {
+        // Parent category → search trong tất cả subcategories (đã tính sẵn trong cây danh mục)
+        List<Long> subCategoryIds = category.filterIds();
 
         spec = spec.and((root, query, cb) -> root.get("category").get("id").in(subCategoryIds));
       } else {
@@ -650,6 +760,7 @@ public class ProductService {
 
     product.setQuantitySold(product.getQuantitySold() + request.getQuantity());
     productRepository.save(product);
+    productCacheService.evictProductDetail(request.getProductId());
   }
 
   public Product findById(Long id) {
@@ -659,100 +770,17 @@ public class ProductService {
             HttpStatus.NOT_FOUND));
   }
 
-  private CreateProductRequest findRequestForProduct(
-      List<CreateProductRequest> requests,
-      Product product) {
-
-    return requests.stream()
-        .filter(req -> req.getTitle().equals(product.getTitle())
-            && req.getBrand().equals(product.getBrand()))
-        .findFirst()
-        .orElse(null);
-  }
-
-  private Product buildProductFromRequest(
-      CreateProductRequest req,
-      Category category) {
-
-    if (req.getVariants() == null || req.getVariants().isEmpty()) {
-      throw new AppException(
-          "Product must have at least one variant: " + req.getTitle(),
-          HttpStatus.BAD_REQUEST);
-    }
-
-    Product product = new Product();
-    product.setTitle(req.getTitle());
-    product.setBrand(req.getBrand());
-    product.setDescription(req.getDescription());
-    product.setCategory(category);
-
-    // Specs
-    product.setColor(req.getColor());
-    product.setWeight(req.getWeight());
-    product.setDimension(req.getDimension());
-    product.setBatteryType(req.getBatteryType());
-    product.setBatteryCapacity(req.getBatteryCapacity());
-    product.setRamCapacity(req.getRamCapacity());
-    product.setRomCapacity(req.getRomCapacity());
-    product.setScreenSize(req.getScreenSize());
-    product.setConnectionPort(req.getConnectionPort());
-    product.setDetailedReview(req.getDetailedReview());
-    product.setPowerfulPerformance(req.getPowerfulPerformance());
-
-    // Defaults
-    product.setIsActive(true);
-    product.setNumRatings(0);
-    product.setAverageRating(0.0);
-    product.setQuantitySold(0L);
-    product.setWarningCount(0);
-
-    return product;
-  }
-
-  private Category getOrCreateCategoryIgnoreCase(String topLevelName, String secondLevelName) {
-    // ✅ THÊM synchronized hoặc dùng findOrCreate atomic
-    Category parentCategory;
-
-    synchronized (this) { // Simple lock
-      parentCategory = categoryRepository
-          .findByNameAndLevelIgnoreCase(topLevelName, 1)
-          .orElseGet(() -> {
-            Category newParent = new Category();
-            newParent.setName(capitalize(topLevelName));
-            newParent.setLevel(1);
-            newParent.setIsParent(true);
-            return categoryRepository.save(newParent);
-          });
-    }
-
-    Category childCategory;
-    synchronized (this) {
-      childCategory = categoryRepository
-          .findByNameAndLevelIgnoreCase(secondLevelName, 2)
-          .filter(c -> c.getParentCategory() != null &&
-              c.getParentCategory().getId().equals(parentCategory.getId()))
-          .orElseGet(() -> {
-            Category newChild = new Category();
-            newChild.setName(capitalize(secondLevelName));
-            newChild.setLevel(2);
-            newChild.setIsParent(false);
-            newChild.setParentCategory(parentCategory);
-            return categoryRepository.save(newChild);
-          });
-    }
-
-    return childCategory;
-  }
-
   /**
-   * ✅ CAPITALIZE tên category (Google Pixel → Google Pixel)
+   * Tìm/tạo cặp danh mục cha - con. Không khóa: CategoryService dựa vào unique constraint tên danh mục
+   * nên nhiều request / nhiều instance tạo song song vẫn chỉ ra 1 bản ghi.
    */
-  private String capitalize(String str) {
-    if (str == null || str.isEmpty())
-      return str;
-    return Arrays.stream(str.trim().split("\\s+"))
-        .map(word -> word.substring(0, 1).toUpperCase() + word.substring(1).toLowerCase())
-        .collect(Collectors.joining(" "));
+  private Category getOrCreateCategoryIgnoreCase(String topLevelName, String secondLevelName) {
+    Long parentId = categoryService.getOrCreateCategoryId(topLevelName, 1, null);
+    Long childId = categoryService.getOrCreateCategoryId(secondLevelName, 2, parentId);
+
+    // Danh mục có thể vừa được tạo ở transaction riêng, sau khi snapshot của transaction này đã chốt
+    // → findById có thể không thấy; id đã được CategoryService kiểm tra nên chỉ cần reference để gán khóa ngoại
+    return categoryRepository.getReferenceById(childId);
   }
 
   private Category resolveCategoryFromRequest(CreateProductRequest request) {
@@ -6,31 +6,42 @@ import com.smartvn.product_service.dto.ReviewDTO;
 import com.smartvn.product_service.dto.ReviewRequest;
 import com.smartvn.product_service.dto.UserInfoDTO;
 import com.smartvn.product_service.dto.admin.UserDTO;
+import com.smartvn.product_service.dto.response.CursorPage;
 import com.smartvn.product_service.exceptions.AppException;
 import com.smartvn.product_service.model.Product;
 import com.smartvn.product_service.model.Review;
 import com.smartvn.product_service.repository.ProductRepository;
 import com.smartvn.product_service.repository.ReviewRepository;
+import com.smartvn.product_service.util.CursorCodec;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class ReviewService {
 
+    private static final String REVIEW_CURSOR_SORT = "createdAt,desc";
+
     private final ReviewRepository reviewRepository;
     private final ProductRepository productRepository;
     private final UserServiceClient userServiceClient;
     private final OrderServiceClient  orderServiceClient;
+    private final ProductRatingService ratingService;
+    private final UserInfoCacheService userInfoCacheService;
 
     @Transactional
     public Review createReview(Long userId, Long productId, ReviewRequest reviewRequest) {
@@ -59,34 +70,44 @@ public class ReviewService {
         Review savedReview = reviewRepository.save(review);
         log.info("Created a new review with id {} for product {}", savedReview.getId(), productId);
 
-        updateProductRating(productId);
+        ratingService.onReviewAdded(productId, savedReview.getRating());
 
         return savedReview;
     }
 
     // ✅ Thêm method mới để convert Review sang ReviewDTO có thông tin User
     public ReviewDTO getReviewDTO(Review review) {
-        ReviewDTO dto = new ReviewDTO(review);
+        Map<Long, UserInfoDTO> users = userInfoCacheService.getUserInfos(List.of(review.getUserId()));
+        return toReviewDTO(review, users.get(review.getUserId()));
+    }
 
-        try {
-            log.debug("Fetching user info for userId: {}", review.getUserId());
-            UserInfoDTO userInfo = userServiceClient.getUserInfo(review.getUserId());
-            if (userInfo != null) {
-                dto.setUserFirstName(userInfo.getFirstName());
-                dto.setUserLastName(userInfo.getLastName());
-                dto.setUserAvatar(userInfo.getAvatar());
-            } else {
-                // SỬA ĐỔI: Thêm log khi userInfo trả về là null
-                log.warn("User info for userId: {} was null.", review.getUserId());
-                setFallbackUserInfo(dto);
-            }
-        } catch (Exception e) {
-            // SỬA ĐỔI: Ghi log lỗi chi tiết hơn
-            log.error("Failed to fetch user info for userId: {}. Error type: {}. Message: {}",
-                    review.getUserId(), e.getClass().getName(), e.getMessage());
+    /**
+     * Convert nhiều review: 1 lần gọi user-service cho cả danh sách (chỉ các user chưa có trong cache).
+     */
+    public List<ReviewDTO> toReviewDTOs(List<Review> reviews) {
+        Map<Long, UserInfoDTO> users = userInfoCacheService.getUserInfos(
+                reviews.stream().map(Review::getUserId).toList());
+        return toReviewDTOs(reviews, users);
+    }
+
+    /**
+     * @param users Thông tin người dùng đã lấy sẵn; user không có trong map hiển thị là "Anonymous User".
+     */
+    public List<ReviewDTO> toReviewDTOs(List<Review> reviews, Map<Long, UserInfoDTO> users) {
+        return reviews.stream()
+                .map(review -> toReviewDTO(review, users.get(review.getUserId())))
+                .toList();
+    }
+
+    private ReviewDTO toReviewDTO(Review review, UserInfoDTO userInfo) {
+        ReviewDTO dto = new ReviewDTO(review);
+        if (userInfo != null) {
+            dto.setUserFirstName(userInfo.getFirstName());
+            dto.setUserLastName(userInfo.getLastName());
+            dto.setUserAvatar(userInfo.getAvatar());
+        } else {
             setFallbackUserInfo(dto);
         }
-
         return dto;
     }
 
@@ -104,35 +125,40 @@ public class ReviewService {
         }
 
         Page<Review> reviews = reviewRepository.findByProductId(productId, pageable);
-        return reviews.map(this::getReviewDTO);
-    }
 
-    private void updateProductRating(Long productId) {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new AppException("Product not found while updating rating: " + productId, HttpStatus.NOT_FOUND));
+        List<ReviewDTO> dtos = toReviewDTOs(reviews.getContent());
+        return new PageImpl<>(dtos, pageable, reviews.getTotalElements());
+    }
 
-        List<Review> reviews = reviewRepository.findAllByProductId(productId);
+    /**
+     * Phân trang keyset review của sản phẩm, mới nhất trước (createdAt DESC, id DESC), không OFFSET / COUNT.
+     *
+     * @param cursor nextCursor của trang trước (null = trang đầu).
+     */
+    public CursorPage<ReviewDTO> getProductReviewsByCursor(Long productId, String cursor, int size) {
+        if (!productRepository.existsById(productId)) {
+            throw new AppException("Product not found with id: " + productId, HttpStatus.NOT_FOUND);
+        }
 
-        if (reviews.isEmpty()) {
-            product.setNumRatings(0);
-            product.setAverageRating(0.0);
+        CursorCodec.Cursor after = CursorCodec.decode(cursor, REVIEW_CURSOR_SORT);
+        List<Review> rows;
+        if (after == null) {
+            rows = reviewRepository.findLatestByProductId(productId, Limit.of(size + 1));
         } else {
-            double totalRating = reviews.stream()
-                    .mapToInt(Review::getRating)
-                    .sum();
-            double average = totalRating / reviews.size();
-            double roundedAverage = Math.round(average * 10.0) / 10.0;
-
-            product.setNumRatings(reviews.size());
-            product.setAverageRating(roundedAverage);
+            LocalDateTime createdAt;
+            try {
+                createdAt = LocalDateTime.parse(after.value());
+            } catch (DateTimeParseException e) {
+                throw new AppException("Invalid cursor", HttpStatus.BAD_REQUEST);
+            }
+            rows = reviewRepository.findByProductIdBefore(productId, createdAt, after.id(), Limit.of(size + 1));
         }
 
-        productRepository.save(product);
-        log.info("Updated product {} rating: {} stars from {} reviews.",
-                productId, product.getAverageRating(), product.getNumRatings());
+        CursorPage<Review> page = CursorPage.of(rows, size,
+                last -> CursorCodec.encode(REVIEW_CURSOR_SORT, last.getCreatedAt(), last.getId()));
+        return new CursorPage<>(toReviewDTOs(page.getContent()), page.getNextCursor(), page.isHasNext(), size);
     }
 
-
     public Page<Review> searchReviewsForAdmin(String status, Long productId, Long userId, Pageable pageable) {
         Specification<Review> spec = Specification.where(null);
 
@@ -159,6 +185,7 @@ public class ReviewService {
         // ✅ LƯU THÔNG TIN TRƯỚC KHI XÓA
         Long userId = review.getUserId();
         Long productId = review.getProduct().getId();
+        int rating = review.getRating();
 
         // ✅ 1. TĂNG WARNING COUNT TRƯỚC
         try {
@@ -183,7 +210,7 @@ public class ReviewService {
 
         // ✅ 3. CẬP NHẬT RATING
         try {
-            updateProductRating(productId);
+            ratingService.onReviewRemoved(productId, rating);
         } catch (Exception e) {
             log.error("Failed to update product rating after review deletion", e);
             // Không throw exception để transaction vẫn commit
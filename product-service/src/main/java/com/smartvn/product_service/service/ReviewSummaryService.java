@@ -0,0 +1,104 @@
+package com.smartvn.product_service.service;
+
+import com.smartvn.product_service.config.CacheConfig;
+import com.smartvn.product_service.dto.RatingAggregateDTO;
+import com.smartvn.product_service.dto.ReviewSummaryDTO;
+import com.smartvn.product_service.dto.UserInfoDTO;
+import com.smartvn.product_service.exceptions.AppException;
+import com.smartvn.product_service.model.ProductRatingStats;
+import com.smartvn.product_service.model.Review;
+import com.smartvn.product_service.repository.ProductRatingStatsRepository;
+import com.smartvn.product_service.repository.ProductRepository;
+import com.smartvn.product_service.repository.ReviewRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Tóm tắt đánh giá cho trang chi tiết sản phẩm, phục vụ từ cache.
+ * Histogram đọc từ dòng product_rating_stats (được cộng dồn khi ghi review) nên không phải quét bảng reviews;
+ * cache bị xóa mỗi khi thống kê của product thay đổi (xem ProductRatingService).
+ * Bản có review hiển thị "Anonymous User" do user-service lỗi không được cache, để lần sau lấy lại tên thật.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class ReviewSummaryService {
+
+    private final ProductRatingStatsRepository statsRepository;
+    private final ReviewRepository reviewRepository;
+    private final ProductRepository productRepository;
+    private final ReviewService reviewService;
+    private final UserInfoCacheService userInfoCacheService;
+
+    @Value("${review.summary.latest-size:3}")
+    private int latestSize;
+
+    @Cacheable(cacheNames = CacheConfig.REVIEW_SUMMARY_CACHE, key = "#productId", unless = "!#result.userInfoComplete")
+    public ReviewSummaryDTO getSummary(Long productId) {
+        ProductRatingStats stats = statsRepository.findById(productId)
+                .orElseGet(() -> statsWithoutRow(productId));
+
+        ReviewSummaryDTO dto = new ReviewSummaryDTO();
+        dto.setProductId(productId);
+        dto.setAverageRating(stats.getAverageRating());
+        dto.setTotalReviews(stats.getRatingCount());
+
+        int[] counts = {stats.getStar5Count(), stats.getStar4Count(), stats.getStar3Count(),
+                stats.getStar2Count(), stats.getStar1Count()};
+        for (int i = 0; i < counts.length; i++) {
+            double percent = stats.getRatingCount() > 0
+                    ? Math.round(counts[i] * 1000.0 / stats.getRatingCount()) / 10.0
+                    : 0.0;
+            dto.getHistogram().add(new ReviewSummaryDTO.StarBucket(5 - i, counts[i], percent));
+        }
+
+        if (stats.getRatingCount() > 0 && latestSize > 0) {
+            List<Review> latest = reviewRepository.findByProductId(productId,
+                    PageRequest.of(0, latestSize, Sort.by(Sort.Direction.DESC, "createdAt", "id"))).getContent();
+            Map<Long, UserInfoDTO> users = userInfoCacheService.getUserInfos(
+                    latest.stream().map(Review::getUserId).toList());
+            dto.setLatestReviews(reviewService.toReviewDTOs(latest, users));
+            dto.setUserInfoComplete(latest.stream()
+                    .map(Review::getUserId)
+                    .filter(Objects::nonNull)
+                    .allMatch(users::containsKey));
+        }
+        return dto;
+    }
+
+    /**
+     * Product chưa có dòng thống kê: chưa có review, hoặc review có từ trước khi có bảng thống kê
+     * (tính 1 lần bằng aggregate, job đối soát sẽ tạo dòng thống kê sau).
+     */
+    private ProductRatingStats statsWithoutRow(Long productId) {
+        if (!productRepository.existsById(productId)) {
+            throw new AppException("Product not found with id: " + productId, HttpStatus.NOT_FOUND);
+        }
+
+        ProductRatingStats stats = new ProductRatingStats();
+        stats.setProductId(productId);
+        RatingAggregateDTO row = reviewRepository.aggregateRatings(productId).orElse(null);
+        if (row != null) {
+            stats.setRatingCount(row.getRatingCount().intValue());
+            stats.setRatingSum(row.getRatingSum());
+            stats.setStar1Count(row.getStar1Count().intValue());
+            stats.setStar2Count(row.getStar2Count().intValue());
+            stats.setStar3Count(row.getStar3Count().intValue());
+            stats.setStar4Count(row.getStar4Count().intValue());
+            stats.setStar5Count(row.getStar5Count().intValue());
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,63 @@
+package com.smartvn.product_service.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.UUID;
+
+/**
+ * Uploader giả lập cho môi trường offline / test (image.uploader.type=stub):
+ * copy file vào thư mục local và trả về URL theo base-url cấu hình, có thể thêm độ trễ để giả lập mạng.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "image.uploader.type", havingValue = "stub")
+public class StubImageUploader implements ImageUploader {
+
+    private final Path storageDir;
+    private final String baseUrl;
+    private final long latencyMs;
+
+    public StubImageUploader(
+            @Value("${image.uploader.stub.dir:${java.io.tmpdir}/smartvn-stub-images}") String storageDir,
+            @Value("${image.uploader.stub.base-url:http://localhost/stub-images/}") String baseUrl,
+            @Value("${image.uploader.stub.latency-ms:0}") long latencyMs) throws IOException {
+        this.storageDir = Files.createDirectories(Paths.get(storageDir));
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl : baseUrl + "/";
+        this.latencyMs = latencyMs;
+        log.warn("⚠️ Using stub image uploader, files are stored in {}", this.storageDir);
+    }
+
+    @Override
+    public UploadedImage upload(Path file) throws IOException {
+        simulateLatency();
+        String name = UUID.randomUUID().toString();
+        Files.copy(file, storageDir.resolve(name));
+        return new UploadedImage("smartvn/" + name, baseUrl + name);
+    }
+
+    @Override
+    public void delete(String publicId) throws IOException {
+        simulateLatency();
+        String name = publicId.substring(publicId.lastIndexOf('/') + 1);
+        Files.deleteIfExists(storageDir.resolve(name));
+    }
+
+    private void simulateLatency() throws IOException {
+        if (latencyMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(latencyMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        }
+    }
+}
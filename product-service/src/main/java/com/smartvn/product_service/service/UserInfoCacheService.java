@@ -0,0 +1,81 @@
+package com.smartvn.product_service.service;
+
+import com.smartvn.product_service.client.UserServiceClient;
+import com.smartvn.product_service.config.CacheConfig;
+import com.smartvn.product_service.dto.UserInfoDTO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Thông tin người dùng (tên, avatar) để hiển thị kèm review.
+ * Đọc cache trước, các id còn thiếu được lấy bằng 1 lần gọi POST /internal/users/batch.
+ * Kết quả fallback (user-service lỗi) không được cache.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UserInfoCacheService {
+
+    private final UserServiceClient userServiceClient;
+    private final CacheManager cacheManager;
+
+    /**
+     * @return Map userId → UserInfoDTO; user không lấy được sẽ không có trong map.
+     */
+    public Map<Long, UserInfoDTO> getUserInfos(Collection<Long> userIds) {
+        Set<Long> distinctIds = new LinkedHashSet<>(userIds);
+        distinctIds.remove(null);
+        Map<Long, UserInfoDTO> result = new HashMap<>();
+        if (distinctIds.isEmpty()) {
+            return result;
+        }
+
+        Cache cache = cacheManager.getCache(CacheConfig.USER_INFO_CACHE);
+        List<Long> missing = new ArrayList<>();
+        for (Long id : distinctIds) {
+            UserInfoDTO cached = cache != null ? cache.get(id, UserInfoDTO.class) : null;
+            if (cached != null) {
+                result.put(id, cached);
+            } else {
+                missing.add(id);
+            }
+        }
+
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        try {
+            List<UserInfoDTO> fetched = userServiceClient.getUsersByIds(missing);
+            if (fetched != null) {
+                for (UserInfoDTO user : fetched) {
+                    if (user == null || user.getId() == null) {
+                        continue;
+                    }
+                    result.put(user.getId(), user);
+                    if (cache != null) {
+                        cache.put(user.getId(), user);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.error("Failed to fetch user info for {} users. Error type: {}. Message: {}",
+                    missing.size(), e.getClass().getName(), e.getMessage());
+        }
+
+        log.debug("User info: {} from cache, {} fetched from user-service",
+                distinctIds.size() - missing.size(), missing.size());
+        return result;
+    }
+}
@@ -1,10 +1,13 @@
 package com.smartvn.product_service.specification;
 
+import com.smartvn.product_service.config.FullTextFunctionContributor;
 import com.smartvn.product_service.model.Inventory;
 import com.smartvn.product_service.model.Product;
-import jakarta.persistence.criteria.Join;
-import jakarta.persistence.criteria.JoinType;
+import com.smartvn.product_service.model.ProductSearchDocument;
+import com.smartvn.product_service.util.SearchTextUtils;
 import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.math.BigDecimal;
@@ -13,8 +16,60 @@ import java.util.List;
 
 public class ProductSpecification {
 
+    /**
+     * Lọc product theo id (không filter isActive) - dùng cho danh sách recommend.
+     */
+    public static Specification<Product> idIn(List<Long> productIds) {
+        return (root, query, cb) -> root.get("id").in(productIds);
+    }
+
+    /**
+     * Lọc product theo keyword qua bảng product_search_index (đã bỏ dấu).
+     * Token >= 3 ký tự dùng MATCH ... AGAINST (có index), token ngắn hơn lọc thêm bằng LIKE.
+     *
+     * @param fullText false khi chưa có FULLTEXT index (MATCH sẽ lỗi) → mọi token lọc bằng LIKE.
+     */
+    public static Specification<Product> matchesKeyword(String keyword, boolean fullText) {
+        return (root, query, cb) -> {
+            List<String> tokens = SearchTextUtils.tokenize(keyword);
+            if (tokens.isEmpty()) {
+                return cb.conjunction();
+            }
+
+            Subquery<Long> matched = query.subquery(Long.class);
+            Root<ProductSearchDocument> document = matched.from(ProductSearchDocument.class);
+
+            List<Predicate> documentPredicates = new ArrayList<>();
+            if (!fullText) {
+                for (String token : tokens) {
+                    documentPredicates.add(cb.like(document.get("searchText"), "%" + token + "%"));
+                }
+                matched.select(document.get("productId"))
+                        .where(documentPredicates.toArray(new Predicate[0]));
+                return root.get("id").in(matched);
+            }
+
+            String booleanQuery = SearchTextUtils.toBooleanQuery(tokens);
+            if (booleanQuery != null) {
+                documentPredicates.add(cb.greaterThan(
+                        cb.function(FullTextFunctionContributor.MATCH_AGAINST, Double.class,
+                                document.get("searchText"), cb.literal(booleanQuery)),
+                        0d
+                ));
+            }
+            for (String token : SearchTextUtils.shortTokens(tokens)) {
+                documentPredicates.add(cb.like(document.get("searchText"), "%" + token + "%"));
+            }
+
+            matched.select(document.get("productId"))
+                    .where(documentPredicates.toArray(new Predicate[0]));
+            return root.get("id").in(matched);
+        };
+    }
+
     public static Specification<Product> searchProducts(
             String keyword,
+            boolean fullText,
             List<Long> categoryIds,
             BigDecimal minPrice,
             BigDecimal maxPrice) {
@@ -25,12 +80,9 @@ public class ProductSpecification {
             // Base condition: isActive = true
             predicates.add(cb.isTrue(root.get("isActive")));
 
-            // Keyword search
+            // Keyword search - FULLTEXT index trên product_search_index (thay cho LIKE '%kw%')
             if (keyword != null && !keyword.trim().isEmpty()) {
-                predicates.add(cb.like(
-                        cb.lower(root.get("title")),
-                        "%" + keyword.toLowerCase() + "%"
-                ));
+                predicates.add(matchesKeyword(keyword, fullText).toPredicate(root, query, cb));
             }
 
             // Category filter
@@ -38,25 +90,29 @@ public class ProductSpecification {
                 predicates.add(root.get("category").get("id").in(categoryIds));
             }
 
-            // Price filter - JOIN với Inventory
+            // Price filter - sản phẩm khớp khi có ít nhất 1 variant có giá sau giảm nằm trong khoảng.
+            // Subquery trên index (discounted_price, product_id) thay cho JOIN + DISTINCT.
             if (minPrice != null || maxPrice != null) {
-                Join<Product, Inventory> inventoryJoin = root.join("inventories", JoinType.INNER);
+                Subquery<Long> inRange = query.subquery(Long.class);
+                Root<Inventory> inventory = inRange.from(Inventory.class);
 
+                List<Predicate> rangePredicates = new ArrayList<>();
                 if (minPrice != null) {
-                    predicates.add(cb.greaterThanOrEqualTo(
-                            inventoryJoin.get("discountedPrice"), minPrice
+                    rangePredicates.add(cb.greaterThanOrEqualTo(
+                            inventory.get("discountedPrice"), minPrice
                     ));
                 }
 
                 if (maxPrice != null) {
-                    predicates.add(cb.lessThanOrEqualTo(
-                            inventoryJoin.get("discountedPrice"), maxPrice
+                    rangePredicates.add(cb.lessThanOrEqualTo(
+                            inventory.get("discountedPrice"), maxPrice
                     ));
                 }
-            }
 
-            // DISTINCT để tránh duplicate khi JOIN
-            query.distinct(true);
+                inRange.select(inventory.get("product").get("id"))
+                        .where(rangePredicates.toArray(new Predicate[0]));
+                predicates.add(root.get("id").in(inRange));
+            }
 
             return cb.and(predicates.toArray(new Predicate[0]));
         };
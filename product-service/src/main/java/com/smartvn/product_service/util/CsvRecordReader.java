@@ -0,0 +1,102 @@
+package com.smartvn.product_service.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Đọc CSV (RFC 4180) từng bản ghi một từ Reader, không nạp cả file vào bộ nhớ.
+ * Hỗ trợ field trong dấu nháy kép, "" để escape dấu nháy, xuống dòng bên trong field, CRLF / LF.
+ */
+public class CsvRecordReader {
+
+    private final Reader reader;
+    private int lineNumber = 1;
+    private int recordLine = 1;
+    private int pushedBack = -2;
+
+    public CsvRecordReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * @return Các field của bản ghi tiếp theo, hoặc null khi hết file. Dòng trống bị bỏ qua.
+     */
+    public List<String> next() throws IOException {
+        while (true) {
+            recordLine = lineNumber;
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean inQuotes = false;
+            boolean any = false;
+
+            int c;
+            while ((c = read()) != -1) {
+                any = true;
+                if (inQuotes) {
+                    if (c == '"') {
+                        int peek = read();
+                        if (peek == '"') {
+                            field.append('"');
+                        } else {
+                            inQuotes = false;
+                            unread(peek);
+                        }
+                    } else {
+                        if (c == '\n') {
+                            lineNumber++;
+                        }
+                        field.append((char) c);
+                    }
+                } else if (c == '"') {
+                    inQuotes = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\r') {
+                    int peek = read();
+                    if (peek != '\n') {
+                        unread(peek);
+                    }
+                    lineNumber++;
+                    break;
+                } else if (c == '\n') {
+                    lineNumber++;
+                    break;
+                } else {
+                    field.append((char) c);
+                }
+            }
+
+            if (!any) {
+                return null;
+            }
+            fields.add(field.toString());
+            if (fields.size() == 1 && fields.get(0).isBlank()) {
+                continue;
+            }
+            return fields;
+        }
+    }
+
+    /**
+     * Số dòng (bắt đầu từ 1) nơi bản ghi vừa đọc bắt đầu.
+     */
+    public int getRecordLine() {
+        return recordLine;
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != -2) {
+            int c = pushedBack;
+            pushedBack = -2;
+            return c;
+        }
+        return reader.read();
+    }
+
+    private void unread(int c) {
+        pushedBack = c;
+    }
+}
@@ -0,0 +1,89 @@
+package com.smartvn.product_service.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Chuẩn hóa text cho full-text search tiếng Việt.
+ * Cả document lẫn keyword đều đi qua normalize() nên tìm "dien thoai" hay "điện thoại" đều khớp.
+ */
+public final class SearchTextUtils {
+
+    /**
+     * Token ngắn hơn giá trị này bị InnoDB FULLTEXT bỏ qua (innodb_ft_min_token_size mặc định = 3).
+     */
+    public static final int FULLTEXT_MIN_TOKEN_SIZE = 3;
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^a-z0-9]+");
+
+    private SearchTextUtils() {
+    }
+
+    /**
+     * Bỏ dấu, đưa về chữ thường, thay mọi ký tự không phải chữ/số bằng khoảng trắng.
+     * Ví dụ: "Điện thoại Samsung-Galaxy" → "dien thoai samsung galaxy".
+     */
+    public static String normalize(String text) {
+        if (text == null || text.isBlank()) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        String stripped = COMBINING_MARKS.matcher(decomposed).replaceAll("")
+                .replace('đ', 'd')
+                .replace('Đ', 'D')
+                .toLowerCase(Locale.ROOT);
+        return NON_ALPHANUMERIC.matcher(stripped).replaceAll(" ").trim();
+    }
+
+    /**
+     * Ghép nhiều field thành 1 document đã chuẩn hóa (bỏ qua field null).
+     */
+    public static String buildDocument(String... fields) {
+        return Arrays.stream(fields)
+                .map(SearchTextUtils::normalize)
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.joining(" "));
+    }
+
+    /**
+     * Tách keyword thành các token đã chuẩn hóa.
+     */
+    public static List<String> tokenize(String keyword) {
+        String normalized = normalize(keyword);
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        return Arrays.asList(normalized.split(" "));
+    }
+
+    /**
+     * Query BOOLEAN MODE cho các token đủ dài: mỗi token bắt buộc (+) và khớp tiền tố (*).
+     * Ví dụ: "iphone 15 pro max" → "+iphone* +pro* +max*".
+     *
+     * @return null nếu không có token nào đủ dài để dùng FULLTEXT index.
+     */
+    public static String toBooleanQuery(List<String> tokens) {
+        List<String> terms = new ArrayList<>();
+        for (String token : tokens) {
+            if (token.length() >= FULLTEXT_MIN_TOKEN_SIZE) {
+                terms.add("+" + token + "*");
+            }
+        }
+        return terms.isEmpty() ? null : String.join(" ", terms);
+    }
+
+    /**
+     * Các token quá ngắn cho FULLTEXT (vd "15", "s2") - phải lọc bằng LIKE trên document.
+     */
+    public static List<String> shortTokens(List<String> tokens) {
+        return tokens.stream()
+                .filter(token -> token.length() < FULLTEXT_MIN_TOKEN_SIZE)
+                .collect(Collectors.toList());
+    }
+}
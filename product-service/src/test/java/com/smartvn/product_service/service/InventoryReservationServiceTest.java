@@ -0,0 +1,225 @@
+package com.smartvn.product_service.service;
+
+import com.smartvn.product_service.dto.InventoryCheckRequest;
+import com.smartvn.product_service.dto.ReserveInventoryRequest;
+import com.smartvn.product_service.exceptions.AppException;
+import com.smartvn.product_service.model.InventoryReservation;
+import com.smartvn.product_service.repository.InventoryRepository;
+import com.smartvn.product_service.repository.InventoryReservationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class InventoryReservationServiceTest {
+
+    private static final long TTL_MINUTES = 30;
+
+    @Mock
+    private InventoryReservationRepository reservationRepository;
+    @Mock
+    private InventoryRepository inventoryRepository;
+    @Mock
+    private ProductListingSummaryService listingSummaryService;
+    @Mock
+    private ProductCacheService productCacheService;
+    @Mock
+    private HotSkuStockService stockService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private InventoryReservationService service;
+    private final List<InventoryReservation> ledger = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        service = new InventoryReservationService(reservationRepository, inventoryRepository,
+                listingSummaryService, productCacheService, stockService, transactionManager);
+        ReflectionTestUtils.setField(service, "ttlMinutes", TTL_MINUTES);
+
+        // Sổ giữ chỗ trong bộ nhớ: transition chỉ đổi trạng thái khi đúng trạng thái nguồn như câu UPDATE thật
+        when(reservationRepository.transition(anyLong(), any(), any())).thenAnswer(invocation -> {
+            Long id = invocation.getArgument(0);
+            InventoryReservation.Status from = invocation.getArgument(1);
+            InventoryReservation.Status to = invocation.getArgument(2);
+            for (InventoryReservation r : ledger) {
+                if (r.getId().equals(id) && r.getStatus() == from) {
+                    r.setStatus(to);
+                    return 1;
+                }
+            }
+            return 0;
+        });
+        when(stockService.holdStock(anyLong(), anyString(), anyInt())).thenReturn(1);
+    }
+
+    @Test
+    void reserveForOrderAwaitingConfirmationNeverExpires() {
+        service.reserve(new ReserveInventoryRequest(1L, List.of(item(10L, "M", 2)), true));
+
+        InventoryReservation saved = captureSaved(1).get(0);
+        assertEquals(InventoryReservation.Status.HELD, saved.getStatus());
+        assertNull(saved.getExpiresAt());
+    }
+
+    @Test
+    void reserveWithoutFlagUsesTtl() {
+        LocalDateTime before = LocalDateTime.now();
+        service.reserve(new ReserveInventoryRequest(1L, List.of(item(10L, "M", 2))));
+
+        LocalDateTime expiresAt = captureSaved(1).get(0).getExpiresAt();
+        assertNotNull(expiresAt);
+        assertFalse(expiresAt.isBefore(before.plusMinutes(TTL_MINUTES)));
+    }
+
+    @Test
+    void duplicateLinesAreMergedIntoOneHold() {
+        service.reserve(new ReserveInventoryRequest(1L,
+                List.of(item(10L, "M", 2), item(11L, "L", 1), item(10L, "M", 3)), true));
+
+        verify(stockService).holdStock(10L, "M", 5);
+        verify(stockService).holdStock(11L, "L", 1);
+        assertEquals(2, captureSaved(2).size());
+    }
+
+    @Test
+    void replayedReserveDoesNotHoldAgain() {
+        when(reservationRepository.existsByOrderId(1L)).thenReturn(true);
+
+        service.reserve(new ReserveInventoryRequest(1L, List.of(item(10L, "M", 2)), true));
+
+        verify(stockService, never()).holdStock(anyLong(), anyString(), anyInt());
+        verify(reservationRepository, never()).save(any());
+    }
+
+    @Test
+    void concurrentReserveLosingUniqueKeyIsTreatedAsReplay() {
+        // Lần kiểm tra đầu chưa thấy (request kia chưa commit), sau khi vướng unique key thì đã thấy
+        when(reservationRepository.existsByOrderId(1L)).thenReturn(false, true);
+        when(reservationRepository.save(any())).thenThrow(
+                new DataIntegrityViolationException("Duplicate entry for key 'uk_reservation_order_item'"));
+
+        service.reserve(new ReserveInventoryRequest(1L, List.of(item(10L, "M", 2)), true));
+
+        verify(reservationRepository, times(2)).existsByOrderId(1L);
+    }
+
+    @Test
+    void otherIntegrityErrorsAreNotSwallowed() {
+        when(reservationRepository.existsByOrderId(1L)).thenReturn(false);
+        DataIntegrityViolationException error = new DataIntegrityViolationException("Column 'size' cannot be null");
+        when(reservationRepository.save(any())).thenThrow(error);
+
+        DataIntegrityViolationException thrown = assertThrows(DataIntegrityViolationException.class,
+                () -> service.reserve(new ReserveInventoryRequest(1L, List.of(item(10L, "M", 2)), true)));
+        assertSame(error, thrown);
+    }
+
+    @Test
+    void insufficientStockFailsReserve() {
+        when(stockService.holdStock(10L, "M", 2)).thenReturn(0);
+        when(inventoryRepository.existsByProductIdAndSize(10L, "M")).thenReturn(true);
+
+        AppException e = assertThrows(AppException.class,
+                () -> service.reserve(new ReserveInventoryRequest(1L, List.of(item(10L, "M", 2)), true)));
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatus());
+    }
+
+    @Test
+    void expiredHoldIsReleasedThenCommitDeductsFromAvailableStock() {
+        InventoryReservation r = held(100L, 1L, 10L, "M", 2);
+        when(reservationRepository.findExpiredHolds(any(), any())).thenReturn(List.of(r));
+        when(stockService.releaseHold(10L, "M", 2)).thenReturn(1);
+        when(reservationRepository.findByOrderIdOrderByProductIdAscSizeAsc(1L)).thenReturn(List.of(r));
+        when(stockService.reserveStock(10L, "M", 2)).thenReturn(1);
+
+        assertEquals(1, service.expireBatch(100));
+        assertEquals(InventoryReservation.Status.EXPIRED, r.getStatus());
+        verify(stockService).releaseHold(10L, "M", 2);
+
+        assertEquals(1, service.commit(1L));
+        assertEquals(InventoryReservation.Status.COMMITTED, r.getStatus());
+        verify(stockService).reserveStock(10L, "M", 2);
+        verify(stockService, never()).commitHold(anyLong(), anyString(), anyInt());
+
+        // Commit gửi lại: không trừ kho lần nữa
+        assertEquals(0, service.commit(1L));
+        verify(stockService, times(1)).reserveStock(10L, "M", 2);
+    }
+
+    @Test
+    void commitOfExpiredHoldConflictsWhenStockWasSoldMeanwhile() {
+        InventoryReservation r = held(100L, 1L, 10L, "M", 2);
+        r.setStatus(InventoryReservation.Status.EXPIRED);
+        when(reservationRepository.findByOrderIdOrderByProductIdAscSizeAsc(1L)).thenReturn(List.of(r));
+        when(stockService.reserveStock(10L, "M", 2)).thenReturn(0);
+
+        AppException e = assertThrows(AppException.class, () -> service.commit(1L));
+        assertEquals(HttpStatus.CONFLICT, e.getStatus());
+    }
+
+    @Test
+    void commitOfHeldReservationCommitsHold() {
+        InventoryReservation r = held(100L, 1L, 10L, "M", 2);
+        when(reservationRepository.findByOrderIdOrderByProductIdAscSizeAsc(1L)).thenReturn(List.of(r));
+        when(stockService.commitHold(10L, "M", 2)).thenReturn(1);
+
+        assertEquals(1, service.commit(1L));
+        assertEquals(InventoryReservation.Status.COMMITTED, r.getStatus());
+        verify(listingSummaryService).refreshAfterCommit(eq(Set.of(10L)));
+    }
+
+    private InventoryCheckRequest item(Long productId, String size, int quantity) {
+        return new InventoryCheckRequest(productId, size, quantity);
+    }
+
+    private InventoryReservation held(Long id, Long orderId, Long productId, String size, int quantity) {
+        InventoryReservation r = new InventoryReservation();
+        r.setId(id);
+        r.setOrderId(orderId);
+        r.setProductId(productId);
+        r.setSize(size);
+        r.setQuantity(quantity);
+        r.setStatus(InventoryReservation.Status.HELD);
+        r.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+        ledger.add(r);
+        return r;
+    }
+
+    private List<InventoryReservation> captureSaved(int times) {
+        ArgumentCaptor<InventoryReservation> captor = ArgumentCaptor.forClass(InventoryReservation.class);
+        verify(reservationRepository, times(times)).save(captor.capture());
+        return captor.getAllValues();
+    }
+}
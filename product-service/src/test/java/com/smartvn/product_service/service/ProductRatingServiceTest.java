@@ -0,0 +1,248 @@
+package com.smartvn.product_service.service;
+
+import com.smartvn.product_service.dto.RatingAggregateDTO;
+import com.smartvn.product_service.exceptions.AppException;
+import com.smartvn.product_service.model.Product;
+import com.smartvn.product_service.model.ProductRatingStats;
+import com.smartvn.product_service.repository.ProductRatingStatsRepository;
+import com.smartvn.product_service.repository.ProductRepository;
+import com.smartvn.product_service.repository.ReviewRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.http.HttpStatus;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ProductRatingServiceTest {
+
+    private static final Long PRODUCT_ID = 7L;
+
+    @Mock
+    private ProductRatingStatsRepository statsRepository;
+    @Mock
+    private ReviewRepository reviewRepository;
+    @Mock
+    private ProductRepository productRepository;
+    @Mock
+    private ProductCacheService productCacheService;
+
+    private ProductRatingService service;
+    private final Map<Long, ProductRatingStats> table = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        service = new ProductRatingService(statsRepository, reviewRepository, productRepository, productCacheService);
+
+        // Bảng product_rating_stats trong bộ nhớ: applyRating cộng dồn như câu UPDATE thật, 0 dòng nếu chưa có
+        when(statsRepository.applyRating(anyLong(), anyInt(), anyInt(), anyLong())).thenAnswer(invocation -> {
+            ProductRatingStats stats = table.get(invocation.<Long>getArgument(0));
+            if (stats == null) {
+                return 0;
+            }
+            int rating = invocation.getArgument(1);
+            int delta = invocation.getArgument(2);
+            long sumDelta = invocation.getArgument(3);
+            stats.setRatingCount(stats.getRatingCount() + delta);
+            stats.setRatingSum(stats.getRatingSum() + sumDelta);
+            switch (rating) {
+                case 1 -> stats.setStar1Count(stats.getStar1Count() + delta);
+                case 2 -> stats.setStar2Count(stats.getStar2Count() + delta);
+                case 3 -> stats.setStar3Count(stats.getStar3Count() + delta);
+                case 4 -> stats.setStar4Count(stats.getStar4Count() + delta);
+                default -> stats.setStar5Count(stats.getStar5Count() + delta);
+            }
+            return 1;
+        });
+        when(statsRepository.findById(anyLong()))
+                .thenAnswer(invocation -> Optional.ofNullable(table.get(invocation.<Long>getArgument(0))));
+        when(statsRepository.findAll()).thenAnswer(invocation -> List.copyOf(table.values()));
+        when(statsRepository.save(any(ProductRatingStats.class))).thenAnswer(invocation -> {
+            ProductRatingStats stats = invocation.getArgument(0);
+            table.put(stats.getProductId(), stats);
+            return stats;
+        });
+        when(productRepository.findByIdForUpdate(PRODUCT_ID)).thenReturn(Optional.of(new Product()));
+    }
+
+    @Test
+    void onReviewAdded_existingStats_incrementsCountersAndSyncsProduct() {
+        table.put(PRODUCT_ID, stats(PRODUCT_ID, 0, 0, 0, 1, 1)); // 4 + 5 = 9 / 2
+
+        service.onReviewAdded(PRODUCT_ID, 3);
+
+        ProductRatingStats stats = table.get(PRODUCT_ID);
+        assertEquals(3, stats.getRatingCount());
+        assertEquals(12L, stats.getRatingSum());
+        assertEquals(1, stats.getStar3Count());
+        assertEquals(4.0, stats.getAverageRating());
+        verify(statsRepository).applyRating(PRODUCT_ID, 3, 1, 3L);
+        verify(productRepository, never()).findByIdForUpdate(anyLong());
+        verify(productRepository).updateRating(PRODUCT_ID, 3, 4.0);
+        verify(productCacheService).evictProductDetail(PRODUCT_ID);
+        verify(productCacheService).evictReviewSummary(PRODUCT_ID);
+    }
+
+    @Test
+    void onReviewRemoved_decrementsCountersWithNegativeSum() {
+        table.put(PRODUCT_ID, stats(PRODUCT_ID, 0, 0, 0, 1, 1));
+
+        service.onReviewRemoved(PRODUCT_ID, 5);
+
+        ProductRatingStats stats = table.get(PRODUCT_ID);
+        assertEquals(1, stats.getRatingCount());
+        assertEquals(4L, stats.getRatingSum());
+        assertEquals(0, stats.getStar5Count());
+        assertEquals(1, stats.getStar4Count());
+        verify(statsRepository).applyRating(PRODUCT_ID, 5, -1, -5L);
+        verify(productRepository).updateRating(PRODUCT_ID, 1, 4.0);
+    }
+
+    @Test
+    void onReviewRemoved_lastReview_resetsAverageToZero() {
+        table.put(PRODUCT_ID, stats(PRODUCT_ID, 0, 1, 0, 0, 0));
+
+        service.onReviewRemoved(PRODUCT_ID, 2);
+
+        assertEquals(0, table.get(PRODUCT_ID).getRatingCount());
+        verify(productRepository).updateRating(PRODUCT_ID, 0, 0.0);
+    }
+
+    @Test
+    void addThenRemove_restoresOriginalStats() {
+        table.put(PRODUCT_ID, stats(PRODUCT_ID, 1, 0, 2, 0, 1));
+
+        service.onReviewAdded(PRODUCT_ID, 1);
+        service.onReviewRemoved(PRODUCT_ID, 1);
+
+        ProductRatingStats stats = table.get(PRODUCT_ID);
+        assertEquals(4, stats.getRatingCount());
+        assertEquals(12L, stats.getRatingSum());
+        assertEquals(1, stats.getStar1Count());
+        assertEquals(3.0, stats.getAverageRating());
+    }
+
+    @Test
+    void onReviewAdded_firstReview_locksProductAndInitializesFromReviews() {
+        // Review vừa save đã nằm trong bảng reviews → khởi tạo từ GROUP BY, không cộng thêm lần nữa
+        when(reviewRepository.aggregateRatings(PRODUCT_ID))
+                .thenReturn(Optional.of(aggregate(PRODUCT_ID, 0, 0, 0, 0, 1)));
+
+        service.onReviewAdded(PRODUCT_ID, 5);
+
+        ProductRatingStats stats = table.get(PRODUCT_ID);
+        assertEquals(1, stats.getRatingCount());
+        assertEquals(5L, stats.getRatingSum());
+        assertEquals(1, stats.getStar5Count());
+        verify(productRepository).findByIdForUpdate(PRODUCT_ID);
+        verify(statsRepository, times(2)).applyRating(PRODUCT_ID, 5, 1, 5L);
+        verify(statsRepository).save(any(ProductRatingStats.class));
+        verify(productRepository).updateRating(PRODUCT_ID, 1, 5.0);
+    }
+
+    @Test
+    void onReviewAdded_rowCreatedWhileWaitingForLock_appliesDeltaWithoutInitializing() {
+        // Transaction khác khởi tạo dòng thống kê trong lúc chờ khóa product
+        when(productRepository.findByIdForUpdate(PRODUCT_ID)).thenAnswer(invocation -> {
+            table.put(PRODUCT_ID, stats(PRODUCT_ID, 0, 0, 0, 1, 0));
+            return Optional.of(new Product());
+        });
+
+        service.onReviewAdded(PRODUCT_ID, 4);
+
+        ProductRatingStats stats = table.get(PRODUCT_ID);
+        assertEquals(2, stats.getRatingCount());
+        assertEquals(2, stats.getStar4Count());
+        verify(reviewRepository, never()).aggregateRatings(anyLong());
+        verify(statsRepository, never()).save(any(ProductRatingStats.class));
+        verify(productRepository).updateRating(PRODUCT_ID, 2, 4.0);
+    }
+
+    @Test
+    void onReviewAdded_productMissing_throwsNotFound() {
+        when(productRepository.findByIdForUpdate(PRODUCT_ID)).thenReturn(Optional.empty());
+
+        AppException ex = assertThrows(AppException.class, () -> service.onReviewAdded(PRODUCT_ID, 3));
+
+        assertEquals(HttpStatus.NOT_FOUND, ex.getStatus());
+        verify(productRepository, never()).updateRating(anyLong(), anyInt(), anyDouble());
+    }
+
+    @Test
+    void onReviewAdded_ratingOutOfRange_throwsBadRequestWithoutWrites() {
+        AppException low = assertThrows(AppException.class, () -> service.onReviewAdded(PRODUCT_ID, 0));
+        AppException high = assertThrows(AppException.class, () -> service.onReviewRemoved(PRODUCT_ID, 6));
+
+        assertEquals(HttpStatus.BAD_REQUEST, low.getStatus());
+        assertEquals(HttpStatus.BAD_REQUEST, high.getStatus());
+        verifyNoInteractions(statsRepository, productRepository, productCacheService);
+    }
+
+    @Test
+    void reconcileAll_fixesDriftedAndMissingRowsOnly() {
+        table.put(1L, stats(1L, 0, 0, 0, 1, 1));            // đúng
+        table.put(2L, stats(2L, 0, 0, 0, 0, 3));            // lệch: thực tế chỉ còn 2 lượt 5 sao
+        table.put(3L, stats(3L, 1, 0, 0, 0, 0));            // review đã bị xóa hết
+        when(reviewRepository.aggregateRatingsByProduct()).thenReturn(List.of(
+                aggregate(1L, 0, 0, 0, 1, 1),
+                aggregate(2L, 0, 0, 0, 0, 2),
+                aggregate(4L, 0, 1, 1, 0, 0)));             // chưa có dòng thống kê
+
+        int fixed = service.reconcileAll();
+
+        assertEquals(3, fixed);
+        assertEquals(2, table.get(2L).getRatingCount());
+        assertEquals(10L, table.get(2L).getRatingSum());
+        assertEquals(0, table.get(3L).getRatingCount());
+        assertEquals(2, table.get(4L).getRatingCount());
+        assertEquals(5L, table.get(4L).getRatingSum());
+
+        ArgumentCaptor<Long> synced = ArgumentCaptor.forClass(Long.class);
+        verify(productRepository, times(3)).updateRating(synced.capture(), anyInt(), anyDouble());
+        assertEquals(List.of(2L, 3L, 4L), synced.getAllValues().stream().sorted().toList());
+        verify(productRepository).updateRating(eq(2L), eq(2), eq(5.0));
+        verify(productRepository).updateRating(eq(4L), eq(2), eq(2.5));
+        verify(productCacheService, never()).evictProductDetail(1L);
+    }
+
+    private ProductRatingStats stats(Long productId, int s1, int s2, int s3, int s4, int s5) {
+        ProductRatingStats stats = new ProductRatingStats();
+        stats.setProductId(productId);
+        stats.setRatingCount(s1 + s2 + s3 + s4 + s5);
+        stats.setRatingSum((long) s1 + 2L * s2 + 3L * s3 + 4L * s4 + 5L * s5);
+        stats.setStar1Count(s1);
+        stats.setStar2Count(s2);
+        stats.setStar3Count(s3);
+        stats.setStar4Count(s4);
+        stats.setStar5Count(s5);
+        return stats;
+    }
+
+    private RatingAggregateDTO aggregate(Long productId, long s1, long s2, long s3, long s4, long s5) {
+        return new RatingAggregateDTO(productId, s1 + s2 + s3 + s4 + s5,
+                s1 + 2 * s2 + 3 * s3 + 4 * s4 + 5 * s5, s1, s2, s3, s4, s5);
+    }
+}
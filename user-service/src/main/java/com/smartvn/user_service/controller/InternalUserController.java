@@ -3,6 +3,7 @@ package com.smartvn.user_service.controller;
 import com.smartvn.user_service.dto.address.AddressDTO;
 import com.smartvn.user_service.dto.internal.UserInfoDTO;
 import com.smartvn.user_service.dto.response.ApiResponse;
+import com.smartvn.user_service.dto.response.CursorPage;
 import com.smartvn.user_service.dto.user.UserDTO;
 import com.smartvn.user_service.dto.user.UserStatsDTO;
 import com.smartvn.user_service.enums.UserRole;
@@ -74,6 +75,23 @@ public class InternalUserController {
         return ResponseEntity.ok(new AddressDTO(address));
     }
 
+    /**
+     * ✅ Lấy nhiều địa chỉ trong 1 request (cho danh sách đơn hàng admin)
+     * Được gọi bởi: order-service InternalOrderController
+     */
+    @PostMapping("/addresses/batch")
+    public ResponseEntity<List<AddressDTO>> getAddressesByIds(@RequestBody List<Long> addressIds) {
+        if (addressIds == null || addressIds.isEmpty()) {
+            return ResponseEntity.ok(Collections.emptyList());
+        }
+
+        List<AddressDTO> dtos = addressRepository.findAllById(addressIds).stream()
+                .map(AddressDTO::new)
+                .collect(Collectors.toList());
+
+        return ResponseEntity.ok(dtos);
+    }
+
     @GetMapping("/search")
     public ResponseEntity<ApiResponse<Page<UserDTO>>> searchUsers(
             @RequestParam("page") int page,
@@ -89,6 +107,24 @@ public class InternalUserController {
         return ResponseEntity.ok(ApiResponse.success(userDTOS, "Get success"));
     }
 
+    /**
+     * Như /search nhưng phân trang bằng cursor (user mới nhất trước), không đếm tổng số user.
+     */
+    @GetMapping("/search/cursor")
+    public ResponseEntity<ApiResponse<CursorPage<UserDTO>>> searchUsersByCursor(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size,
+            @RequestParam(value = "search", required = false)  String search,
+            @RequestParam(value = "role", required = false)  String role,
+            @RequestParam(value = "isBanned", required = false) Boolean isBanned
+    ) {
+        CursorPage<User> users = userService.searchUsersByCursor(
+                search, role, isBanned, cursor, Math.max(1, Math.min(size, 100)));
+        CursorPage<UserDTO> userDTOS = users.map(userService::convertUserToDto);
+
+        return ResponseEntity.ok(ApiResponse.success(userDTOS, "Get success"));
+    }
+
     /**
      * ✅ BAN USER
      */
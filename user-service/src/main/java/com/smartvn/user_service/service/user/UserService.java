@@ -6,6 +6,7 @@ import com.smartvn.user_service.dto.auth.OtpVerificationRequest;
 import com.smartvn.user_service.dto.auth.RegisterRequest;
 import com.smartvn.user_service.dto.internal.UserInfoDTO;
 import com.smartvn.user_service.dto.response.ApiResponse;
+import com.smartvn.user_service.dto.response.CursorPage;
 import com.smartvn.user_service.dto.user.UpdateUserRequest;
 import com.smartvn.user_service.dto.user.UserDTO;
 import com.smartvn.user_service.dto.user.UserStatsDTO;
@@ -19,6 +20,7 @@ import com.smartvn.user_service.repository.RoleRepository;
 import com.smartvn.user_service.repository.UserRepository;
 import com.smartvn.user_service.security.jwt.JwtUtils;
 import com.smartvn.user_service.service.otp.OtpService;
+import com.smartvn.user_service.utils.CursorCodec;
 import jakarta.persistence.EntityExistsException;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
@@ -26,6 +28,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -33,11 +36,14 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class UserService {
+    private static final String USER_CURSOR_SORT = "id,desc";
+
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
@@ -136,6 +142,35 @@ public class UserService {
 
     public Page<User> searchUsers(String search, String role,
                                   Boolean isBanned, Pageable pageable) {
+        return userRepository.findAll(userSearchSpec(search, role, isBanned), pageable);
+    }
+
+    /**
+     * Như searchUsers nhưng phân trang keyset theo id DESC (user mới nhất trước):
+     * trang sau lọc bằng id < id cuối trang trước thay vì OFFSET, không chạy COUNT.
+     *
+     * @param cursor nextCursor của trang trước (null = trang đầu).
+     */
+    public CursorPage<User> searchUsersByCursor(String search, String role, Boolean isBanned,
+                                                String cursor, int size) {
+        Specification<User> spec = userSearchSpec(search, role, isBanned);
+
+        CursorCodec.Cursor after = CursorCodec.decode(cursor, USER_CURSOR_SORT);
+        if (after != null) {
+            spec = spec.and((root, query, cb) -> cb.lessThan(root.get("id"), after.id()));
+        }
+
+        List<User> rows = userRepository.findBy(spec, q -> q
+                .sortBy(Sort.by(Sort.Order.desc("id")))
+                .limit(size + 1)
+                .all());
+        return CursorPage.of(rows, size, last -> CursorCodec.encode(USER_CURSOR_SORT, last.getId(), last.getId()));
+    }
+
+    /**
+     * Điều kiện lọc chung của searchUsers / searchUsersByCursor.
+     */
+    private Specification<User> userSearchSpec(String search, String role, Boolean isBanned) {
 
         Specification<User> spec = Specification.where(null);
 
@@ -168,7 +203,7 @@ public class UserService {
             );
         }
 
-        return userRepository.findAll(spec, pageable);
+        return spec;
     }
 
     public void banUser(Long userId) {
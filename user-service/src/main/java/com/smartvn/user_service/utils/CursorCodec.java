@@ -0,0 +1,53 @@
+package com.smartvn.user_service.utils;
+
+import com.smartvn.user_service.exceptions.AppException;
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Mã hóa / giải mã cursor cho phân trang keyset (seek).
+ * Cursor là chuỗi base64url mờ chứa (kiểu sắp xếp, giá trị cột sort, id) của dòng cuối trang trước;
+ * client chỉ việc gửi lại nguyên văn để lấy trang kế tiếp.
+ */
+public final class CursorCodec {
+
+    private static final char SEPARATOR = '\n';
+
+    private CursorCodec() {
+    }
+
+    /**
+     * @param sortKey Kiểu sắp xếp đã sinh ra cursor (vd "createdAt,desc") - cursor chỉ hợp lệ với đúng kiểu sort này.
+     * @param value   Giá trị cột sort của dòng cuối (toString() phải parse ngược lại được).
+     * @param id      Id của dòng cuối, dùng để phân định các dòng trùng giá trị sort.
+     */
+    public record Cursor(String sortKey, String value, Long id) {
+    }
+
+    public static String encode(String sortKey, Object value, Long id) {
+        String raw = sortKey + SEPARATOR + value + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return Cursor đã giải mã, null nếu token rỗng (trang đầu).
+     * @throws AppException BAD_REQUEST nếu token hỏng hoặc được tạo với kiểu sort khác.
+     */
+    public static Cursor decode(String token, String expectedSortKey) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+            String[] parts = raw.split(String.valueOf(SEPARATOR), -1);
+            if (parts.length == 3 && parts[0].equals(expectedSortKey)) {
+                return new Cursor(parts[0], parts[1], Long.valueOf(parts[2]));
+            }
+        } catch (IllegalArgumentException e) {
+            // rơi xuống lỗi chung bên dưới
+        }
+        throw new AppException("Invalid cursor", HttpStatus.BAD_REQUEST);
+    }
+}